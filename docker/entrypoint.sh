@@ -56,5 +56,8 @@ if [ ! -z "$JAVA_OPTS" ]; then
     export CATALINA_OPTS="$JAVA_OPTS"
 fi
 
+# Virtuelle Threads für Tomcat-Connector (server.xml) und anwendungsinterne Executors
+export CATALINA_OPTS="$CATALINA_OPTS -Dthreads.virtual=${LIVEPOLL_THREADS_VIRTUAL:-false}"
+
 echo "Configuration complete, starting Tomcat..."
 exec catalina.sh run
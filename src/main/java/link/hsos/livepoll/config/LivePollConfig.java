@@ -0,0 +1,93 @@
+package link.hsos.livepoll.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Konfigurationsklasse für Laufzeit- und Performance-Einstellungen.
+ * Die Werte werden aus der Datei livepoll.properties geladen und können über
+ * System-Properties oder Umgebungsvariablen überschrieben werden
+ * (z.B. vote.flush.interval.ms -> LIVEPOLL_VOTE_FLUSH_INTERVAL_MS).
+ */
+public final class LivePollConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(LivePollConfig.class);
+    private static final Properties props = loadProperties();
+
+    private LivePollConfig() {
+        // Utility-Klasse - keine Instanzen erlaubt
+    }
+
+    private static Properties loadProperties() {
+        Properties properties = new Properties();
+        try (InputStream input = LivePollConfig.class.getClassLoader().getResourceAsStream("livepoll.properties")) {
+            if (input != null) {
+                properties.load(input);
+                logger.info("Laufzeitkonfiguration erfolgreich geladen");
+            } else {
+                logger.warn("Konnte livepoll.properties nicht finden, verwende Standardeinstellungen");
+            }
+        } catch (IOException e) {
+            logger.error("Fehler beim Laden der Laufzeitkonfiguration", e);
+        }
+        return properties;
+    }
+
+    /**
+     * Liefert den Wert eines Schlüssels. Reihenfolge: System-Property, Umgebungsvariable, Properties-Datei.
+     *
+     * @param key Der Konfigurationsschlüssel
+     * @param defaultValue Standardwert, falls der Schlüssel nirgends gesetzt ist
+     * @return Der konfigurierte Wert oder der Standardwert
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null || value.isBlank()) {
+            value = System.getenv(toEnvironmentName(key));
+        }
+        if (value == null || value.isBlank()) {
+            value = props.getProperty(key);
+        }
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Ungültiger Wert für {}: '{}', verwende {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Ungültiger Wert für {}: '{}', verwende {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    private static String toEnvironmentName(String key) {
+        return "LIVEPOLL_" + key.toUpperCase(Locale.ROOT).replace('.', '_').replace('-', '_');
+    }
+}
@@ -0,0 +1,49 @@
+package link.hsos.livepoll.config;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Erzeugt die Threads der anwendungsinternen Executors.
+ * Ist {@code threads.virtual=true} gesetzt (bzw. LIVEPOLL_THREADS_VIRTUAL=true), werden virtuelle
+ * Threads verwendet, sodass blockierende JDBC-Aufrufe und Wartezeiten keine Plattform-Threads belegen.
+ * Sonst werden benannte Daemon-Plattform-Threads erzeugt.
+ */
+public final class ThreadFactories {
+
+    private static final boolean VIRTUAL_THREADS = LivePollConfig.getBoolean("threads.virtual", false);
+
+    private ThreadFactories() {
+        // Utility-Klasse - keine Instanzen erlaubt
+    }
+
+    public static boolean isVirtualThreadsEnabled() {
+        return VIRTUAL_THREADS;
+    }
+
+    /**
+     * Liefert eine ThreadFactory für einen Executor; die Threads heißen {@code prefix-0}, {@code prefix-1}, ...
+     *
+     * @param prefix Namenspräfix der Threads
+     * @return ThreadFactory für virtuelle bzw. Daemon-Plattform-Threads
+     */
+    public static ThreadFactory named(String prefix) {
+        if (VIRTUAL_THREADS) {
+            return Thread.ofVirtual().name(prefix + "-", 0).factory();
+        }
+        return Thread.ofPlatform().name(prefix + "-", 0).daemon(true).factory();
+    }
+
+    /**
+     * Erzeugt einen einzelnen, noch nicht gestarteten Thread.
+     *
+     * @param name Name des Threads
+     * @param task Auszuführende Aufgabe
+     * @return Der Thread
+     */
+    public static Thread unstarted(String name, Runnable task) {
+        if (VIRTUAL_THREADS) {
+            return Thread.ofVirtual().name(name).unstarted(task);
+        }
+        return Thread.ofPlatform().name(name).daemon(true).unstarted(task);
+    }
+}
@@ -10,7 +10,11 @@ import java.util.UUID;
  *
  */
 @Entity
-@Table(name = "polls")
+@Table(name = "polls", indexes = {
+        @Index(name = "idx_polls_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_polls_created_by_created_at_id", columnList = "created_by, created_at, id"),
+        @Index(name = "idx_polls_status", columnList = "status")
+})
 public class Poll {
     
     @Id
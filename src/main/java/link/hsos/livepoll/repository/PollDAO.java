@@ -2,6 +2,7 @@ package link.hsos.livepoll.repository;
 
 import link.hsos.livepoll.model.Poll;
 import link.hsos.livepoll.model.PollStatus;
+import link.hsos.livepoll.model.PollType;
 import link.hsos.livepoll.model.Option;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,8 +10,12 @@ import org.slf4j.LoggerFactory;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 /**
  * Data Access Object (DAO) für Poll-Entitäten.
@@ -92,6 +97,34 @@ public class PollDAO {
             em.close();
         }
     }
+    /**
+     * Lädt mehrere Umfragen mit ihren Antwortoptionen in einer Abfrage, z.B. die nicht
+     * zwischengespeicherten Umfragen einer Seite der Umfrageliste.
+     *
+     * @param ids Die IDs der Umfragen
+     * @return Die gefundenen Umfragen in beliebiger Reihenfolge
+     */
+    public List<Poll> findByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        EntityManager em = dbManager.createEntityManager();
+        try {
+            logger.debug("Lade {} Polls nach ID", ids.size());
+
+            TypedQuery<Poll> query = em.createQuery(
+                "SELECT p FROM Poll p LEFT JOIN FETCH p.options WHERE p.id IN :ids", Poll.class);
+            query.setParameter("ids", ids);
+
+            return query.getResultList();
+
+        } catch (Exception e) {
+            logger.error("Fehler beim Laden der Polls mit IDs: {}", ids, e);
+            return new ArrayList<>();
+        } finally {
+            em.close();
+        }
+    }
     /**
      * Sucht eine Umfrage anhand ihres Short-Codes.
      * Lädt automatisch alle zugehörigen Antwortoptionen mit.
@@ -127,48 +160,28 @@ public class PollDAO {
         }
     }
     /**
-     * Generiert einen eindeutigen 6-stelligen Short-Code für eine Umfrage.
-     *
-     * @return Ein eindeutiger 6-stelliger Short-Code
-     */
-    public String generateShortCode() {
-        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        String shortCode;
-        
-        do {
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < 6; i++) {
-                sb.append(chars.charAt((int) (Math.random() * chars.length())));
-            }
-            shortCode = sb.toString();
-        } while (isShortCodeExists(shortCode));
-        
-        return shortCode;
-    }
-    /**
-     * Prüft ob ein Short-Code bereits in der Datenbank existiert.
+     * Lädt die Zuordnung aller vergebenen Short-Codes zu den IDs ihrer Umfragen,
+     * ohne die Umfragen selbst zu laden.
      *
-     * @param shortCode Der zu prüfende Short-Code
-     * @return true wenn der Code bereits existiert, false sonst
+     * @return Map von Short-Code auf Poll-ID
+     * @throws RuntimeException wenn die Short-Codes nicht geladen werden konnten
      */
-    private boolean isShortCodeExists(String shortCode) {
+    public Map<String, String> findAllShortCodes() {
         EntityManager em = dbManager.createEntityManager();
         try {
-            TypedQuery<Long> query = em.createQuery(
-                "SELECT COUNT(p) FROM Poll p WHERE p.shortCode = :shortCode", Long.class);
-            query.setParameter("shortCode", shortCode);
-            
-            List<Long> results = query.getResultList();
-            if (results.isEmpty()) {
-                return false;
+            TypedQuery<Object[]> query = em.createQuery(
+                "SELECT p.shortCode, p.id FROM Poll p WHERE p.shortCode IS NOT NULL", Object[].class);
+
+            Map<String, String> shortCodes = new HashMap<>();
+            for (Object[] row : query.getResultList()) {
+                shortCodes.put((String) row[0], (String) row[1]);
             }
-            
-            Long count = results.get(0);
-            return count > 0;
-            
+            logger.debug("{} Short-Codes geladen", shortCodes.size());
+            return shortCodes;
+
         } catch (Exception e) {
-            logger.error("Fehler beim Prüfen des Short-Codes", e);
-            return false;
+            logger.error("Fehler beim Laden der Short-Codes", e);
+            throw new RuntimeException("Short-Codes konnten nicht geladen werden", e);
         } finally {
             em.close();
         }
@@ -228,6 +241,115 @@ public class PollDAO {
             em.close();
         }
     }
+    /**
+     * Lädt eine Seite von Umfragen als Übersicht ohne Antwortoptionen (Keyset-Paginierung).
+     * Sortiert wird nach Erstellungsdatum und ID absteigend; die nächste Seite beginnt nach
+     * dem letzten Eintrag der vorherigen, sodass die Kosten nicht mit der Seitenzahl wachsen.
+     *
+     * @param createdBy Nur Umfragen dieses Erstellers, null für alle
+     * @param afterCreatedAt Erstellungsdatum des letzten Eintrags der vorherigen Seite, null für die erste Seite
+     * @param afterId ID des letzten Eintrags der vorherigen Seite
+     * @param limit Maximale Anzahl Einträge
+     * @return Liste der Übersichten, neueste zuerst
+     */
+    public List<PollSummary> findSummaryPage(String createdBy, LocalDateTime afterCreatedAt, String afterId, int limit) {
+        EntityManager em = dbManager.createEntityManager();
+        try {
+            StringBuilder jpql = new StringBuilder(
+                "SELECT p.id, p.question, p.pollType, p.status, p.createdAt, p.startTime, p.endTime, " +
+                "p.createdBy, p.isPublic, p.allowMultipleVotes, p.shortCode, " +
+                "(SELECT COALESCE(SUM(o.votes), 0) FROM Poll p2 JOIN p2.options o WHERE p2.id = p.id), " +
+                "(SELECT COUNT(o) FROM Poll p2 JOIN p2.options o WHERE p2.id = p.id) " +
+                "FROM Poll p WHERE 1 = 1");
+            if (createdBy != null) {
+                jpql.append(" AND p.createdBy = :createdBy");
+            }
+            if (afterCreatedAt != null) {
+                jpql.append(" AND (p.createdAt < :afterCreatedAt OR (p.createdAt = :afterCreatedAt AND p.id < :afterId))");
+            }
+            jpql.append(" ORDER BY p.createdAt DESC, p.id DESC");
+
+            TypedQuery<Object[]> query = em.createQuery(jpql.toString(), Object[].class);
+            if (createdBy != null) {
+                query.setParameter("createdBy", createdBy);
+            }
+            if (afterCreatedAt != null) {
+                query.setParameter("afterCreatedAt", afterCreatedAt);
+                query.setParameter("afterId", afterId);
+            }
+            query.setMaxResults(limit);
+
+            List<PollSummary> summaries = new ArrayList<>();
+            for (Object[] row : query.getResultList()) {
+                PollSummary summary = new PollSummary();
+                summary.setId((String) row[0]);
+                summary.setQuestion((String) row[1]);
+                summary.setPollType((PollType) row[2]);
+                summary.setStatus((PollStatus) row[3]);
+                summary.setCreatedAt((LocalDateTime) row[4]);
+                summary.setStartTime((LocalDateTime) row[5]);
+                summary.setEndTime((LocalDateTime) row[6]);
+                summary.setCreatedBy((String) row[7]);
+                summary.setPublic((Boolean) row[8]);
+                summary.setAllowMultipleVotes((Boolean) row[9]);
+                summary.setShortCode((String) row[10]);
+                summary.setTotalVotes(((Number) row[11]).intValue());
+                summary.setOptionCount(((Number) row[12]).intValue());
+                summaries.add(summary);
+            }
+            return summaries;
+
+        } catch (Exception e) {
+            logger.error("Fehler beim Laden einer Seite von Polls", e);
+            return new ArrayList<>();
+        } finally {
+            em.close();
+        }
+    }
+    /**
+     * Lädt die Entwürfe, deren Startzeit erreicht ist und die automatisch gestartet werden müssen.
+     *
+     * @param now Der aktuelle Zeitpunkt
+     * @return Liste der zu startenden Umfragen
+     */
+    public List<Poll> findPollsDueToStart(LocalDateTime now) {
+        EntityManager em = dbManager.createEntityManager();
+        try {
+            TypedQuery<Poll> query = em.createQuery(
+                "SELECT p FROM Poll p LEFT JOIN FETCH p.options WHERE p.status = :status AND p.startTime < :now", Poll.class);
+            query.setParameter("status", PollStatus.DRAFT);
+            query.setParameter("now", now);
+            return query.getResultList();
+
+        } catch (Exception e) {
+            logger.error("Fehler beim Laden der zu startenden Polls", e);
+            return new ArrayList<>();
+        } finally {
+            em.close();
+        }
+    }
+    /**
+     * Lädt die aktiven Umfragen, deren Endzeit überschritten ist und die automatisch geschlossen werden müssen.
+     *
+     * @param now Der aktuelle Zeitpunkt
+     * @return Liste der abgelaufenen aktiven Umfragen
+     */
+    public List<Poll> findExpiredActivePolls(LocalDateTime now) {
+        EntityManager em = dbManager.createEntityManager();
+        try {
+            TypedQuery<Poll> query = em.createQuery(
+                "SELECT p FROM Poll p LEFT JOIN FETCH p.options WHERE p.status = :status AND p.endTime < :now", Poll.class);
+            query.setParameter("status", PollStatus.ACTIVE);
+            query.setParameter("now", now);
+            return query.getResultList();
+
+        } catch (Exception e) {
+            logger.error("Fehler beim Laden der abgelaufenen Polls", e);
+            return new ArrayList<>();
+        } finally {
+            em.close();
+        }
+    }
     /**
      * Aktualisiert eine bestehende Umfrage in der Datenbank.
      * Neue Optionen werden automatisch erstellt, bestehende werden aktualisiert.
@@ -258,6 +380,39 @@ public class PollDAO {
             em.close();
         }
     }
+    /**
+     * Setzt nur den Status einer Umfrage.
+     * Im Gegensatz zu update() werden die Optionen nicht zurückgeschrieben, sodass
+     * die Stimmenzähler in options.votes nicht mit veralteten Werten überschrieben werden.
+     *
+     * @param id Die ID der Umfrage
+     * @param status Der neue Status
+     * @return true wenn die Umfrage aktualisiert wurde, false bei Fehlern oder unbekannter ID
+     */
+    public boolean updateStatus(String id, PollStatus status) {
+        EntityManager em = dbManager.createEntityManager();
+        try {
+            em.getTransaction().begin();
+
+            int affected = em.createQuery("UPDATE Poll p SET p.status = :status WHERE p.id = :id")
+                .setParameter("status", status)
+                .setParameter("id", id)
+                .executeUpdate();
+
+            em.getTransaction().commit();
+            logger.info("Status von Poll {} auf {} gesetzt", id, status);
+            return affected > 0;
+
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            logger.error("Fehler beim Aktualisieren des Poll-Status", e);
+            return false;
+        } finally {
+            em.close();
+        }
+    }
     /**
      * Löscht eine Umfrage aus der Datenbank.
      * Durch die Cascade-Konfiguration werden automatisch alle zugehörigen
@@ -328,4 +483,62 @@ public class PollDAO {
         
         logger.debug("Optionen für Poll {} erfolgreich aktualisiert", poll.getId());
     }
-} 
\ No newline at end of file
+
+    /**
+     * Übersicht einer Umfrage ohne Antwortoptionen für Listenansichten.
+     */
+    public static class PollSummary {
+        private String id;
+        private String question;
+        private PollType pollType;
+        private PollStatus status;
+        private LocalDateTime createdAt;
+        private LocalDateTime startTime;
+        private LocalDateTime endTime;
+        private String createdBy;
+        private boolean isPublic;
+        private boolean allowMultipleVotes;
+        private String shortCode;
+        private int totalVotes;
+        private int optionCount;
+
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+
+        public String getQuestion() { return question; }
+        public void setQuestion(String question) { this.question = question; }
+
+        public PollType getPollType() { return pollType; }
+        public void setPollType(PollType pollType) { this.pollType = pollType; }
+
+        public PollStatus getStatus() { return status; }
+        public void setStatus(PollStatus status) { this.status = status; }
+
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+        public LocalDateTime getStartTime() { return startTime; }
+        public void setStartTime(LocalDateTime startTime) { this.startTime = startTime; }
+
+        public LocalDateTime getEndTime() { return endTime; }
+        public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
+
+        public String getCreatedBy() { return createdBy; }
+        public void setCreatedBy(String createdBy) { this.createdBy = createdBy; }
+
+        public boolean isPublic() { return isPublic; }
+        public void setPublic(boolean isPublic) { this.isPublic = isPublic; }
+
+        public boolean isAllowMultipleVotes() { return allowMultipleVotes; }
+        public void setAllowMultipleVotes(boolean allowMultipleVotes) { this.allowMultipleVotes = allowMultipleVotes; }
+
+        public String getShortCode() { return shortCode; }
+        public void setShortCode(String shortCode) { this.shortCode = shortCode; }
+
+        public int getTotalVotes() { return totalVotes; }
+        public void setTotalVotes(int totalVotes) { this.totalVotes = totalVotes; }
+
+        public int getOptionCount() { return optionCount; }
+        public void setOptionCount(int optionCount) { this.optionCount = optionCount; }
+    }
+}
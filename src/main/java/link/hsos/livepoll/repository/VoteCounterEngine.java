@@ -0,0 +1,548 @@
+package link.hsos.livepoll.repository;
+
+import jakarta.persistence.EntityManager;
+import link.hsos.livepoll.config.LivePollConfig;
+import link.hsos.livepoll.config.ThreadFactories;
+import link.hsos.livepoll.service.metrics.MetricsRegistry;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hält die Stimmenzähler aktiver Umfragen im Speicher und schreibt abgegebene Stimmen
+ * gebündelt (Write-Behind) in die Tabellen votes und options.
+ * Die Zähler im Speicher sind für aktive Umfragen maßgeblich; die Datenbank wird
+ * spätestens nach dem konfigurierten Intervall bzw. nach der maximalen Anzahl
+ * ungeschriebener Stimmen nachgezogen. Nach einem Absturz werden die Zähler
+ * beim Aktivieren einer Umfrage aus der votes-Tabelle neu aufgebaut.
+ * <p>
+ * Ausstehende Stimmen werden je Umfrage gepuffert und je Umfrage geschrieben: Ein Flush für bestimmte
+ * Umfragen schreibt nur deren Stimmen und sperrt nur diese, sodass Writer verschiedener Umfragen
+ * unabhängig voneinander committen.
+ * <p>
+ * Jede Stimmabgabe trägt ein Future, das nach dem Schreiben mit true abgeschlossen wird.
+ * Kann sie auch einzeln nicht geschrieben werden, wird sie aus den Zählern und dem Index der
+ * Abstimmenden zurückgenommen und das Future mit false abgeschlossen.
+ */
+public final class VoteCounterEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(VoteCounterEngine.class);
+    private static VoteCounterEngine instance;
+    // Entspricht hibernate.jdbc.batch_size aus JpaDatabaseManager
+    private static final int JDBC_BATCH_SIZE = 20;
+
+    private final JpaDatabaseManager dbManager;
+    private final Map<String, PollCounters> polls = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Map<String, CompletableFuture<Void>> recovering = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flushScheduler;
+    private final long flushIntervalMs;
+    private final int maxUnflushedVotes;
+    private final LongAdder failedWrites;
+
+    /**
+     * Ergebnis einer Stimmabgabe gegen die Zähler im Speicher.
+     */
+    public enum RecordResult {
+        RECORDED,
+        DUPLICATE,
+        UNKNOWN_OPTION,
+        NOT_TRACKED
+    }
+
+    public static synchronized VoteCounterEngine getInstance() {
+        if (instance == null) {
+            instance = new VoteCounterEngine(JpaDatabaseManager.getInstance(),
+                    LivePollConfig.getLong("vote.flush.interval.ms", 200),
+                    LivePollConfig.getInt("vote.flush.max.unflushed", 500));
+            instance.start();
+        }
+        return instance;
+    }
+
+    public VoteCounterEngine(JpaDatabaseManager dbManager, long flushIntervalMs, int maxUnflushedVotes) {
+        this.dbManager = dbManager;
+        this.flushIntervalMs = Math.max(10, flushIntervalMs);
+        this.maxUnflushedVotes = Math.max(1, maxUnflushedVotes);
+        this.flushScheduler = Executors.newSingleThreadScheduledExecutor(ThreadFactories.named("vote-flush"));
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.gauge("vote.counter.tracked.polls", polls::size);
+        metrics.gauge("vote.counter.pending", pendingCount::get);
+        this.failedWrites = metrics.counter("vote.counter.write.failed");
+    }
+
+    /**
+     * Startet das periodische Schreiben der gepufferten Stimmen. Wird erst nach dem Konstruktor
+     * aufgerufen, damit der Flush-Thread nur eine vollständig initialisierte Instanz sieht.
+     */
+    public void start() {
+        flushScheduler.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("VoteCounterEngine gestartet (Flush-Intervall: {} ms, max. ungeschriebene Stimmen: {})",
+                flushIntervalMs, maxUnflushedVotes);
+    }
+
+    /**
+     * Prüft, ob die Zähler einer Umfrage im Speicher geführt werden.
+     *
+     * @param pollId Die ID der Umfrage
+     * @return true wenn die Umfrage verfolgt wird
+     */
+    public boolean isTracked(String pollId) {
+        return polls.containsKey(pollId);
+    }
+
+    /**
+     * Nimmt eine Umfrage in die Zählung auf. Die Zähler und bereits abstimmenden Benutzer
+     * werden dabei aus der votes-Tabelle rekonstruiert und options.votes wird bei Abweichungen korrigiert.
+     * Ist die Umfrage bereits aufgenommen, passiert nichts.
+     * <p>
+     * Die Rekonstruktion liest und schreibt die Datenbank und läuft deshalb nicht innerhalb einer
+     * Map-Operation. Je Umfrage läuft höchstens eine Rekonstruktion, damit keine zweite options.votes
+     * auf einen veralteten Stand zurücksetzt; gleichzeitige Aufnahmen derselben Umfrage warten auf deren
+     * Ende, Aufnahmen anderer Umfragen laufen unabhängig davon.
+     *
+     * @param pollId Die ID der Umfrage
+     * @param allowMultipleVotes true wenn Benutzer mehrfach abstimmen dürfen
+     * @param optionIds Die IDs aller Antwortoptionen der Umfrage
+     */
+    public void track(String pollId, boolean allowMultipleVotes, Collection<Long> optionIds) {
+        if (polls.containsKey(pollId)) {
+            return;
+        }
+        CompletableFuture<Void> recovery = new CompletableFuture<>();
+        CompletableFuture<Void> running = recovering.putIfAbsent(pollId, recovery);
+        if (running != null) {
+            running.join();
+            return;
+        }
+        try {
+            if (!polls.containsKey(pollId)) {
+                polls.putIfAbsent(pollId, recover(pollId, allowMultipleVotes, optionIds));
+            }
+            recovery.complete(null);
+        } catch (RuntimeException e) {
+            recovery.completeExceptionally(e);
+            throw e;
+        } finally {
+            recovering.remove(pollId, recovery);
+        }
+    }
+
+    /**
+     * Beendet die Zählung einer Umfrage und schreibt ihre ausstehenden Stimmen.
+     *
+     * @param pollId Die ID der Umfrage
+     */
+    public void untrack(String pollId) {
+        PollCounters counters = polls.remove(pollId);
+        if (counters != null) {
+            flush(List.of(counters));
+        }
+        logger.debug("Stimmenzählung für Poll {} beendet", pollId);
+    }
+
+    /**
+     * Registriert eine Stimmabgabe im Speicher und reiht sie zum Schreiben ein.
+     * Nur bei {@link RecordResult#RECORDED} wird {@code written} später abgeschlossen: mit true, sobald
+     * die Stimme geschrieben ist, mit false, wenn sie verworfen und aus den Zählern zurückgenommen wurde.
+     *
+     * @param pollId Die ID der Umfrage
+     * @param optionIds Die gewählten Antwortoptionen
+     * @param userId Die ID des abstimmenden Benutzers
+     * @param written Wird mit dem Ergebnis des Schreibens abgeschlossen
+     * @return Ergebnis der Stimmabgabe
+     */
+    public RecordResult record(String pollId, List<Long> optionIds, String userId, CompletableFuture<Boolean> written) {
+        PollCounters counters = polls.get(pollId);
+        if (counters == null) {
+            return RecordResult.NOT_TRACKED;
+        }
+
+        for (Long optionId : optionIds) {
+            if (!counters.counts.containsKey(optionId)) {
+                return RecordResult.UNKNOWN_OPTION;
+            }
+        }
+
+        boolean newVoter = userId != null && counters.voters.add(userId);
+        if (userId != null && !newVoter && !counters.allowMultipleVotes) {
+            return RecordResult.DUPLICATE;
+        }
+
+        for (Long optionId : optionIds) {
+            counters.counts.get(optionId).increment();
+        }
+        counters.pending.add(new PendingBallot(pollId, List.copyOf(optionIds), userId, LocalDateTime.now(), counters, newVoter, written));
+        pendingCount.addAndGet(optionIds.size());
+
+        // Wurde die Umfrage währenddessen beendet, hat untrack() die Stimme eventuell nicht mehr gesehen
+        if (counters.pendingVotes.addAndGet(optionIds.size()) >= maxUnflushedVotes || polls.get(pollId) != counters) {
+            flush(List.of(counters));
+        }
+        return RecordResult.RECORDED;
+    }
+
+    /**
+     * Prüft anhand der Daten im Speicher, ob ein Benutzer bereits abgestimmt hat.
+     * Für verfolgte Umfragen ist das Ergebnis maßgeblich, da der Index beim Aufnehmen
+     * aus der votes-Tabelle befüllt wird.
+     *
+     * @param pollId Die ID der Umfrage
+     * @param userId Die ID des Benutzers
+     * @return true wenn eine Stimme des Benutzers bekannt ist
+     */
+    public boolean hasVoted(String pollId, String userId) {
+        PollCounters counters = polls.get(pollId);
+        return counters != null && userId != null && counters.voters.contains(userId);
+    }
+
+    /**
+     * Liefert die aktuellen Stimmenzahlen je Option einer verfolgten Umfrage.
+     *
+     * @param pollId Die ID der Umfrage
+     * @return Map Option-ID auf Stimmenanzahl, leer wenn die Umfrage nicht verfolgt wird
+     */
+    public Map<Long, Long> getCounts(String pollId) {
+        PollCounters counters = polls.get(pollId);
+        if (counters == null) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Long> result = new LinkedHashMap<>();
+        counters.counts.forEach((optionId, adder) -> result.put(optionId, adder.sum()));
+        return result;
+    }
+
+    /**
+     * Schreibt die ausstehenden Stimmen aller verfolgten Umfragen, jeweils eine Transaktion je Umfrage.
+     *
+     * @return Die Anzahl der Stimmabgaben, die nicht geschrieben werden konnten
+     */
+    public int flush() {
+        int failed = 0;
+        for (PollCounters counters : polls.values()) {
+            if (!counters.pending.isEmpty()) {
+                failed += flush(List.of(counters));
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Schreibt die ausstehenden Stimmen der angegebenen Umfragen in einer gemeinsamen Transaktion.
+     * Stimmen anderer Umfragen bleiben gepuffert. Nicht verfolgte Umfragen werden übergangen.
+     *
+     * @param pollIds Die IDs der Umfragen
+     * @return Die Anzahl der Stimmabgaben, die nicht geschrieben werden konnten
+     */
+    public int flush(Collection<String> pollIds) {
+        List<PollCounters> targets = new ArrayList<>(pollIds.size());
+        for (String pollId : pollIds) {
+            PollCounters counters = polls.get(pollId);
+            if (counters != null && !targets.contains(counters)) {
+                targets.add(counters);
+            }
+        }
+        return targets.isEmpty() ? 0 : flush(targets);
+    }
+
+    /**
+     * Schreibt die ausstehenden Stimmen der Umfragen in einer Transaktion.
+     * Schlägt die gemeinsame Transaktion fehl, wird jede Stimmabgabe einzeln geschrieben,
+     * damit eine fehlerhafte Stimme nicht den gesamten Puffer blockiert. Stimmabgaben, die auch
+     * einzeln nicht geschrieben werden können, werden aus den Zählern zurückgenommen.
+     * <p>
+     * Die Sperren der Umfragen werden nach Poll-ID geordnet genommen; die Futures der Stimmabgaben
+     * werden erst nach ihrer Freigabe abgeschlossen. Kehrt der Aufruf zurück, ist jede zuvor verbuchte
+     * Stimmabgabe dieser Umfragen geschrieben oder zurückgenommen.
+     */
+    private int flush(List<PollCounters> targets) {
+        List<PollCounters> ordered = new ArrayList<>(targets);
+        ordered.sort(Comparator.comparing(counters -> counters.pollId));
+
+        List<PendingBallot> written = new ArrayList<>();
+        List<PendingBallot> failed = new ArrayList<>();
+        int locked = 0;
+        try {
+            for (PollCounters counters : ordered) {
+                counters.flushLock.lock();
+                locked++;
+                drainPendingVotes(counters, written);
+            }
+            if (written.isEmpty()) {
+                return 0;
+            }
+
+            try {
+                persist(written);
+                logger.debug("{} gepufferte Stimmabgaben geschrieben", written.size());
+            } catch (Exception e) {
+                logger.error("Gebündeltes Schreiben von {} Stimmabgaben fehlgeschlagen, schreibe einzeln", written.size(), e);
+                List<PendingBallot> batch = written;
+                written = new ArrayList<>(batch.size());
+                for (PendingBallot ballot : batch) {
+                    try {
+                        persist(List.of(ballot));
+                        written.add(ballot);
+                    } catch (Exception single) {
+                        logger.error("Stimme konnte nicht geschrieben werden und wird zurückgenommen: Poll={}, Optionen={}, User={}",
+                                ballot.pollId, ballot.optionIds, ballot.userId, single);
+                        revert(ballot);
+                        failed.add(ballot);
+                    }
+                }
+                failedWrites.add(failed.size());
+            }
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                ordered.get(i).flushLock.unlock();
+            }
+        }
+
+        written.forEach(ballot -> ballot.written.complete(true));
+        failed.forEach(ballot -> ballot.written.complete(false));
+        return failed.size();
+    }
+
+    /**
+     * Stoppt den Flush-Scheduler und schreibt alle ausstehenden Stimmen.
+     */
+    public void shutdown() {
+        flushScheduler.shutdown();
+        try {
+            if (!flushScheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                flushScheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flushScheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        logger.info("VoteCounterEngine heruntergefahren");
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Fehler beim periodischen Schreiben der Stimmen", e);
+        }
+    }
+
+    private void drainPendingVotes(PollCounters counters, List<PendingBallot> batch) {
+        int votes = 0;
+        PendingBallot ballot;
+        while ((ballot = counters.pending.poll()) != null) {
+            batch.add(ballot);
+            votes += ballot.optionIds.size();
+        }
+        counters.pendingVotes.addAndGet(-votes);
+        pendingCount.addAndGet(-votes);
+    }
+
+    /**
+     * Nimmt eine nicht geschriebene Stimmabgabe aus den Zählern und dem Index der Abstimmenden zurück.
+     * Der Benutzer wird nur entfernt, wenn er durch diese Stimmabgabe eingetragen wurde.
+     */
+    private void revert(PendingBallot ballot) {
+        for (Long optionId : ballot.optionIds) {
+            ballot.counters.counts.get(optionId).decrement();
+        }
+        if (ballot.newVoter) {
+            ballot.counters.voters.remove(ballot.userId);
+        }
+    }
+
+    /**
+     * Schreibt einen Block von Stimmabgaben in einer Transaktion. Die Inserts und Zähler-Updates
+     * werden als JDBC-Batches abgesetzt, da Hibernate Inserts mit IDENTITY-Schlüsseln nicht bündelt.
+     */
+    private void persist(List<PendingBallot> batch) {
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        Map<Long, String> optionPolls = new HashMap<>();
+        for (PendingBallot pending : batch) {
+            for (Long optionId : pending.optionIds) {
+                deltas.merge(optionId, 1, Integer::sum);
+                optionPolls.put(optionId, pending.pollId);
+            }
+        }
+
+        EntityManager em = dbManager.createEntityManager();
+        try {
+            em.getTransaction().begin();
+
+            em.unwrap(Session.class).doWork(connection -> {
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO votes (option_id, poll_id, timestamp, user_id) VALUES (?, ?, ?, ?)")) {
+                    int queued = 0;
+                    for (PendingBallot pending : batch) {
+                        for (Long optionId : pending.optionIds) {
+                            insert.setLong(1, optionId);
+                            insert.setString(2, pending.pollId);
+                            insert.setTimestamp(3, Timestamp.valueOf(pending.timestamp));
+                            insert.setString(4, pending.userId);
+                            insert.addBatch();
+                            if (++queued % JDBC_BATCH_SIZE == 0) {
+                                insert.executeBatch();
+                            }
+                        }
+                    }
+                    insert.executeBatch();
+                }
+
+                try (PreparedStatement update = connection.prepareStatement(
+                        "UPDATE options SET votes = votes + ? WHERE id = ? AND poll_id = ?")) {
+                    for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+                        update.setInt(1, delta.getValue());
+                        update.setLong(2, delta.getKey());
+                        update.setString(3, optionPolls.get(delta.getKey()));
+                        update.addBatch();
+                    }
+                    for (int affected : update.executeBatch()) {
+                        if (affected == 0) {
+                            throw new SQLException("Vote-Counter konnte nicht aktualisiert werden");
+                        }
+                    }
+                }
+            });
+
+            em.getTransaction().commit();
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Rekonstruiert die Zähler einer Umfrage aus der votes-Tabelle (Crash-Recovery).
+     */
+    private PollCounters recover(String pollId, boolean allowMultipleVotes, Collection<Long> optionIds) {
+        // Ausstehende Stimmen früherer Aktivierungen hat untrack() bereits geschrieben
+        EntityManager em = dbManager.createEntityManager();
+        try {
+            List<String> userIds = em.createQuery(
+                    "SELECT DISTINCT v.userId FROM Vote v WHERE v.pollId = :pollId AND v.userId IS NOT NULL", String.class)
+                    .setParameter("pollId", pollId)
+                    .getResultList();
+            VoterIndex voters = new VoterIndex(userIds.size());
+            userIds.forEach(voters::add);
+
+            PollCounters counters = new PollCounters(pollId, allowMultipleVotes, optionIds, voters);
+            List<Object[]> rows = em.createQuery(
+                    "SELECT v.option.id, COUNT(v) FROM Vote v WHERE v.pollId = :pollId GROUP BY v.option.id", Object[].class)
+                    .setParameter("pollId", pollId)
+                    .getResultList();
+            for (Object[] row : rows) {
+                LongAdder adder = counters.counts.get((Long) row[0]);
+                if (adder != null) {
+                    adder.add((Long) row[1]);
+                }
+            }
+
+            em.getTransaction().begin();
+            for (Map.Entry<Long, LongAdder> entry : counters.counts.entrySet()) {
+                int affected = em.createNativeQuery("UPDATE options SET votes = ? WHERE id = ? AND poll_id = ? AND votes <> ?")
+                        .setParameter(1, entry.getValue().intValue())
+                        .setParameter(2, entry.getKey())
+                        .setParameter(3, pollId)
+                        .setParameter(4, entry.getValue().intValue())
+                        .executeUpdate();
+                if (affected > 0) {
+                    logger.warn("Stimmenzähler von Option {} in Poll {} aus der votes-Tabelle korrigiert", entry.getKey(), pollId);
+                }
+            }
+            em.getTransaction().commit();
+
+            logger.info("Stimmenzählung für Poll {} aufgenommen ({} Optionen, {} Abstimmende)",
+                    pollId, counters.counts.size(), counters.voters.size());
+            return counters;
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            logger.error("Stimmenzähler für Poll {} konnten nicht rekonstruiert werden", pollId, e);
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Zähler, bekannte Abstimmende und noch nicht geschriebene Stimmabgaben einer aktiven Umfrage.
+     */
+    private static final class PollCounters {
+        private final String pollId;
+        private final boolean allowMultipleVotes;
+        private final Map<Long, LongAdder> counts;
+        private final VoterIndex voters;
+        private final ConcurrentLinkedQueue<PendingBallot> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingVotes = new AtomicInteger();
+        private final ReentrantLock flushLock = new ReentrantLock();
+
+        private PollCounters(String pollId, boolean allowMultipleVotes, Collection<Long> optionIds, VoterIndex voters) {
+            this.pollId = pollId;
+            this.allowMultipleVotes = allowMultipleVotes;
+            this.voters = voters;
+            Map<Long, LongAdder> initial = new LinkedHashMap<>();
+            for (Long optionId : optionIds) {
+                initial.put(optionId, new LongAdder());
+            }
+            this.counts = Collections.unmodifiableMap(initial);
+        }
+    }
+
+    /**
+     * Eine abgegebene, aber noch nicht geschriebene Stimmabgabe mit allen gewählten Optionen.
+     * Sie wird immer vollständig geschrieben oder vollständig zurückgenommen.
+     */
+    private static final class PendingBallot {
+        private final String pollId;
+        private final List<Long> optionIds;
+        private final String userId;
+        private final LocalDateTime timestamp;
+        private final PollCounters counters;
+        private final boolean newVoter;
+        private final CompletableFuture<Boolean> written;
+
+        private PendingBallot(String pollId, List<Long> optionIds, String userId, LocalDateTime timestamp,
+                              PollCounters counters, boolean newVoter, CompletableFuture<Boolean> written) {
+            this.pollId = pollId;
+            this.optionIds = optionIds;
+            this.userId = userId;
+            this.timestamp = timestamp;
+            this.counters = counters;
+            this.newVoter = newVoter;
+            this.written = written;
+        }
+    }
+}
@@ -11,7 +11,9 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Data Access Object (DAO) für Vote-Entitäten und Abstimmungsoperationen.
@@ -20,19 +22,36 @@ public class VoteDAO {
     
     private static final Logger logger = LoggerFactory.getLogger(VoteDAO.class);
     private final JpaDatabaseManager dbManager;
+    private final VoteCounterEngine counterEngine;
     
     public VoteDAO() {
         this.dbManager = JpaDatabaseManager.getInstance();
+        this.counterEngine = VoteCounterEngine.getInstance();
+    }
+
+    /**
+     * Liefert die Zähler-Engine, über die Stimmen aktiver Umfragen verbucht werden.
+     *
+     * @return Die verwendete VoteCounterEngine
+     */
+    public VoteCounterEngine getCounterEngine() {
+        return counterEngine;
     }
 
     /**
      * Gibt eine einzelne Stimme für eine Antwortoption ab.
+     * Für Umfragen, deren Zähler im Speicher geführt werden, wird die Stimme über die
+     * VoteCounterEngine verbucht und gebündelt geschrieben.
      * @param pollId Die ID der Umfrage
      * @param optionId Die ID der gewählten Antwortoption
      * @param userId Die ID des abstimmenden Benutzers
      * @return true wenn die Abstimmung erfolgreich war, false bei Validierungsfehlern oder Fehlern
      */
     public boolean vote(String pollId, Long optionId, String userId) {
+        if (counterEngine.isTracked(pollId)) {
+            return recordTracked(pollId, List.of(optionId), userId);
+        }
+
         EntityManager em = dbManager.createEntityManager();
         try {
             em.getTransaction().begin();
@@ -104,6 +123,10 @@ public class VoteDAO {
      * @return true wenn alle Abstimmungen erfolgreich waren, false bei Validierungsfehlern oder Fehlern
      */
     public boolean voteMultiple(String pollId, List<Long> optionIds, String userId) {
+        if (counterEngine.isTracked(pollId)) {
+            return recordTracked(pollId, optionIds, userId);
+        }
+
         EntityManager em = dbManager.createEntityManager();
         try {
             em.getTransaction().begin();
@@ -173,6 +196,61 @@ public class VoteDAO {
             em.close();
         }
     }
+    /**
+     * Verbucht eine Stimmabgabe im Speicher, ohne sie sofort zu schreiben.
+     * Die Stimme wird mit dem nächsten Aufruf von {@link #flushPendingVotes(Collection)} für die Umfrage persistiert;
+     * danach ist {@code written} abgeschlossen.
+     *
+     * @param pollId Die ID der Umfrage
+     * @param optionIds Die IDs der gewählten Antwortoptionen
+     * @param userId Die ID des abstimmenden Benutzers
+     * @param written Wird bei RECORDED mit true abgeschlossen, sobald die Stimme geschrieben ist,
+     *                bzw. mit false, wenn sie nicht geschrieben werden konnte und zurückgenommen wurde
+     * @return Ergebnis der Verbuchung, NOT_TRACKED wenn die Umfrage nicht im Speicher gezählt wird
+     */
+    public VoteCounterEngine.RecordResult recordVote(String pollId, List<Long> optionIds, String userId,
+                                                     CompletableFuture<Boolean> written) {
+        if (!counterEngine.isTracked(pollId)) {
+            return VoteCounterEngine.RecordResult.NOT_TRACKED;
+        }
+        return counterEngine.record(pollId, optionIds, userId, written);
+    }
+
+    /**
+     * Schreibt die gepufferten Stimmen der angegebenen Umfragen in einer gemeinsamen Transaktion.
+     *
+     * @param pollIds Die IDs der Umfragen
+     */
+    public void flushPendingVotes(Collection<String> pollIds) {
+        counterEngine.flush(pollIds);
+    }
+
+    /**
+     * Verbucht Stimmen für eine im Speicher gezählte Umfrage und schreibt sie sofort.
+     */
+    private boolean recordTracked(String pollId, List<Long> optionIds, String userId) {
+        CompletableFuture<Boolean> written = new CompletableFuture<>();
+        VoteCounterEngine.RecordResult result = counterEngine.record(pollId, optionIds, userId, written);
+        switch (result) {
+            case RECORDED:
+                counterEngine.flush(List.of(pollId));
+                if (!written.join()) {
+                    logger.error("Stimme konnte nicht geschrieben werden: Poll={}, Optionen={}, User={}", pollId, optionIds, userId);
+                    return false;
+                }
+                logger.info("Stimme verbucht: Poll={}, Optionen={}, User={}", pollId, optionIds, userId);
+                return true;
+            case DUPLICATE:
+                logger.warn("Benutzer {} hat bereits für Poll {} gestimmt (Einzelauswahl nicht erlaubt)", userId, pollId);
+                return false;
+            case UNKNOWN_OPTION:
+                logger.error("Option nicht gefunden: Poll={}, Optionen={}", pollId, optionIds);
+                return false;
+            default:
+                logger.error("Poll wird nicht mehr gezählt: Poll={}", pollId);
+                return false;
+        }
+    }
     /**
      * Lädt die vollständige Abstimmungshistorie für eine Umfrage.
      * Diese Methode erstellt eine  Liste aller abgegebenen Stimmen
@@ -182,6 +260,9 @@ public class VoteDAO {
      * @return Liste von VoteRecord-Objekten, sortiert nach Zeitstempel
      */
     public List<VoteRecord> getVoteHistory(String pollId) {
+        // Gepufferte Stimmen zuerst schreiben, damit die Historie vollständig ist
+        counterEngine.flush(List.of(pollId));
+
         EntityManager em = dbManager.createEntityManager();
         try {
             TypedQuery<Vote> query = em.createQuery(
@@ -220,6 +301,10 @@ public class VoteDAO {
      * @return true wenn der Benutzer bereits gestimmt hat, false sonst
      */
     public boolean hasUserVoted(String pollId, String userId) {
+        if (counterEngine.isTracked(pollId)) {
+            return counterEngine.hasVoted(pollId, userId);
+        }
+
         EntityManager em = dbManager.createEntityManager();
         try {
             TypedQuery<Long> query = em.createQuery(
@@ -249,6 +334,8 @@ public class VoteDAO {
      * @return Die Gesamtanzahl aller abgegebenen Stimmen
      */
     public int getVoteCount(String pollId) {
+        counterEngine.flush(List.of(pollId));
+
         EntityManager em = dbManager.createEntityManager();
         try {
             TypedQuery<Long> query = em.createQuery(
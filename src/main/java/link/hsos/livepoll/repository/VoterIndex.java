@@ -0,0 +1,284 @@
+package link.hsos.livepoll.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-freie Menge der Benutzer, die in einer Umfrage bereits abgestimmt haben.
+ * Jede Benutzer-ID wird als 128-Bit-Schlüssel (zwei longs) in einer offenen Hashtabelle
+ * mit linearem Sondieren abgelegt, statt als String in einem {@code Set<String>}.
+ * <p>
+ * Einfügen ist ein atomares Prüfen-und-Eintragen: Über den Zustand eines Schlüssels entscheidet
+ * der erste freie Slot seiner Sondierungsfolge, der per CAS belegt wird. Ist eine Tabelle voll,
+ * wird eine doppelt so große Folgetabelle angehängt; ältere Tabellen werden nicht mehr befüllt.
+ * Wer eine volle Tabelle durchläuft, versiegelt den ersten freien Slot seiner Sondierungsfolge,
+ * damit kein anderer Thread denselben Schlüssel dort noch eintragen kann.
+ * <p>
+ * Entfernte Benutzer (z.B. wenn ihre Stimme nicht geschrieben werden konnte) behalten ihren Slot;
+ * nur das oberste Bit der unteren Hälfte wird gelöscht. Der Slot bleibt damit dem Schlüssel zugeordnet
+ * und ein erneutes Eintragen setzt das Bit per CAS wieder.
+ */
+public final class VoterIndex {
+
+    private static final long EMPTY = 0L;
+    private static final long SEALED = -1L;
+    private static final int MIN_CAPACITY = 64;
+
+    private static final int INSERTED = 0;
+    private static final int PRESENT = 1;
+    private static final int MOVED_ON = 2;
+
+    private final Generation first;
+    private final AtomicInteger size = new AtomicInteger();
+
+    public VoterIndex(int expectedVoters) {
+        this.first = new Generation(capacityFor(expectedVoters));
+    }
+
+    /**
+     * Trägt einen Benutzer ein, sofern er noch nicht enthalten ist.
+     *
+     * @param userId Die ID des Benutzers
+     * @return true wenn der Benutzer neu eingetragen wurde, false wenn er bereits enthalten war
+     */
+    public boolean add(String userId) {
+        UUID key = toKey(userId);
+        long hi = key.getMostSignificantBits();
+        long lo = key.getLeastSignificantBits();
+
+        Generation generation = first;
+        while (true) {
+            int result = generation.insert(hi, lo);
+            if (result == INSERTED) {
+                size.incrementAndGet();
+                return true;
+            }
+            if (result == PRESENT) {
+                return false;
+            }
+            generation = generation.nextOrCreate();
+        }
+    }
+
+    /**
+     * Entfernt einen Benutzer.
+     *
+     * @param userId Die ID des Benutzers
+     * @return true wenn der Benutzer enthalten war
+     */
+    public boolean remove(String userId) {
+        UUID key = toKey(userId);
+        long hi = key.getMostSignificantBits();
+        long lo = key.getLeastSignificantBits();
+
+        for (Generation generation = first; generation != null; generation = generation.next.get()) {
+            if (generation.remove(hi, lo)) {
+                size.decrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Prüft, ob ein Benutzer enthalten ist.
+     *
+     * @param userId Die ID des Benutzers
+     * @return true wenn der Benutzer bereits abgestimmt hat
+     */
+    public boolean contains(String userId) {
+        UUID key = toKey(userId);
+        long hi = key.getMostSignificantBits();
+        long lo = key.getLeastSignificantBits();
+
+        for (Generation generation = first; generation != null; generation = generation.next.get()) {
+            if (generation.find(hi, lo)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Bildet eine Benutzer-ID auf einen 128-Bit-Schlüssel ab. UUIDs nach RFC 4122 (wie sie der
+     * VotingTokenService erzeugt) werden direkt verwendet; ihre beiden Hälften sind wegen der
+     * Versions- und Variantenbits nie 0 oder -1. Andere IDs werden gehasht und mit einer
+     * reservierten Variante markiert, damit sie mit keiner echten UUID zusammenfallen.
+     * In beiden Fällen ist das oberste Bit der unteren Hälfte gesetzt (siehe {@link #removed(long)}).
+     */
+    private static UUID toKey(String userId) {
+        if (userId.length() == 36) {
+            try {
+                UUID uuid = UUID.fromString(userId);
+                if (uuid.variant() == 2 && uuid.version() >= 1 && uuid.version() <= 8
+                        && uuid.getLeastSignificantBits() != Long.MIN_VALUE) {
+                    return uuid;
+                }
+            } catch (IllegalArgumentException e) {
+                // keine UUID - wird unten gehasht
+            }
+        }
+        UUID hashed = UUID.nameUUIDFromBytes(userId.getBytes(StandardCharsets.UTF_8));
+        long lo = (hashed.getLeastSignificantBits() & 0x1FFFFFFFFFFFFFFFL) | 0xC000000000000000L;
+        return new UUID(hashed.getMostSignificantBits(), lo);
+    }
+
+    /**
+     * Markierung eines entfernten Schlüssels in der unteren Hälfte. Sie ist nie 0 und
+     * stimmt mit keiner unteren Hälfte eines enthaltenen Schlüssels überein.
+     */
+    private static long removed(long lo) {
+        return lo & Long.MAX_VALUE;
+    }
+
+    private static int capacityFor(int expectedVoters) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedVoters * 2 && capacity < (1 << 29)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(long hi, long lo) {
+        long h = hi ^ lo;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * Eine Hashtabelle fester Größe. Slot i belegt die Felder 2i (hi) und 2i+1 (lo).
+     * Höchstens die Hälfte der Slots wird belegt; danach nimmt die Tabelle keine Schlüssel mehr auf.
+     */
+    private static final class Generation {
+        private final AtomicLongArray slots;
+        private final int mask;
+        private final int threshold;
+        private final AtomicInteger reserved = new AtomicInteger();
+        private final AtomicReference<Generation> next = new AtomicReference<>();
+
+        private Generation(int capacity) {
+            this.slots = new AtomicLongArray(capacity * 2);
+            this.mask = capacity - 1;
+            this.threshold = capacity / 2;
+        }
+
+        /**
+         * Sucht den Schlüssel und trägt ihn im ersten freien Slot ein. Ist die Tabelle voll,
+         * wird dieser Slot versiegelt und der Aufrufer muss in der Folgetabelle weitersuchen.
+         */
+        private int insert(long hi, long lo) {
+            int index = hash(hi, lo) & mask;
+            boolean reservationAttempted = false;
+            boolean mayClaim = false;
+
+            for (int probes = 0; probes <= mask; probes++) {
+                int position = index << 1;
+                long current = slots.get(position);
+
+                if (current == EMPTY) {
+                    if (!reservationAttempted) {
+                        reservationAttempted = true;
+                        mayClaim = reserved.get() < threshold && reserved.incrementAndGet() <= threshold;
+                    }
+                    if (slots.compareAndSet(position, EMPTY, mayClaim ? hi : SEALED)) {
+                        if (!mayClaim) {
+                            return MOVED_ON;
+                        }
+                        slots.set(position + 1, lo);
+                        return INSERTED;
+                    }
+                    current = slots.get(position);
+                }
+
+                if (current == SEALED) {
+                    return MOVED_ON;
+                }
+                if (current == hi) {
+                    long low = awaitLow(position);
+                    if (low == lo) {
+                        return PRESENT;
+                    }
+                    if (low == removed(lo)) {
+                        // Schlüssel war entfernt; schlägt der CAS fehl, hat ihn ein anderer Thread wieder eingetragen
+                        return slots.compareAndSet(position + 1, low, lo) ? INSERTED : PRESENT;
+                    }
+                }
+                index = (index + 1) & mask;
+            }
+            return MOVED_ON;
+        }
+
+        private boolean remove(long hi, long lo) {
+            int index = hash(hi, lo) & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                int position = index << 1;
+                long current = slots.get(position);
+                if (current == EMPTY || current == SEALED) {
+                    return false;
+                }
+                if (current == hi) {
+                    long low = awaitLow(position);
+                    if (low == lo) {
+                        return slots.compareAndSet(position + 1, lo, removed(lo));
+                    }
+                    if (low == removed(lo)) {
+                        return false;
+                    }
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+
+        private boolean find(long hi, long lo) {
+            int index = hash(hi, lo) & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                int position = index << 1;
+                long current = slots.get(position);
+                if (current == EMPTY || current == SEALED) {
+                    return false;
+                }
+                if (current == hi) {
+                    long low = awaitLow(position);
+                    if (low == lo) {
+                        return true;
+                    }
+                    if (low == removed(lo)) {
+                        return false;
+                    }
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+
+        /**
+         * Die untere Hälfte wird direkt nach dem CAS auf die obere geschrieben.
+         */
+        private long awaitLow(int position) {
+            long low;
+            while ((low = slots.get(position + 1)) == EMPTY) {
+                Thread.onSpinWait();
+            }
+            return low;
+        }
+
+        private Generation nextOrCreate() {
+            Generation successor = next.get();
+            if (successor == null) {
+                next.compareAndSet(null, new Generation((mask + 1) * 2));
+                successor = next.get();
+            }
+            return successor;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package link.hsos.livepoll.service;
+
+import link.hsos.livepoll.model.Poll;
+import link.hsos.livepoll.service.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Index der aktiven Umfragen im Speicher, sortiert wie {@code PollDAO.findActivePolls}
+ * (Erstellungsdatum absteigend). Die Datenbank wird nur beim ersten Zugriff abgefragt;
+ * danach schreibt der PollService den Index bei jedem Statuswechsel fort.
+ * <p>
+ * Die Version des Index ändert sich, sobald eine Umfrage hinzukommt, wegfällt, sich ändert
+ * oder eine aktive Umfrage neue Stimmen erhält. Sie dient als Kennung der Liste für ETags,
+ * Long Polling und Server-Sent Events, ohne die Liste vergleichen zu müssen.
+ */
+public final class ActivePollIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ActivePollIndex.class);
+
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator
+            .comparing((Entry entry) -> entry.createdAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(entry -> entry.pollId);
+
+    private final Supplier<List<PollSnapshot>> activeLoader;
+    private final Function<String, Optional<PollSnapshot>> pollLoader;
+    // Versionsnummern beginnen nach jedem Neustart wieder bei 0; die Epoche hält die Kennungen eindeutig
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    // Geschrieben nur unter der Sperre des Index, gelesen ohne Sperre
+    private final Map<String, Entry> entries = new HashMap<>();
+    private volatile Set<String> members = Set.of();
+    private volatile List<String> pollIds = List.of();
+    private volatile boolean loaded;
+    private long modifications;
+
+    private final LongAdder loads;
+
+    /**
+     * @param activeLoader Lädt alle aktiven Umfragen aus der Datenbank
+     * @param pollLoader Liefert den aktuellen Stand einer Umfrage, leer wenn sie nicht existiert
+     */
+    public ActivePollIndex(Supplier<List<PollSnapshot>> activeLoader, Function<String, Optional<PollSnapshot>> pollLoader) {
+        this.activeLoader = activeLoader;
+        this.pollLoader = pollLoader;
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        this.loads = metrics.counter("poll.active.index.loads");
+        metrics.gauge("poll.active.index.size", () -> members.size());
+    }
+
+    /**
+     * @return Die IDs aller aktiven Umfragen, neueste zuerst
+     */
+    public List<String> getPollIds() {
+        ensureLoaded();
+        return pollIds;
+    }
+
+    /**
+     * @return Die aktuelle Version der Liste
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Liefert eine Kennung der Liste, die sich mit jeder Version ändert.
+     * Sie muss vor der Liste selbst gelesen werden, damit sie nie neuer ist als deren Inhalt.
+     *
+     * @return Die Kennung ohne Anführungszeichen, z.B. als Grundlage für einen ETag
+     */
+    public String getEntityTag() {
+        ensureLoaded();
+        return "active-" + epoch + "-" + version.get();
+    }
+
+    /**
+     * Übernimmt den aktuellen Stand einer Umfrage nach einer Änderung an der Umfrage selbst
+     * (Anlegen, Bearbeiten, Statuswechsel, Löschen). Muss nach dem Schreiben aufgerufen werden.
+     *
+     * @param pollId Die ID der geänderten Umfrage
+     */
+    public synchronized void pollChanged(String pollId) {
+        modifications++;
+        if (!loaded) {
+            // Der spätere erste Zugriff liest den Stand ohnehin aus der Datenbank
+            return;
+        }
+        Optional<PollSnapshot> snapshot = pollLoader.apply(pollId);
+        boolean wasMember = entries.containsKey(pollId);
+        if (snapshot.isPresent() && snapshot.get().isActive()) {
+            entries.put(pollId, new Entry(pollId, snapshot.get().getCreatedAt()));
+            publishEntries();
+        } else if (wasMember) {
+            entries.remove(pollId);
+            publishEntries();
+        }
+    }
+
+    /**
+     * Schreibt die Version fort, wenn eine aktive Umfrage neue Stimmen erhalten hat.
+     *
+     * @param pollId Die ID der Umfrage
+     */
+    public void votesChanged(String pollId) {
+        if (members.contains(pollId)) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return Zähler der Änderungen, um einen Abgleich mit zwischenzeitlich geänderten Daten zu erkennen
+     */
+    public synchronized long getModificationCount() {
+        return modifications;
+    }
+
+    /**
+     * Gleicht den Index mit dem Datenbankstand ab, z.B. aus dem periodischen Scheduler.
+     * Hat sich der Index seit dem Laden der Umfragen geändert, ist der Stand veraltet und wird verworfen.
+     *
+     * @param polls Umfragen aus der Datenbank, mindestens alle aktiven
+     * @param modificationCount Der Änderungszähler vor dem Laden
+     */
+    public synchronized void reconcile(List<Poll> polls, long modificationCount) {
+        if (!loaded || modifications != modificationCount) {
+            return;
+        }
+        Map<String, Entry> active = new HashMap<>();
+        for (Poll poll : polls) {
+            if (poll.isActive()) {
+                active.put(poll.getId(), new Entry(poll.getId(), poll.getCreatedAt()));
+            }
+        }
+        if (!active.keySet().equals(entries.keySet())) {
+            logger.warn("Index aktiver Polls weicht von der Datenbank ab ({} statt {} Einträge) - wird korrigiert",
+                    entries.size(), active.size());
+            entries.clear();
+            entries.putAll(active);
+            publishEntries();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    for (PollSnapshot snapshot : activeLoader.get()) {
+                        entries.put(snapshot.getId(), new Entry(snapshot.getId(), snapshot.getCreatedAt()));
+                    }
+                    publishEntries();
+                    loaded = true;
+                    loads.increment();
+                    logger.debug("Index aktiver Polls mit {} Einträgen geladen", entries.size());
+                }
+            }
+        }
+    }
+
+    /**
+     * Veröffentlicht den geänderten Inhalt für Leser ohne Sperre und schreibt die Version fort.
+     */
+    private void publishEntries() {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(NEWEST_FIRST);
+        List<String> ids = new ArrayList<>(sorted.size());
+        for (Entry entry : sorted) {
+            ids.add(entry.pollId);
+        }
+        members = Set.copyOf(ids);
+        pollIds = List.copyOf(ids);
+        version.incrementAndGet();
+    }
+
+    private static final class Entry {
+        private final String pollId;
+        private final LocalDateTime createdAt;
+
+        private Entry(String pollId, LocalDateTime createdAt) {
+            this.pollId = pollId;
+            this.createdAt = createdAt;
+        }
+    }
+}
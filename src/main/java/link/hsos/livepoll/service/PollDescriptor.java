@@ -0,0 +1,43 @@
+package link.hsos.livepoll.service;
+
+import link.hsos.livepoll.model.Option;
+import link.hsos.livepoll.model.Poll;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unveränderliche Kurzbeschreibung einer aktiven Umfrage mit allen Angaben,
+ * die zum Prüfen einer Stimmabgabe nötig sind.
+ * Wird vom PollService zwischengespeichert, damit Stimmabgaben ohne Datenbankzugriff validiert werden.
+ */
+public final class PollDescriptor {
+    private final String pollId;
+    private final boolean allowMultipleVotes;
+    private final List<Long> optionIds;
+
+    private PollDescriptor(String pollId, boolean allowMultipleVotes, List<Long> optionIds) {
+        this.pollId = pollId;
+        this.allowMultipleVotes = allowMultipleVotes;
+        this.optionIds = Collections.unmodifiableList(optionIds);
+    }
+
+    public static PollDescriptor from(Poll poll) {
+        List<Long> ids = new ArrayList<>();
+        for (Option option : poll.getOptions()) {
+            ids.add(option.getId());
+        }
+        return new PollDescriptor(poll.getId(), poll.isAllowMultipleVotes(), ids);
+    }
+
+    public String getPollId() { return pollId; }
+
+    public boolean isAllowMultipleVotes() { return allowMultipleVotes; }
+
+    public List<Long> getOptionIds() { return optionIds; }
+
+    public boolean hasOption(Long optionId) {
+        return optionIds.contains(optionId);
+    }
+}
@@ -0,0 +1,68 @@
+package link.hsos.livepoll.service;
+
+import link.hsos.livepoll.repository.PollDAO.PollSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Eine Seite der Umfrageliste mit dem Cursor für die nächste Seite.
+ * <p>
+ * Der Cursor kodiert Erstellungsdatum und ID des letzten Eintrags der Seite (Keyset-Paginierung)
+ * und ist für Clients undurchsichtig.
+ */
+public final class PollPage {
+    private final List<PollSummary> polls;
+    private final String nextCursor;
+
+    PollPage(List<PollSummary> polls, String nextCursor) {
+        this.polls = polls;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return Die Umfragen dieser Seite, neueste zuerst
+     */
+    public List<PollSummary> getPolls() { return polls; }
+
+    /**
+     * @return Der Cursor für die nächste Seite, null wenn dies die letzte Seite ist
+     */
+    public String getNextCursor() { return nextCursor; }
+
+    static String encodeCursor(PollSummary last) {
+        String key = last.getCreatedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Zerlegt einen Cursor in Erstellungsdatum und ID.
+     *
+     * @throws IllegalArgumentException wenn der Cursor ungültig ist
+     */
+    static Cursor decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Ungültiger Cursor");
+            }
+            return new Cursor(LocalDateTime.parse(key.substring(0, separator)), key.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Ungültiger Cursor", e);
+        }
+    }
+
+    static final class Cursor {
+        final LocalDateTime createdAt;
+        final String id;
+
+        private Cursor(LocalDateTime createdAt, String id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+    }
+}
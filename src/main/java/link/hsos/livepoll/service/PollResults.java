@@ -0,0 +1,75 @@
+package link.hsos.livepoll.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unveränderliche Abstimmungsergebnisse einer Umfrage: Stimmen und Anteil je Option sowie die Gesamtzahl.
+ * Die Optionen sind über ihre ID eindeutig, sodass gleichlautende Optionstexte getrennt bleiben.
+ * <p>
+ * Für aktive Umfragen entsteht je Stand des {@link PollSnapshotCache} genau ein Ergebnis, das alle Leser
+ * (Antwort auf die Stimmabgabe, WebSocket, Präsentationsansicht) ohne Sperre gemeinsam verwenden.
+ */
+public final class PollResults {
+    private final String pollId;
+    private final int totalVotes;
+    private final List<OptionResult> options;
+
+    private PollResults(String pollId, int totalVotes, List<OptionResult> options) {
+        this.pollId = pollId;
+        this.totalVotes = totalVotes;
+        this.options = options;
+    }
+
+    /**
+     * Erzeugt die Ergebnisse aus einem Poll-Stand.
+     */
+    static PollResults of(PollSnapshot snapshot) {
+        int total = snapshot.getTotalVotes();
+        List<OptionResult> results = new ArrayList<>(snapshot.getOptions().size());
+        for (PollSnapshot.OptionSnapshot option : snapshot.getOptions()) {
+            results.add(new OptionResult(option.getId(), option.getText(), option.getVotes(), total));
+        }
+        return new PollResults(snapshot.getId(), total, Collections.unmodifiableList(results));
+    }
+
+    /**
+     * @return Ergebnisse ohne Optionen, z.B. für eine nicht vorhandene Umfrage
+     */
+    public static PollResults empty(String pollId) {
+        return new PollResults(pollId, 0, List.of());
+    }
+
+    public String getPollId() { return pollId; }
+
+    public int getTotalVotes() { return totalVotes; }
+
+    public List<OptionResult> getOptions() { return options; }
+
+    /**
+     * Ergebnis einer Antwortoption.
+     */
+    public static final class OptionResult {
+        private final Long id;
+        private final String text;
+        private final int votes;
+        private final double percentage;
+
+        private OptionResult(Long id, String text, int votes, int totalVotes) {
+            this.id = id;
+            this.text = text;
+            this.votes = votes;
+            // Auf eine Nachkommastelle gerundet
+            this.percentage = totalVotes > 0 ? Math.round(votes * 1000.0 / totalVotes) / 10.0 : 0.0;
+        }
+
+        public Long getId() { return id; }
+
+        public String getText() { return text; }
+
+        public int getVotes() { return votes; }
+
+        public double getPercentage() { return percentage; }
+    }
+}
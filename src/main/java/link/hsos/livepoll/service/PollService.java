@@ -1,12 +1,19 @@
 package link.hsos.livepoll.service;
 
+import link.hsos.livepoll.config.LivePollConfig;
+import link.hsos.livepoll.config.ThreadFactories;
 import link.hsos.livepoll.model.Poll;
 import link.hsos.livepoll.model.PollType;
 import link.hsos.livepoll.model.Option;
 import link.hsos.livepoll.repository.PollDAO;
+import link.hsos.livepoll.repository.VoteCounterEngine;
 import link.hsos.livepoll.repository.VoteDAO;
+import link.hsos.livepoll.service.admission.VoteAdmissionControl;
 import link.hsos.livepoll.service.helper.ForbiddenException;
+import link.hsos.livepoll.service.helper.VoteQueueFullException;
+import link.hsos.livepoll.service.helper.VoteRateLimitedException;
 import link.hsos.livepoll.service.events.PollUpdatedEvent;
+import link.hsos.livepoll.service.events.PollChangeNotifier;
 import link.hsos.livepoll.service.events.PollUpdatePublisher;
 import link.hsos.livepoll.servlet.auth.helpers.Config;
 import link.hsos.livepoll.websocket.WebSocketPublisher;
@@ -14,13 +21,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 
 /**
@@ -28,13 +44,25 @@ import java.util.concurrent.TimeUnit;
  * Diese Klasse implementiert das Service-Layer-Pattern und fungiert als Schicht
  * zwischen der Präsentationsschicht (Servlets) und der Datenzugriffsschicht (DAOs).
  */
-public class PollService {
+public final class PollService {
     private static final Logger logger = LoggerFactory.getLogger(PollService.class);
     private static PollService instance;
 
     private final PollDAO pollDAO;
     private final VoteDAO voteDAO;
+    private final VoteCounterEngine counterEngine;
+    private final VoteIngestionPipeline votePipeline;
+    private final VoteAdmissionControl admissionControl;
+    private final ExecutorService signatureExecutor;
+    private final Map<String, PollDescriptor> activeDescriptors = new ConcurrentHashMap<>();
+    private final PollSnapshotCache snapshotCache;
+    private final ActivePollIndex activeIndex;
+    private final ShortCodeIndex shortCodeIndex;
+    private final ShortCodeAllocator shortCodeAllocator;
+    private final PollChangeNotifier changeNotifier = new PollChangeNotifier();
+    private final long voteAwaitTimeoutMs;
     private final PollUpdatePublisher publisher;
+    private final List<PollUpdatePublisher> additionalPublishers = new CopyOnWriteArrayList<>();
     private final ScheduledExecutorService scheduler;
 
     public static synchronized PollService getInstance() {
@@ -44,25 +72,62 @@ public class PollService {
         return instance;
     }
 
+    /**
+     * Fährt die Instanz herunter, sofern sie bereits erzeugt wurde.
+     */
+    public static synchronized void shutdownInstance() {
+        if (instance != null) {
+            instance.shutdown();
+            instance = null;
+        }
+    }
+
     private PollService() {
         this.pollDAO = new PollDAO();
         this.voteDAO = new VoteDAO();
-        this.publisher = new WebSocketPublisher();
-        this.scheduler = Executors.newScheduledThreadPool(2);
-
+        this.counterEngine = voteDAO.getCounterEngine();
+        this.votePipeline = new VoteIngestionPipeline(voteDAO);
+        this.votePipeline.start();
+        this.admissionControl = new VoteAdmissionControl();
+        this.signatureExecutor = createSignatureExecutor();
+        this.snapshotCache = createSnapshotCache();
+        this.activeIndex = createActivePollIndex();
+        this.shortCodeIndex = createShortCodeIndex();
+        this.shortCodeAllocator = new ShortCodeAllocator(shortCodeIndex::isAssigned,
+                LivePollConfig.getLong("shortcode.recycle.cooldown.minutes", 1440));
+        this.voteAwaitTimeoutMs = LivePollConfig.getLong("vote.pipeline.await.timeout.ms", 10000);
+        this.publisher = new WebSocketPublisher(this::getPollSnapshot);
+        this.scheduler = Executors.newScheduledThreadPool(2, ThreadFactories.named("poll-scheduler"));
+
+        recoverActivePollCounters();
+        shortCodeIndex.load();
         startPollScheduler();
 
-        logger.info("PollService erfolgreich initialisiert - ohne Caching");
+        logger.info("PollService erfolgreich initialisiert - Stimmenzähler im Speicher, Poll-Cache aktiv");
     }
 
     public PollService(PollDAO pollDAO, VoteDAO voteDAO) {
-        this(pollDAO, voteDAO, new WebSocketPublisher());
+        this(pollDAO, voteDAO, null);
     }
 
+    /**
+     * @param publisher Empfänger der PollUpdatedEvents, null für den WebSocket-Publisher
+     */
     public PollService(PollDAO pollDAO, VoteDAO voteDAO, PollUpdatePublisher publisher) {
         this.pollDAO = pollDAO;
         this.voteDAO = voteDAO;
-        this.publisher = publisher;
+        this.counterEngine = voteDAO.getCounterEngine();
+        this.votePipeline = new VoteIngestionPipeline(voteDAO);
+        this.votePipeline.start();
+        this.admissionControl = new VoteAdmissionControl();
+        this.signatureExecutor = createSignatureExecutor();
+        this.snapshotCache = createSnapshotCache();
+        this.activeIndex = createActivePollIndex();
+        this.shortCodeIndex = createShortCodeIndex();
+        this.shortCodeAllocator = new ShortCodeAllocator(shortCodeIndex::isAssigned,
+                LivePollConfig.getLong("shortcode.recycle.cooldown.minutes", 1440));
+        this.voteAwaitTimeoutMs = LivePollConfig.getLong("vote.pipeline.await.timeout.ms", 10000);
+        this.publisher = publisher != null ? publisher : new WebSocketPublisher(this::getPollSnapshot);
         this.scheduler = null;
     }
 
@@ -88,7 +153,7 @@ public class PollService {
         poll.setCreatedBy(createdBy);
         poll.setAllowMultipleVotes(allowMultipleVotes);
 
-        String shortCode = pollDAO.generateShortCode();
+        String shortCode = shortCodeAllocator.allocate();
         poll.setShortCode(shortCode);
 
         for (String optionText : options) {
@@ -97,6 +162,8 @@ public class PollService {
         }
 
         Poll savedPoll = pollDAO.create(poll);
+        shortCodeIndex.put(savedPoll.getShortCode(), savedPoll.getId());
+        pollChanged(savedPoll.getId());
 
         logger.info("Neuer Poll erstellt: {} mit Short-Code: {}", savedPoll.getId(), savedPoll.getShortCode());
         return savedPoll;
@@ -110,7 +177,38 @@ public class PollService {
      */
     public Optional<Poll> getPoll(String pollId) {
         logger.debug("Lade Poll mit ID: {}", pollId);
-        return pollDAO.findById(pollId);
+        return getPollSnapshot(pollId).map(PollSnapshot::toPoll);
+    }
+
+    /**
+     * Liefert den unveränderlichen, zwischengespeicherten Stand einer Umfrage.
+     *
+     * @param pollId Die ID der gesuchten Umfrage
+     * @return Optional mit dem Stand oder empty() falls nicht vorhanden
+     */
+    public Optional<PollSnapshot> getPollSnapshot(String pollId) {
+        return snapshotCache.get(pollId);
+    }
+
+    /**
+     * Wartet auf die nächste Änderung an einer Umfrage (Status, Frage, Optionen), ohne dabei
+     * einen Thread zu belegen. Neue Stimmen zählen nicht als Änderung.
+     * Den aktuellen Stand erst nach dem Aufruf lesen, damit keine Änderung verloren geht.
+     *
+     * @param pollId Die ID der Umfrage
+     * @return Future, das bei der nächsten Änderung abgeschlossen wird; abbrechen, wenn es nicht mehr benötigt wird
+     */
+    public CompletableFuture<Void> awaitPollChange(String pollId) {
+        return changeNotifier.awaitPollChange(pollId);
+    }
+
+    /**
+     * Wartet auf die nächste Änderung oder neue Stimme an einer beliebigen Umfrage, z.B. für die Liste der aktiven Umfragen.
+     *
+     * @return Future, das bei der nächsten Änderung abgeschlossen wird; abbrechen, wenn es nicht mehr benötigt wird
+     */
+    public CompletableFuture<Void> awaitAnyPollChange() {
+        return changeNotifier.awaitAnyChange();
     }
 
     /**
@@ -121,7 +219,26 @@ public class PollService {
      */
     public Optional<Poll> getPollByShortCode(String shortCode) {
         logger.debug("Suche Poll mit Short-Code: {}", shortCode);
-        return pollDAO.findByShortCode(shortCode);
+        return getPollSnapshotByShortCode(shortCode).map(PollSnapshot::toPoll);
+    }
+
+    /**
+     * Liefert den zwischengespeicherten Stand einer Umfrage anhand ihres Short-Codes.
+     *
+     * @param shortCode Der Short-Code der Umfrage
+     * @return Optional mit dem Stand oder empty() falls nicht vorhanden
+     */
+    public Optional<PollSnapshot> getPollSnapshotByShortCode(String shortCode) {
+        Optional<String> pollId = shortCodeIndex.find(shortCode);
+        if (pollId.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<PollSnapshot> snapshot = snapshotCache.get(pollId.get());
+        if (snapshot.isEmpty()) {
+            // Umfrage wurde gelöscht, während der Index geladen wurde
+            shortCodeIndex.remove(pollId.get());
+        }
+        return snapshot.filter(s -> shortCode.equals(s.getShortCode()));
     }
 
     /**
@@ -130,7 +247,86 @@ public class PollService {
      * @return Liste aller Umfragen.
      */
     public List<Poll> getAllPolls() {
-        return pollDAO.findAll();
+        return toPolls(getAllPollSnapshots());
+    }
+
+    /**
+     * Lädt die zwischengespeicherten Stände aller Umfragen.
+     *
+     * @return Liste der Stände aller Umfragen.
+     */
+    public List<PollSnapshot> getAllPollSnapshots() {
+        return snapshotCache.getAll(() -> {
+            List<Poll> polls = pollDAO.findAll();
+            polls.forEach(this::applyLiveCounts);
+            return polls;
+        });
+    }
+
+    /**
+     * Lädt eine Seite der Umfrageliste als Übersicht ohne Antwortoptionen.
+     * Bei aktiven Umfragen wird die Gesamtzahl der Stimmen aus den Zählern im Speicher übernommen.
+     *
+     * @param createdBy Nur Umfragen dieses Erstellers, null für alle
+     * @param cursor Cursor der vorherigen Seite, null für die erste Seite
+     * @param limit Maximale Anzahl Einträge
+     * @return Die Seite mit dem Cursor für die nächste Seite
+     * @throws IllegalArgumentException wenn der Cursor ungültig ist
+     */
+    public PollPage getPollPage(String createdBy, String cursor, int limit) {
+        PollPage.Cursor after = cursor != null ? PollPage.decodeCursor(cursor) : null;
+        List<PollDAO.PollSummary> polls = pollDAO.findSummaryPage(createdBy,
+                after != null ? after.createdAt : null, after != null ? after.id : null, limit + 1);
+
+        String nextCursor = null;
+        if (polls.size() > limit) {
+            polls = polls.subList(0, limit);
+            nextCursor = PollPage.encodeCursor(polls.get(limit - 1));
+        }
+        for (PollDAO.PollSummary poll : polls) {
+            Map<Long, Long> counts = counterEngine.getCounts(poll.getId());
+            if (!counts.isEmpty()) {
+                poll.setTotalVotes((int) counts.values().stream().mapToLong(Long::longValue).sum());
+            }
+        }
+        return new PollPage(List.copyOf(polls), nextCursor);
+    }
+
+    /**
+     * Liefert die zwischengespeicherten Stände der angegebenen Umfragen in derselben Reihenfolge.
+     * Nicht zwischengespeicherte Umfragen werden gemeinsam in einer Abfrage geladen.
+     *
+     * @param pollIds Die IDs der Umfragen
+     * @return Liste der Stände; nicht mehr vorhandene Umfragen fehlen
+     */
+    public List<PollSnapshot> getPollSnapshots(List<String> pollIds) {
+        return snapshotCache.getAll(pollIds, missing -> {
+            List<Poll> polls = pollDAO.findByIds(missing);
+            polls.forEach(this::applyLiveCounts);
+            return polls;
+        });
+    }
+
+    /**
+     * Lädt die zwischengespeicherten Stände aller aktiven Umfragen. Die Zusammensetzung der Liste
+     * stammt aus dem Index im Speicher und erfordert keine Datenbankabfrage.
+     *
+     * @return Liste der Stände aller aktiven Umfragen, neueste zuerst.
+     */
+    public List<PollSnapshot> getActivePollSnapshots() {
+        List<PollSnapshot> snapshots = snapshotCache.getAll(activeIndex.getPollIds());
+        snapshots.removeIf(snapshot -> !snapshot.isActive());
+        return snapshots;
+    }
+
+    /**
+     * Liefert eine Kennung der Liste aktiver Umfragen, die sich bei jeder Änderung an der Liste
+     * und bei jeder neuen Stimme in einer aktiven Umfrage ändert. Sie ist vor der Liste selbst zu lesen.
+     *
+     * @return Die Kennung ohne Anführungszeichen
+     */
+    public String getActivePollsTag() {
+        return activeIndex.getEntityTag();
     }
 
     /**
@@ -140,7 +336,7 @@ public class PollService {
      */
     public List<Poll> getActivePolls() {
         logger.debug("Lade aktive Polls");
-        List<Poll> activePolls = pollDAO.findActivePolls();
+        List<Poll> activePolls = toPolls(getActivePollSnapshots());
 
         for (Poll poll : activePolls) {
             logger.debug("Aktiver Poll: ID={}, Frage={}, Status={}, Optionen={}",
@@ -158,59 +354,6 @@ public class PollService {
         return activePolls;
     }
 
-    /**
-     * Validiert einen Poll und gibt eine detaillierte Fehlermeldung zurück, falls der Poll nicht gültig ist
-     * @param pollId Die ID der Umfrage
-     * @param optionId Die ID der gewählten Option
-     * @return PollValidationResult mit Validierungsergebnis und Fehlerdetails
-     */
-    private PollValidationResult validatePollForVoting(String pollId, Long optionId) {
-        Optional<Poll> pollOpt = getPoll(pollId);
-        if (pollOpt.isEmpty()) {
-            return new PollValidationResult(false, "Poll nicht gefunden", "POLL_NOT_FOUND");
-        }
-
-        Poll poll = pollOpt.get();
-
-        if (!poll.isActive()) {
-            return new PollValidationResult(false, "Poll ist nicht aktiv (Status: " + poll.getStatus() + ")", "POLL_INACTIVE");
-        }
-
-        boolean optionExists = poll.getOptions().stream()
-                .anyMatch(option -> option.getId().equals(optionId));
-        if (!optionExists) {
-            return new PollValidationResult(false, "Option nicht gefunden", "OPTION_NOT_FOUND");
-        }
-
-        return new PollValidationResult(true, null, null);
-    }
-
-    /**
-     * Ergebnis der Poll-Validierung
-     */
-    private static class PollValidationResult {
-        private final boolean isValid;
-        private final String errorMessage;
-        private final String errorCode;
-
-        public PollValidationResult(boolean isValid, String errorMessage, String errorCode) {
-            this.isValid = isValid;
-            this.errorMessage = errorMessage;
-            this.errorCode = errorCode;
-        }
-
-        public boolean isValid() {
-            return isValid;
-        }
-
-        public String getErrorMessage() {
-            return errorMessage;
-        }
-
-        public String getErrorCode() {
-            return errorCode;
-        }
-    }
     /**
      * Prüft ob ein Benutzer bereits für eine bestimmte Umfrage abgestimmt hat.
      *
@@ -229,35 +372,11 @@ public class PollService {
      * @param optionId Die ID der gewählten Antwortoption
      * @param requestingUserId Die ID des abstimmenden Benutzers
      * @return true wenn die Abstimmung erfolgreich war, false bei Validierungsfehlern oder Fehlern
+     * @throws VoteQueueFullException wenn die Vote-Pipeline ausgelastet ist
+     * @throws VoteRateLimitedException wenn die Zugangskontrolle die Stimmabgabe abweist
      */
     public boolean vote(String pollId, Long optionId, String requestingUserId) {
-
-        PollValidationResult validation = validatePollForVoting(pollId, optionId);
-        if (!validation.isValid()) {
-            logger.warn("Poll-Validierung fehlgeschlagen: {} - {}", pollId, validation.getErrorMessage());
-            return false;
-        }
-
-        Optional<Poll> pollOpt = getPoll(pollId);
-        Poll poll = pollOpt.get();
-
-        if (!poll.isAllowMultipleVotes() && voteDAO.hasUserVoted(pollId, requestingUserId)) {
-            logger.warn("Benutzer {} hat bereits für Poll {} gestimmt (Einzelauswahl nicht erlaubt)", requestingUserId, pollId);
-            return false;
-        }
-
-        boolean success = voteDAO.vote(pollId, optionId, requestingUserId);
-
-        if (success) {
-            logger.info("Stimme erfolgreich abgegeben: Poll={}, Option={}, User={}", pollId, optionId, requestingUserId);
-
-            publisher.publish(new PollUpdatedEvent(pollId));
-            logger.debug("Poll-Update-Event für Poll {} veröffentlicht", pollId);
-        } else {
-            logger.warn("Stimme konnte nicht abgegeben werden: Poll={}, Option={}, User={}", pollId, optionId, requestingUserId);
-        }
-
-        return success;
+        return castVote(pollId, optionId != null ? List.of(optionId) : List.of(), requestingUserId).isAccepted();
     }
     /**
      * Verarbeitet eine Mehrfach-Abstimmung für verschiedene Antwortoptionen.
@@ -266,78 +385,133 @@ public class PollService {
      * @param optionIds Liste der IDs der gewählten Antwortoptionen
      * @param requestingUserId Die ID des abstimmenden Benutzers
      * @return true wenn alle Abstimmungen erfolgreich waren, false bei Fehlern
+     * @throws VoteQueueFullException wenn die Vote-Pipeline ausgelastet ist
+     * @throws VoteRateLimitedException wenn die Zugangskontrolle die Stimmabgabe abweist
      */
     public boolean voteMultiple(String pollId, List<Long> optionIds, String requestingUserId) {
-
-        if (optionIds == null || optionIds.isEmpty()) {
-            logger.warn("Keine Optionen für Batch-Stimmabgabe angegeben: Poll={}, User={}", pollId, requestingUserId);
-            return false;
+        return castVote(pollId, optionIds, requestingUserId).isAccepted();
+    }
+    /**
+     * Gibt eine Stimme für eine oder mehrere Antwortoptionen ab und liefert im Erfolgsfall
+     * direkt die aktuellen Ergebnisse. Aktive Umfragen werden gegen einen zwischengespeicherten
+     * PollDescriptor geprüft, sodass bei warmem Cache keine Datenbankabfrage nötig ist.
+     *
+     * @param pollId Die ID der Umfrage
+     * @param optionIds Liste der IDs der gewählten Antwortoptionen
+     * @param requestingUserId Die ID des abstimmenden Benutzers
+     * @return VoteResult mit Ergebnis der Abgabe und ggf. den aktuellen Abstimmungsergebnissen
+     * @throws VoteQueueFullException wenn die Vote-Pipeline ausgelastet ist
+     * @throws VoteRateLimitedException wenn die Zugangskontrolle die Stimmabgabe abweist
+     */
+    public VoteResult castVote(String pollId, List<Long> optionIds, String requestingUserId) {
+        return castVoteAsync(pollId, optionIds, requestingUserId).join();
+    }
+    /**
+     * Nicht blockierende Variante von {@link #castVote}: Prüft die Stimmabgabe, reiht sie in die
+     * Vote-Pipeline ein und liefert ein Future, das abgeschlossen wird, sobald der Block mit der
+     * Stimme geschrieben ist. Während des Schreibens wird kein Thread des Aufrufers belegt.
+     *
+     * @param pollId Die ID der Umfrage
+     * @param optionIds Liste der IDs der gewählten Antwortoptionen
+     * @param requestingUserId Die ID des abstimmenden Benutzers
+     * @return Future mit dem VoteResult; wird nie exceptionally abgeschlossen
+     * @throws VoteQueueFullException wenn die Vote-Pipeline ausgelastet ist
+     * @throws VoteRateLimitedException wenn die Zugangskontrolle die Stimmabgabe abweist
+     */
+    public CompletableFuture<VoteResult> castVoteAsync(String pollId, List<Long> optionIds, String requestingUserId) {
+        VoteAdmissionControl.Permit permit = admissionControl.admit(pollId, requestingUserId);
+        try {
+            CompletableFuture<VoteResult> result = castAdmittedVote(pollId, optionIds, requestingUserId);
+            result.whenComplete((voteResult, error) -> permit.close());
+            return result;
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
         }
+    }
 
-        Optional<Poll> pollOpt = getPoll(pollId);
-        if (pollOpt.isEmpty()) {
-            logger.warn("Poll nicht gefunden für Batch-Stimmabgabe: {}", pollId);
-            return false;
+    private CompletableFuture<VoteResult> castAdmittedVote(String pollId, List<Long> optionIds, String requestingUserId) {
+        if (optionIds == null || optionIds.isEmpty()) {
+            logger.warn("Keine Optionen für Stimmabgabe angegeben: Poll={}, User={}", pollId, requestingUserId);
+            return CompletableFuture.completedFuture(VoteResult.failed(VoteOutcome.OPTION_NOT_FOUND));
         }
 
-        Poll poll = pollOpt.get();
-
-        if (!poll.isActive()) {
-            logger.warn("Batch-Stimmabgabe für inaktiven Poll: {} (Status: {})", pollId, poll.getStatus());
-            return false;
+        PollDescriptor cached = activeDescriptors.get(pollId);
+        if (cached == null) {
+            Optional<Poll> pollOpt = loadAndTrack(pollId);
+            if (pollOpt.isEmpty()) {
+                logger.warn("Poll nicht gefunden für Stimmabgabe: {}", pollId);
+                return CompletableFuture.completedFuture(VoteResult.failed(VoteOutcome.POLL_NOT_FOUND));
+            }
+            cached = activeDescriptors.get(pollId);
+            if (cached == null) {
+                logger.warn("Stimmabgabe für inaktiven Poll: {} (Status: {})", pollId, pollOpt.get().getStatus());
+                return CompletableFuture.completedFuture(VoteResult.failed(VoteOutcome.POLL_INACTIVE));
+            }
         }
+        PollDescriptor descriptor = cached;
 
         for (Long optionId : optionIds) {
-            boolean optionExists = poll.getOptions().stream()
-                    .anyMatch(option -> option.getId().equals(optionId));
-            if (!optionExists) {
+            if (!descriptor.hasOption(optionId)) {
                 logger.warn("Option {} existiert nicht in Poll {}", optionId, pollId);
-                return false;
+                return CompletableFuture.completedFuture(VoteResult.failed(VoteOutcome.OPTION_NOT_FOUND));
             }
         }
 
-        if (!poll.isAllowMultipleVotes() && voteDAO.hasUserVoted(pollId, requestingUserId)) {
-            logger.warn("Benutzer {} hat bereits für Poll {} gestimmt (Einzelauswahl nicht erlaubt)", requestingUserId, pollId);
-            return false;
-        }
-
-        boolean success = voteDAO.voteMultiple(pollId, optionIds, requestingUserId);
-
-        if (success) {
-            logger.info("Batch-Stimmen erfolgreich abgegeben: Poll={}, Optionen={}, User={}", pollId, optionIds, requestingUserId);
+        return submitVote(pollId, optionIds, requestingUserId).thenApply(outcome -> {
+            if (outcome != VoteOutcome.ACCEPTED) {
+                logger.warn("Stimme konnte nicht abgegeben werden: Poll={}, Optionen={}, User={} ({})",
+                        pollId, optionIds, requestingUserId, outcome);
+                return VoteResult.failed(outcome);
+            }
 
-            publisher.publish(new PollUpdatedEvent(pollId));
+            logger.info("Stimme erfolgreich abgegeben: Poll={}, Optionen={}, User={}", pollId, optionIds, requestingUserId);
+            votesChanged(pollId);
+            publish(new PollUpdatedEvent(pollId));
             logger.debug("Poll-Update-Event für Poll {} veröffentlicht", pollId);
-        } else {
-            logger.warn("Batch-Stimmen konnten nicht abgegeben werden: Poll={}, Optionen={}, User={}", pollId, optionIds, requestingUserId);
-        }
 
-        return success;
+            return VoteResult.accepted(getPollResults(pollId));
+        });
     }
     /**
-     * Berechnet und gibt die aktuellen Abstimmungsergebnisse zurück.
-     * Die Ergebnisse werden als Map mit Optionstext als Schlüssel und
-     * Stimmenanzahl als Wert zurückgegeben.
+     * Öffnet eine Sammelabgabe von Stimmen für eine Umfrage. Eine offene Sammelabgabe belegt
+     * bis zu ihrem Abschluss einen Platz in der Zugangskontrolle.
      *
      * @param pollId Die ID der Umfrage
-     * @return Map mit Abstimmungsergebnissen
+     * @return Die Sammelabgabe; ist die Umfrage nicht vorhanden oder nicht aktiv, nimmt sie keine Stimmen an
+     * @throws VoteRateLimitedException wenn die Zugangskontrolle die Sammelabgabe abweist
      */
-    public Map<String, Integer> getPollResults(String pollId) {
-        Optional<Poll> pollOpt = getPoll(pollId);
-        if (pollOpt.isEmpty()) {
-            logger.warn("Poll nicht gefunden für Ergebnisse: {}", pollId);
-            return Map.of();
+    public VoteBatch openVoteBatch(String pollId) {
+        PollDescriptor descriptor = activeDescriptors.get(pollId);
+        if (descriptor == null) {
+            Optional<Poll> pollOpt = loadAndTrack(pollId);
+            if (pollOpt.isEmpty()) {
+                logger.warn("Poll nicht gefunden für Sammelabgabe: {}", pollId);
+                return VoteBatch.failed(pollId, VoteOutcome.POLL_NOT_FOUND);
+            }
+            descriptor = activeDescriptors.get(pollId);
+            if (descriptor == null) {
+                logger.warn("Sammelabgabe für inaktiven Poll: {} (Status: {})", pollId, pollOpt.get().getStatus());
+                return VoteBatch.failed(pollId, VoteOutcome.POLL_INACTIVE);
+            }
         }
-
-        Poll poll = pollOpt.get();
-        Map<String, Integer> results = new java.util.HashMap<>();
-
-        for (Option option : poll.getOptions()) {
-            int voteCount = option.getVotes();
-            results.put(option.getText(), voteCount);
+        return new VoteBatch(this, pollId, descriptor, admissionControl, signatureExecutor,
+                admissionControl.admitBatch(pollId));
+    }
+    /**
+     * Liefert die aktuellen Abstimmungsergebnisse je Option. Bei aktiven Umfragen stammen sie
+     * aus den Zählern im Speicher und werden je Stand nur einmal berechnet.
+     *
+     * @param pollId Die ID der Umfrage
+     * @return Die Ergebnisse, ohne Optionen falls die Umfrage nicht existiert
+     */
+    public PollResults getPollResults(String pollId) {
+        Optional<PollSnapshot> snapshot = getPollSnapshot(pollId);
+        if (snapshot.isEmpty()) {
+            logger.warn("Poll nicht gefunden für Ergebnisse: {}", pollId);
+            return PollResults.empty(pollId);
         }
-
-        return results;
+        return snapshot.get().getPollResults();
     }
     /**
      * Lädt die vollständige Abstimmungshistorie für eine Umfrage.
@@ -361,6 +535,16 @@ public class PollService {
 
         boolean success = pollDAO.update(poll);
         if (success) {
+            shortCodeIndex.put(poll.getShortCode(), poll.getId());
+            pollChanged(poll.getId());
+            publish(new PollUpdatedEvent(poll.getId()));
+            // Optionen können sich geändert haben - Zählung und Descriptor neu aufbauen
+            if (activeDescriptors.containsKey(poll.getId())) {
+                votePipeline.callOnShard(poll.getId(), () -> {
+                    releaseVoteCounters(poll.getId());
+                    return pollDAO.findById(poll.getId()).map(this::trackVoteCounters);
+                });
+            }
             logger.info("Poll erfolgreich aktualisiert: {}", poll.getId());
         } else {
             logger.warn("Poll konnte nicht aktualisiert werden: {}", poll.getId());
@@ -378,8 +562,15 @@ public class PollService {
     public boolean deletePoll(String pollId, String requestingCreatedBy) throws ForbiddenException {
         checkAuthorization(pollId, requestingCreatedBy);
 
+        // Gepufferte Stimmen schreiben, bevor die Umfrage samt Stimmen gelöscht wird
+        releaseVoteCounters(pollId);
+
         boolean success = pollDAO.delete(pollId);
         if (success) {
+            shortCodeAllocator.release(shortCodeIndex.remove(pollId));
+            pollChanged(pollId);
+            snapshotCache.remove(pollId);
+            publish(new PollUpdatedEvent(pollId));
             logger.info("Poll erfolgreich gelöscht: {}", pollId);
         } else {
             logger.warn("Poll konnte nicht gelöscht werden: {}", pollId);
@@ -420,15 +611,16 @@ public class PollService {
         logger.info("Starte/Reaktiviere Poll {} mit {} Optionen", pollId, poll.getOptions().size());
 
         poll.startOrReactivate();
-        boolean success = pollDAO.update(poll);
+        boolean success = applyStatus(poll);
 
         if (success) {
+
             Optional<Poll> updatedPollOpt = getPoll(pollId);
             if (updatedPollOpt.isPresent()) {
                 Poll updatedPoll = updatedPollOpt.get();
                 logger.info("Poll {} erfolgreich gestartet/reaktiviert mit {} Optionen", pollId, updatedPoll.getOptions().size());
 
-                publisher.publish(new PollUpdatedEvent(pollId));
+                publish(new PollUpdatedEvent(pollId));
                 logger.debug("Poll-Update-Event nach Poll-Start für Poll {} veröffentlicht", pollId);
             } else {
                 logger.warn("Poll {} konnte nach dem Start/Reaktivierung nicht mehr geladen werden", pollId);
@@ -471,16 +663,17 @@ public class PollService {
         logger.info("Schließe Poll {} mit {} Optionen", pollId, poll.getOptions().size());
 
         poll.close();
-        boolean success = pollDAO.update(poll);
+        boolean success = applyStatus(poll);
 
         if (success) {
+
             Optional<Poll> updatedPollOpt = getPoll(pollId);
             if (updatedPollOpt.isPresent()) {
                 Poll updatedPoll = updatedPollOpt.get();
                 logger.info("Poll {} erfolgreich geschlossen mit {} Optionen", pollId, updatedPoll.getOptions().size());
 
                 // Event über Publisher veröffentlichen
-                publisher.publish(new PollUpdatedEvent(pollId));
+                publish(new PollUpdatedEvent(pollId));
                 logger.debug("Poll-Update-Event nach Poll-Schließung für Poll {} veröffentlicht", pollId);
             } else {
                 logger.warn("Poll {} konnte nach dem Schließen nicht mehr geladen werden", pollId);
@@ -545,21 +738,27 @@ public class PollService {
      * Prüft und aktualisiert den Status aller Umfragen basierend auf Zeitkriterien.
      * Diese Methode wird vom Scheduler regelmäßig aufgerufen und führt
      * automatische Zustandsübergänge für zeitgesteuerte Umfragen durch.
+     * Geladen werden nur die aktiven und die fälligen Umfragen, nicht die gesamte Historie.
      */
     private void checkAndUpdatePollStatus() {
         try {
-            List<Poll> allPolls = pollDAO.findAll();
-
-            for (Poll poll : allPolls) {
-                if (poll.canStart()) {
-                    poll.start();
-                    pollDAO.update(poll);
+            LocalDateTime now = LocalDateTime.now();
+            long indexModifications = activeIndex.getModificationCount();
+            activeIndex.reconcile(pollDAO.findActivePolls(), indexModifications);
+
+            for (Poll poll : pollDAO.findPollsDueToStart(now)) {
+                poll.start();
+                if (applyStatus(poll)) {
+                    publish(new PollUpdatedEvent(poll.getId()));
                     logger.info("Poll automatisch gestartet: {}", poll.getId());
                 }
+            }
 
-                if (poll.isActive() && poll.isExpired()) {
-                    poll.close();
-                    pollDAO.update(poll);
+            // Erst nach dem Starten laden, damit bereits abgelaufene Umfragen im selben Durchlauf schließen
+            for (Poll poll : pollDAO.findExpiredActivePolls(now)) {
+                poll.close();
+                if (applyStatus(poll)) {
+                    publish(new PollUpdatedEvent(poll.getId()));
                     logger.info("Poll automatisch geschlossen: {}", poll.getId());
                 }
             }
@@ -567,12 +766,40 @@ public class PollService {
             logger.error("Fehler beim Überprüfen der Poll-Status", e);
         }
     }
+    /**
+     * Schreibt den Status einer Umfrage und nimmt sie in die Stimmenzählung auf bzw. beendet diese.
+     * Beides läuft als ein Schritt im Shard der Umfrage: Stimmen, die davor eingereiht wurden, sind
+     * bereits geschrieben; Stimmen danach sehen den neuen Status und werden bei einer geschlossenen
+     * Umfrage nicht mehr angenommen.
+     *
+     * @param poll Die Umfrage mit dem neuen Status
+     * @return true wenn der Status geschrieben wurde
+     */
+    private boolean applyStatus(Poll poll) {
+        String pollId = poll.getId();
+        return votePipeline.callOnShard(pollId, () -> {
+            if (!pollDAO.updateStatus(pollId, poll.getStatus())) {
+                return false;
+            }
+            pollChanged(pollId);
+            if (poll.isActive()) {
+                trackVoteCounters(poll);
+            } else {
+                releaseVoteCounters(pollId);
+            }
+            return true;
+        });
+    }
     /**
      * Fährt den PollService ordnungsgemäß herunter.
      * Diese Methode stoppt den Scheduler und gibt alle Ressourcen frei.
      * Sie sollte beim Herunterfahren der Anwendung aufgerufen werden.
      */
     public void shutdown() {
+        changeNotifier.releaseAll();
+        votePipeline.shutdown();
+        counterEngine.shutdown();
+        signatureExecutor.shutdown();
         if (scheduler != null) {
             scheduler.shutdown();
             try {
@@ -586,6 +813,253 @@ public class PollService {
         }
         logger.info("PollService heruntergefahren");
     }
+    /**
+     * Übergibt eine Stimmabgabe an die Vote-Pipeline. Das Future wird abgeschlossen, sobald der Block
+     * mit der Stimme geschrieben ist, spätestens aber nach voteAwaitTimeoutMs mit REJECTED.
+     *
+     * @return Future mit dem Ergebnis der Stimmabgabe
+     * @throws VoteQueueFullException wenn die Pipeline ausgelastet ist
+     */
+    private CompletableFuture<VoteOutcome> submitVote(String pollId, List<Long> optionIds, String userId) {
+        return votePipeline.submit(pollId, optionIds, userId)
+                .orTimeout(voteAwaitTimeoutMs, TimeUnit.MILLISECONDS)
+                .handle((outcome, error) -> {
+                    if (error == null) {
+                        if (outcome == VoteOutcome.DUPLICATE) {
+                            logger.warn("Benutzer {} hat bereits für Poll {} gestimmt (Einzelauswahl nicht erlaubt)", userId, pollId);
+                        }
+                        return outcome;
+                    }
+                    if (error instanceof TimeoutException) {
+                        logger.error("Zeitüberschreitung beim Warten auf die Vote-Pipeline: Poll={}, User={}", pollId, userId);
+                    } else {
+                        logger.error("Fehler in der Vote-Pipeline: Poll={}, User={}", pollId, userId, error);
+                    }
+                    return VoteOutcome.REJECTED;
+                });
+    }
+
+    /**
+     * Verbucht einen Abschnitt einer Sammelabgabe im Shard der Umfrage und schreibt
+     * alle angenommenen Stimmen in einer gemeinsamen Transaktion.
+     *
+     * @param pollId Die ID der Umfrage
+     * @param entries Die bereits geprüften Einträge
+     * @return Das Ergebnis je Eintrag in derselben Reihenfolge
+     */
+    List<VoteOutcome> recordVoteChunk(String pollId, List<VoteBatch.Entry> entries) {
+        return votePipeline.callOnShard(pollId, () -> {
+            List<VoteOutcome> outcomes = new ArrayList<>(entries.size());
+            Map<Integer, CompletableFuture<Boolean>> recorded = new HashMap<>();
+            for (VoteBatch.Entry entry : entries) {
+                VoteOutcome outcome;
+                CompletableFuture<Boolean> written = new CompletableFuture<>();
+                switch (voteDAO.recordVote(pollId, entry.getOptionIds(), entry.getUserId(), written)) {
+                    case RECORDED:
+                        outcome = VoteOutcome.ACCEPTED;
+                        recorded.put(outcomes.size(), written);
+                        break;
+                    case DUPLICATE:
+                        outcome = VoteOutcome.DUPLICATE;
+                        break;
+                    case UNKNOWN_OPTION:
+                        outcome = VoteOutcome.OPTION_NOT_FOUND;
+                        break;
+                    default:
+                        // Umfrage wurde während der Sammelabgabe geschlossen
+                        outcome = VoteOutcome.POLL_INACTIVE;
+                        break;
+                }
+                outcomes.add(outcome);
+            }
+            if (!recorded.isEmpty()) {
+                voteDAO.flushPendingVotes(List.of(pollId));
+                // Nicht geschriebene Stimmen sind bereits aus den Zählern zurückgenommen
+                recorded.forEach((index, written) -> {
+                    if (!written.join()) {
+                        outcomes.set(index, VoteOutcome.REJECTED);
+                    }
+                });
+                votesChanged(pollId);
+            }
+            return outcomes;
+        });
+    }
+
+    /**
+     * Schließt eine Sammelabgabe ab und veröffentlicht ein einziges Update-Event für alle ihre Stimmen.
+     */
+    void finishVoteBatch(String pollId, int acceptedCount, int rejectedCount) {
+        logger.info("Sammelabgabe für Poll {} abgeschlossen: {} Stimmen angenommen, {} abgelehnt",
+                pollId, acceptedCount, rejectedCount);
+        if (acceptedCount > 0) {
+            publish(new PollUpdatedEvent(pollId));
+            logger.debug("Poll-Update-Event nach Sammelabgabe für Poll {} veröffentlicht", pollId);
+        }
+    }
+
+    /**
+     * Lädt eine Umfrage im Shard der Umfrage und nimmt sie in die Stimmenzählung auf, falls sie aktiv ist.
+     * Dadurch kommt kein paralleler Statuswechsel zwischen Laden und Aufnehmen.
+     */
+    private Optional<Poll> loadAndTrack(String pollId) {
+        return votePipeline.callOnShard(pollId, () -> getPoll(pollId).map(poll -> {
+            trackVoteCounters(poll);
+            return poll;
+        }));
+    }
+
+    /**
+     * Nimmt eine aktive Umfrage in die Stimmenzählung im Speicher auf.
+     * Ist die Umfrage bereits aufgenommen, entstehen keine Datenbankzugriffe.
+     *
+     * @param poll Die aktive Umfrage
+     * @return Der zwischengespeicherte PollDescriptor der Umfrage, null wenn sie nicht aktiv ist
+     */
+    private PollDescriptor trackVoteCounters(Poll poll) {
+        if (!poll.isActive()) {
+            return null;
+        }
+        PollDescriptor cached = activeDescriptors.get(poll.getId());
+        if (cached != null) {
+            return cached;
+        }
+        // Die Aufnahme greift auf die Datenbank zu und läuft deshalb außerhalb der Map
+        PollDescriptor descriptor = PollDescriptor.from(poll);
+        counterEngine.track(poll.getId(), descriptor.isAllowMultipleVotes(), descriptor.getOptionIds());
+        PollDescriptor existing = activeDescriptors.putIfAbsent(poll.getId(), descriptor);
+        return existing != null ? existing : descriptor;
+    }
+
+    /**
+     * Beendet die Stimmenzählung einer Umfrage und entfernt ihren PollDescriptor aus dem Cache.
+     * Läuft im Shard der Umfrage, nachdem alle bereits eingereihten Stimmen verbucht sind.
+     *
+     * @param pollId Die ID der Umfrage
+     */
+    private void releaseVoteCounters(String pollId) {
+        admissionControl.forgetPoll(pollId);
+        votePipeline.callOnShard(pollId, () -> {
+            activeDescriptors.remove(pollId);
+            counterEngine.untrack(pollId);
+            return null;
+        });
+    }
+
+    /**
+     * Registriert einen weiteren Empfänger für PollUpdatedEvents, z.B. für Server-Sent Events.
+     * Er erhält dieselben Events wie der WebSocket-Publisher.
+     *
+     * @param additionalPublisher Der zusätzliche Empfänger
+     */
+    public void addUpdatePublisher(PollUpdatePublisher additionalPublisher) {
+        additionalPublishers.add(additionalPublisher);
+    }
+
+    private void publish(PollUpdatedEvent event) {
+        publisher.publish(event);
+        for (PollUpdatePublisher additionalPublisher : additionalPublishers) {
+            additionalPublisher.publish(event);
+        }
+    }
+
+    /**
+     * Verwirft den zwischengespeicherten Stand nach einer Änderung an der Umfrage selbst
+     * und weckt wartende Long-Polling-Anfragen. Erst nach dem Schreiben aufrufen.
+     */
+    private void pollChanged(String pollId) {
+        snapshotCache.invalidate(pollId);
+        activeIndex.pollChanged(pollId);
+        changeNotifier.pollChanged(pollId);
+    }
+
+    /**
+     * Schreibt die Version einer Umfrage nach neuen Stimmen fort. Erst nach dem Zählen aufrufen.
+     */
+    private void votesChanged(String pollId) {
+        snapshotCache.votesChanged(pollId);
+        activeIndex.votesChanged(pollId);
+        changeNotifier.votesChanged(pollId);
+    }
+
+    /**
+     * Executor für die Signaturprüfung der Sammelabgaben. Ist die Warteschlange voll, prüft der
+     * Request-Thread der Sammelabgabe selbst und bremst so den Client.
+     */
+    private static ExecutorService createSignatureExecutor() {
+        int threads = Math.max(1, LivePollConfig.getInt("vote.batch.signature.threads",
+                Runtime.getRuntime().availableProcessors()));
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(LivePollConfig.getInt("vote.batch.signature.queue.capacity", 1000)),
+                ThreadFactories.named("vote-signature"), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private PollSnapshotCache createSnapshotCache() {
+        return new PollSnapshotCache(
+                LivePollConfig.getInt("poll.cache.max.entries", 1000),
+                LivePollConfig.getLong("poll.cache.ttl.seconds", 300),
+                id -> pollDAO.findById(id).map(this::applyLiveCounts),
+                counterEngine::getCounts);
+    }
+
+    private ActivePollIndex createActivePollIndex() {
+        return new ActivePollIndex(
+                () -> snapshotCache.load(() -> {
+                    List<Poll> polls = pollDAO.findActivePolls();
+                    polls.forEach(this::applyLiveCounts);
+                    return polls;
+                }),
+                snapshotCache::get);
+    }
+
+    private ShortCodeIndex createShortCodeIndex() {
+        return new ShortCodeIndex(
+                pollDAO::findAllShortCodes,
+                code -> pollDAO.findByShortCode(code).map(Poll::getId),
+                LivePollConfig.getInt("shortcode.negative.cache.size", 10000));
+    }
+
+    private static List<Poll> toPolls(List<PollSnapshot> snapshots) {
+        List<Poll> polls = new ArrayList<>(snapshots.size());
+        for (PollSnapshot snapshot : snapshots) {
+            polls.add(snapshot.toPoll());
+        }
+        return polls;
+    }
+
+    /**
+     * Überträgt die Zähler aus dem Speicher auf die geladene Umfrage, da options.votes
+     * bei aktiven Umfragen den noch nicht geschriebenen Stimmen hinterherläuft.
+     *
+     * @param poll Die aus der Datenbank geladene Umfrage
+     * @return Dieselbe Umfrage mit aktuellen Stimmenzahlen
+     */
+    private Poll applyLiveCounts(Poll poll) {
+        Map<Long, Long> counts = counterEngine.getCounts(poll.getId());
+        if (!counts.isEmpty()) {
+            for (Option option : poll.getOptions()) {
+                Long count = counts.get(option.getId());
+                if (count != null) {
+                    option.setVotes(count.intValue());
+                }
+            }
+        }
+        return poll;
+    }
+
+    /**
+     * Baut beim Start die Zähler aller aktiven Umfragen aus der votes-Tabelle auf
+     * (Recovery nach Absturz mit noch nicht geschriebenen Stimmen).
+     */
+    private void recoverActivePollCounters() {
+        try {
+            List<Poll> activePolls = pollDAO.findActivePolls();
+            activePolls.forEach(this::trackVoteCounters);
+            logger.info("Stimmenzähler für {} aktive Polls wiederhergestellt", activePolls.size());
+        } catch (Exception e) {
+            logger.error("Fehler beim Wiederherstellen der Stimmenzähler", e);
+        }
+    }
     /**
      * Prüft ob ein Benutzer zur Modifikation einer Umfrage berechtigt ist..
      *
@@ -0,0 +1,257 @@
+package link.hsos.livepoll.service;
+
+import link.hsos.livepoll.model.Option;
+import link.hsos.livepoll.model.Poll;
+import link.hsos.livepoll.model.PollStatus;
+import link.hsos.livepoll.model.PollType;
+import link.hsos.livepoll.service.metrics.MetricsRegistry;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Unveränderlicher Stand einer Umfrage inklusive Stimmenzahlen, wie er im {@link PollSnapshotCache} liegt.
+ * Jeder Stand trägt zwei Versionsnummern: {@code structureVersion} ändert sich bei Änderungen an der
+ * Umfrage selbst (Status, Frage, Optionen), {@code version} zusätzlich bei jeder neuen Stimme.
+ * <p>
+ * Aufrufer erhalten über {@link #toPoll()} eine eigene, veränderbare Kopie als Poll-Entität.
+ * Die JSON-Darstellungen für die API werden je Stand nur einmal erzeugt und anschließend
+ * als fertige UTF-8-Bytes wiederverwendet.
+ */
+public final class PollSnapshot {
+    private static final LongAdder jsonRenders = MetricsRegistry.getInstance().counter("poll.snapshot.json.renders");
+
+    private final String id;
+    private final String question;
+    private final PollType pollType;
+    private final PollStatus status;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime startTime;
+    private final LocalDateTime endTime;
+    private final String createdBy;
+    private final boolean isPublic;
+    private final boolean allowMultipleVotes;
+    private final String shortCode;
+    private final List<OptionSnapshot> options;
+    private final int totalVotes;
+    private final long structureVersion;
+    private final long version;
+    private final String epoch;
+    private volatile byte[] pollJson;
+    private volatile byte[] resultsJson;
+    private volatile PollResults results;
+
+    private PollSnapshot(PollSnapshot base, List<OptionSnapshot> options, long version) {
+        this.id = base.id;
+        this.question = base.question;
+        this.pollType = base.pollType;
+        this.status = base.status;
+        this.createdAt = base.createdAt;
+        this.startTime = base.startTime;
+        this.endTime = base.endTime;
+        this.createdBy = base.createdBy;
+        this.isPublic = base.isPublic;
+        this.allowMultipleVotes = base.allowMultipleVotes;
+        this.shortCode = base.shortCode;
+        this.options = options;
+        this.totalVotes = sumVotes(options);
+        this.structureVersion = base.structureVersion;
+        this.version = version;
+        this.epoch = base.epoch;
+    }
+
+    private PollSnapshot(Poll poll, String epoch, long structureVersion, long version) {
+        this.id = poll.getId();
+        this.question = poll.getQuestion();
+        this.pollType = poll.getPollType();
+        this.status = poll.getStatus();
+        this.createdAt = poll.getCreatedAt();
+        this.startTime = poll.getStartTime();
+        this.endTime = poll.getEndTime();
+        this.createdBy = poll.getCreatedBy();
+        this.isPublic = poll.isPublic();
+        this.allowMultipleVotes = poll.isAllowMultipleVotes();
+        this.shortCode = poll.getShortCode();
+        List<OptionSnapshot> copies = new ArrayList<>();
+        if (poll.getOptions() != null) {
+            for (Option option : poll.getOptions()) {
+                copies.add(new OptionSnapshot(option.getId(), option.getText(), option.getVotes()));
+            }
+        }
+        this.options = Collections.unmodifiableList(copies);
+        this.totalVotes = sumVotes(this.options);
+        this.structureVersion = structureVersion;
+        this.version = version;
+        this.epoch = epoch;
+    }
+
+    static PollSnapshot of(Poll poll, String epoch, long structureVersion, long version) {
+        return new PollSnapshot(poll, epoch, structureVersion, version);
+    }
+
+    /**
+     * Erzeugt einen neuen Stand mit aktualisierten Stimmenzahlen; alle anderen Angaben bleiben gleich.
+     *
+     * @param counts Stimmenzahlen je Options-ID
+     * @param newVersion Die Version des neuen Stands
+     */
+    PollSnapshot withCounts(Map<Long, Long> counts, long newVersion) {
+        List<OptionSnapshot> updated = new ArrayList<>(options.size());
+        for (OptionSnapshot option : options) {
+            Long count = counts.get(option.getId());
+            updated.add(count != null ? new OptionSnapshot(option.getId(), option.getText(), count.intValue()) : option);
+        }
+        return new PollSnapshot(this, Collections.unmodifiableList(updated), newVersion);
+    }
+
+    /**
+     * Erzeugt eine eigenständige Poll-Entität mit den Werten dieses Stands.
+     */
+    public Poll toPoll() {
+        Poll poll = new Poll(question, pollType);
+        poll.setId(id);
+        poll.setStatus(status);
+        poll.setCreatedAt(createdAt);
+        poll.setStartTime(startTime);
+        poll.setEndTime(endTime);
+        poll.setCreatedBy(createdBy);
+        poll.setPublic(isPublic);
+        poll.setAllowMultipleVotes(allowMultipleVotes);
+        poll.setShortCode(shortCode);
+        for (OptionSnapshot snapshot : options) {
+            Option option = new Option(snapshot.getText());
+            option.setId(snapshot.getId());
+            option.setVotes(snapshot.getVotes());
+            poll.addOption(option);
+        }
+        return poll;
+    }
+
+    /**
+     * Liefert die Ergebnisse dieses Stands. Sie werden beim ersten Aufruf erzeugt und danach wiederverwendet.
+     */
+    public PollResults getPollResults() {
+        PollResults current = results;
+        if (current == null) {
+            current = PollResults.of(this);
+            results = current;
+        }
+        return current;
+    }
+
+    /**
+     * Liefert die JSON-Darstellung der Umfrage. Sie wird beim ersten Aufruf mit dem
+     * Renderer erzeugt und für diesen Stand danach unverändert zurückgegeben.
+     *
+     * @param renderer Erzeugt die UTF-8-Bytes aus diesem Stand
+     * @return Die JSON-Darstellung als UTF-8-Bytes, darf nicht verändert werden
+     */
+    public byte[] getPollJson(Function<PollSnapshot, byte[]> renderer) {
+        byte[] json = pollJson;
+        if (json == null) {
+            json = renderer.apply(this);
+            jsonRenders.increment();
+            pollJson = json;
+        }
+        return json;
+    }
+
+    /**
+     * Liefert die JSON-Darstellung der Ergebnisse ({@link #getPollResults()}), analog zu {@link #getPollJson}.
+     *
+     * @param renderer Erzeugt die UTF-8-Bytes aus diesem Stand
+     * @return Die JSON-Darstellung als UTF-8-Bytes, darf nicht verändert werden
+     */
+    public byte[] getResultsJson(Function<PollSnapshot, byte[]> renderer) {
+        byte[] json = resultsJson;
+        if (json == null) {
+            json = renderer.apply(this);
+            jsonRenders.increment();
+            resultsJson = json;
+        }
+        return json;
+    }
+
+    private static int sumVotes(List<OptionSnapshot> options) {
+        int sum = 0;
+        for (OptionSnapshot option : options) {
+            sum += option.getVotes();
+        }
+        return sum;
+    }
+
+    public String getId() { return id; }
+
+    public String getQuestion() { return question; }
+
+    public PollType getPollType() { return pollType; }
+
+    public PollStatus getStatus() { return status; }
+
+    public boolean isActive() { return status == PollStatus.ACTIVE; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public LocalDateTime getStartTime() { return startTime; }
+
+    public LocalDateTime getEndTime() { return endTime; }
+
+    public String getCreatedBy() { return createdBy; }
+
+    public boolean isPublic() { return isPublic; }
+
+    public boolean isAllowMultipleVotes() { return allowMultipleVotes; }
+
+    public String getShortCode() { return shortCode; }
+
+    public List<OptionSnapshot> getOptions() { return options; }
+
+    public int getTotalVotes() { return totalVotes; }
+
+    public long getStructureVersion() { return structureVersion; }
+
+    public long getVersion() { return version; }
+
+    /**
+     * Liefert eine Kennung, die sich genau dann ändert, wenn sich dieser Stand ändert.
+     * Sie enthält die Epoche des Caches, damit Kennungen nach einem Neustart nicht wiederverwendet werden.
+     *
+     * @return Die Kennung ohne Anführungszeichen, z.B. als Grundlage für einen ETag
+     */
+    public String getEntityTag() {
+        return epoch + "-" + structureVersion + "-" + version;
+    }
+
+    /**
+     * Wie {@link #getEntityTag()}, ändert sich aber nur bei Änderungen an der Umfrage selbst und nicht bei neuen Stimmen.
+     */
+    public String getStructureTag() {
+        return epoch + "-" + structureVersion;
+    }
+
+    /**
+     * Unveränderlicher Stand einer Antwortoption.
+     */
+    public static final class OptionSnapshot {
+        private final Long id;
+        private final String text;
+        private final int votes;
+
+        OptionSnapshot(Long id, String text, int votes) {
+            this.id = id;
+            this.text = text;
+            this.votes = votes;
+        }
+
+        public Long getId() { return id; }
+
+        public String getText() { return text; }
+
+        public int getVotes() { return votes; }
+    }
+}
@@ -0,0 +1,440 @@
+package link.hsos.livepoll.service;
+
+import link.hsos.livepoll.model.Poll;
+import link.hsos.livepoll.service.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache für unveränderliche {@link PollSnapshot}s, begrenzt nach Größe und Alter.
+ * <p>
+ * Für jede Umfrage wird ein Versionsstempel geführt, den die ändernden Methoden des PollService
+ * nach dem Schreiben fortschreiben: {@link #invalidate} bei Änderungen an der Umfrage selbst,
+ * {@link #votesChanged} bei neuen Stimmen. Ein Stand ist gültig, solange sein Stempel dem aktuellen
+ * entspricht. Hat sich nur die Stimmenzahl geändert, wird der Stand ohne Datenbankzugriff aus den
+ * Zählern im Speicher neu erzeugt.
+ * <p>
+ * Da alle Einträge dieselbe Lebensdauer haben, werden sie in Einfügereihenfolge verdrängt.
+ * <p>
+ * Versionsstempel gelöschter Umfragen werden entfernt, ebenso die Stempel verdrängter Umfragen, sobald
+ * es mehr als doppelt so viele Stempel wie Einträge gibt. Damit eine Version dabei nie zurückspringt,
+ * gilt für Umfragen ohne Stempel danach eine höhere Grundversion; ihre Einträge werden einmalig neu geladen.
+ */
+public final class PollSnapshotCache {
+
+    private static final Stamp UNCHANGED = new Stamp(0, 0);
+
+    private final Function<String, Optional<Poll>> loader;
+    private final Function<String, Map<Long, Long>> liveCounts;
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final Map<String, Stamp> stamps = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    // Version von Umfragen ohne eigenen Stempel; liegt über jeder Version eines entfernten Stempels
+    private final AtomicLong baseVersion = new AtomicLong();
+    private final AtomicBoolean pruning = new AtomicBoolean();
+    // Versionsnummern beginnen nach jedem Neustart wieder bei 0; die Epoche hält daraus abgeleitete ETags eindeutig
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong listVersion = new AtomicLong();
+    private volatile IdList allIds;
+
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder refreshes;
+    private final LongAdder evictions;
+    private final LongAdder invalidations;
+    private final LongAdder listHits;
+    private final LongAdder listMisses;
+
+    /**
+     * @param maxEntries Maximale Anzahl zwischengespeicherter Umfragen
+     * @param ttlSeconds Maximales Alter eines aus der Datenbank geladenen Stands
+     * @param loader Lädt eine Umfrage mit aktuellen Stimmenzahlen aus der Datenbank
+     * @param liveCounts Liefert die Stimmenzahlen im Speicher, leer wenn die Umfrage dort nicht gezählt wird
+     */
+    public PollSnapshotCache(int maxEntries, long ttlSeconds, Function<String, Optional<Poll>> loader,
+                             Function<String, Map<Long, Long>> liveCounts) {
+        this.loader = loader;
+        this.liveCounts = liveCounts;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, ttlSeconds));
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        this.hits = metrics.counter("poll.cache.hits");
+        this.misses = metrics.counter("poll.cache.misses");
+        this.refreshes = metrics.counter("poll.cache.refreshes");
+        this.evictions = metrics.counter("poll.cache.evictions");
+        this.invalidations = metrics.counter("poll.cache.invalidations");
+        this.listHits = metrics.counter("poll.cache.list.hits");
+        this.listMisses = metrics.counter("poll.cache.list.misses");
+        metrics.gauge("poll.cache.size", entries::size);
+        metrics.gauge("poll.cache.stamps", stamps::size);
+    }
+
+    /**
+     * Liefert den aktuellen Stand einer Umfrage, bei Bedarf aus der Datenbank geladen.
+     *
+     * @param pollId Die ID der Umfrage
+     * @return Der Stand oder empty() falls die Umfrage nicht existiert
+     */
+    public Optional<PollSnapshot> get(String pollId) {
+        Stamp stamp = stampOf(pollId);
+        long now = System.nanoTime();
+
+        PollSnapshot current = lookup(pollId, stamp, now);
+        if (current != null) {
+            return Optional.of(current);
+        }
+
+        misses.increment();
+        Optional<Poll> loaded = loader.apply(pollId);
+        if (loaded.isEmpty()) {
+            return Optional.empty();
+        }
+        PollSnapshot snapshot = PollSnapshot.of(loaded.get(), epoch, stamp.structure, stamp.version);
+        if (stampOf(pollId).equals(stamp)) {
+            store(snapshot, now);
+        }
+        return Optional.of(snapshot);
+    }
+
+    /**
+     * Liefert die aktuellen Stände der angegebenen Umfragen in derselben Reihenfolge.
+     * Nicht mehr existierende Umfragen fehlen im Ergebnis.
+     *
+     * @param pollIds Die IDs der Umfragen, z.B. aus dem {@link ActivePollIndex}
+     */
+    public List<PollSnapshot> getAll(List<String> pollIds) {
+        List<PollSnapshot> result = new ArrayList<>(pollIds.size());
+        for (String pollId : pollIds) {
+            get(pollId).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    /**
+     * Liefert die aktuellen Stände der angegebenen Umfragen in derselben Reihenfolge. Alle nicht
+     * zwischengespeicherten Umfragen werden gemeinsam über {@code missLoader} geladen.
+     * Nicht mehr existierende Umfragen fehlen im Ergebnis.
+     *
+     * @param pollIds Die IDs der Umfragen, z.B. einer Seite der Umfrageliste
+     * @param missLoader Lädt die fehlenden Umfragen mit aktuellen Stimmenzahlen aus der Datenbank
+     */
+    public List<PollSnapshot> getAll(List<String> pollIds, Function<List<String>, List<Poll>> missLoader) {
+        long now = System.nanoTime();
+        Map<String, PollSnapshot> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String pollId : pollIds) {
+            PollSnapshot current = lookup(pollId, stampOf(pollId), now);
+            if (current != null) {
+                found.put(pollId, current);
+            } else {
+                missing.add(pollId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            misses.add(missing.size());
+            for (PollSnapshot loaded : load(() -> missLoader.apply(missing))) {
+                found.put(loaded.getId(), loaded);
+            }
+        }
+
+        List<PollSnapshot> result = new ArrayList<>(pollIds.size());
+        for (String pollId : pollIds) {
+            PollSnapshot snapshot = found.get(pollId);
+            if (snapshot != null) {
+                result.add(snapshot);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lädt eine Liste von Umfragen aus der Datenbank und übernimmt ihre Stände in den Cache.
+     *
+     * @param listLoader Lädt die Umfragen aus der Datenbank
+     */
+    public List<PollSnapshot> load(Supplier<List<Poll>> listLoader) {
+        return loadList(listLoader).snapshots;
+    }
+
+    /**
+     * Liefert die Stände aller Umfragen.
+     *
+     * @param allLoader Lädt alle Umfragen aus der Datenbank
+     */
+    public List<PollSnapshot> getAll(Supplier<List<Poll>> allLoader) {
+        IdList ids = allIds;
+        if (isValid(ids)) {
+            listHits.increment();
+            return getAll(ids.pollIds);
+        }
+        listMisses.increment();
+        LoadedList loaded = loadList(allLoader);
+        allIds = loaded.ids;
+        return loaded.snapshots;
+    }
+
+    /**
+     * Verwirft den Stand einer Umfrage nach einer Änderung an der Umfrage selbst
+     * (Anlegen, Bearbeiten, Statuswechsel, Löschen). Muss nach dem Schreiben aufgerufen werden.
+     */
+    public void invalidate(String pollId) {
+        stamps.compute(pollId, (id, old) -> {
+            long next = sequence.incrementAndGet();
+            return new Stamp(next, next);
+        });
+        listVersion.incrementAndGet();
+        if (entries.remove(pollId) != null) {
+            invalidations.increment();
+        }
+        pruneStamps();
+    }
+
+    /**
+     * Markiert neue Stimmen einer Umfrage. Muss aufgerufen werden, nachdem die Stimmen verbucht sind.
+     */
+    public void votesChanged(String pollId) {
+        stamps.compute(pollId, (id, old) -> new Stamp((old != null ? old : baseStamp()).structure, sequence.incrementAndGet()));
+        pruneStamps();
+    }
+
+    /**
+     * Entfernt Stand und Versionsstempel einer gelöschten Umfrage. Muss nach dem Löschen aufgerufen werden.
+     */
+    public void remove(String pollId) {
+        long base = raiseBaseVersion();
+        stamps.computeIfPresent(pollId, (id, stamp) -> stamp.version < base ? null : stamp);
+        if (entries.remove(pollId) != null) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * @return Die aktuelle Version einer Umfrage; ändert sich bei jeder Änderung inklusive neuer Stimmen
+     */
+    public long getVersion(String pollId) {
+        return stampOf(pollId).version;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Liefert den zwischengespeicherten Stand, sofern er zum Stempel passt oder sich aus den
+     * Zählern im Speicher aktualisieren lässt, sonst null.
+     */
+    private PollSnapshot lookup(String pollId, Stamp stamp, long now) {
+        Entry entry = entries.get(pollId);
+        if (entry == null || entry.isExpired(now, ttlNanos)) {
+            return null;
+        }
+        PollSnapshot cached = entry.snapshot.get();
+        if (cached.getStructureVersion() != stamp.structure) {
+            return null;
+        }
+        if (cached.getVersion() == stamp.version) {
+            hits.increment();
+            return cached;
+        }
+        Map<Long, Long> counts = liveCounts.apply(pollId);
+        if (counts.isEmpty()) {
+            return null;
+        }
+        PollSnapshot refreshed = cached.withCounts(counts, stamp.version);
+        entry.snapshot.accumulateAndGet(refreshed,
+                (current, fresh) -> current.getVersion() >= fresh.getVersion() ? current : fresh);
+        refreshes.increment();
+        return refreshed;
+    }
+
+    private Stamp stampOf(String pollId) {
+        Stamp stamp = stamps.get(pollId);
+        return stamp != null ? stamp : baseStamp();
+    }
+
+    private Stamp baseStamp() {
+        long base = baseVersion.get();
+        return base == 0 ? UNCHANGED : new Stamp(base, base);
+    }
+
+    /**
+     * Hebt die Grundversion über alle bisher vergebenen Versionen. Erst danach dürfen Stempel
+     * mit kleinerer Version entfernt werden.
+     */
+    private long raiseBaseVersion() {
+        long base = sequence.incrementAndGet();
+        baseVersion.accumulateAndGet(base, Math::max);
+        return base;
+    }
+
+    /**
+     * Entfernt die Stempel von Umfragen ohne Eintrag, sobald es mehr als doppelt so viele Stempel
+     * wie erlaubte Einträge gibt. Stempel, die sich währenddessen ändern, bleiben erhalten.
+     */
+    private void pruneStamps() {
+        if (stamps.size() <= maxEntries * 2 || !pruning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long base = raiseBaseVersion();
+            for (String pollId : stamps.keySet()) {
+                if (!entries.containsKey(pollId)) {
+                    stamps.computeIfPresent(pollId, (id, stamp) -> stamp.version < base ? null : stamp);
+                }
+            }
+        } finally {
+            pruning.set(false);
+        }
+    }
+
+    private boolean isValid(IdList ids) {
+        return ids != null && ids.listVersion == listVersion.get() && !ids.isExpired(System.nanoTime(), ttlNanos);
+    }
+
+    private LoadedList loadList(Supplier<List<Poll>> listLoader) {
+        long version = listVersion.get();
+        long before = sequence.get();
+        long now = System.nanoTime();
+
+        List<Poll> polls = listLoader.get();
+        List<PollSnapshot> snapshots = new ArrayList<>(polls.size());
+        List<String> pollIds = new ArrayList<>(polls.size());
+        for (Poll poll : polls) {
+            snapshots.add(toSnapshot(poll, before, now));
+            pollIds.add(poll.getId());
+        }
+        // Nur merken, wenn sich die Zusammensetzung während des Ladens nicht geändert hat
+        IdList ids = listVersion.get() == version ? new IdList(version, List.copyOf(pollIds), now) : null;
+        return new LoadedList(snapshots, ids);
+    }
+
+    /**
+     * Erzeugt den Stand einer geladenen Umfrage. Er wird nur übernommen, wenn sich die Umfrage
+     * seit Beginn des Ladens nicht geändert hat. Liegt derselbe Stand bereits vor, wird dieser
+     * weiterverwendet, damit seine JSON-Darstellung erhalten bleibt.
+     */
+    private PollSnapshot toSnapshot(Poll poll, long sequenceBeforeLoad, long now) {
+        Stamp stamp = stampOf(poll.getId());
+        Entry existing = entries.get(poll.getId());
+        PollSnapshot cached = existing != null ? existing.snapshot.get() : null;
+        PollSnapshot snapshot = cached != null && cached.getVersion() == stamp.version
+                && cached.getStructureVersion() == stamp.structure
+                ? cached
+                : PollSnapshot.of(poll, epoch, stamp.structure, stamp.version);
+        if (stamp.version <= sequenceBeforeLoad) {
+            store(snapshot, now);
+        }
+        return snapshot;
+    }
+
+    private void store(PollSnapshot snapshot, long now) {
+        Entry entry = new Entry(snapshot.getId(), snapshot, now);
+        entries.put(snapshot.getId(), entry);
+        insertionOrder.add(entry);
+        evict(now);
+    }
+
+    private void evict(long now) {
+        Entry oldest;
+        while ((oldest = insertionOrder.peek()) != null) {
+            boolean current = entries.get(oldest.pollId) == oldest;
+            if (current && entries.size() <= maxEntries && !oldest.isExpired(now, ttlNanos)) {
+                return;
+            }
+            // Verdrängte und bereits ersetzte Einträge verlassen die Warteschlange
+            if (insertionOrder.remove(oldest) && current && entries.remove(oldest.pollId, oldest)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Versionsstempel einer Umfrage: Struktur- und Gesamtversion.
+     */
+    private static final class Stamp {
+        private final long structure;
+        private final long version;
+
+        private Stamp(long structure, long version) {
+            this.structure = structure;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Stamp)) {
+                return false;
+            }
+            Stamp other = (Stamp) o;
+            return structure == other.structure && version == other.version;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(structure) * 31 + Long.hashCode(version);
+        }
+    }
+
+    private static final class Entry {
+        private final String pollId;
+        private final AtomicReference<PollSnapshot> snapshot;
+        private final long loadedAt;
+
+        private Entry(String pollId, PollSnapshot snapshot, long loadedAt) {
+            this.pollId = pollId;
+            this.snapshot = new AtomicReference<>(snapshot);
+            this.loadedAt = loadedAt;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return now - loadedAt > ttlNanos;
+        }
+    }
+
+    /**
+     * Zwischengespeicherte Zusammensetzung einer Liste (aktive bzw. alle Umfragen).
+     */
+    private static final class IdList {
+        private final long listVersion;
+        private final List<String> pollIds;
+        private final long loadedAt;
+
+        private IdList(long listVersion, List<String> pollIds, long loadedAt) {
+            this.listVersion = listVersion;
+            this.pollIds = pollIds;
+            this.loadedAt = loadedAt;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return now - loadedAt > ttlNanos;
+        }
+    }
+
+    private static final class LoadedList {
+        private final List<PollSnapshot> snapshots;
+        private final IdList ids;
+
+        private LoadedList(List<PollSnapshot> snapshots, IdList ids) {
+            this.snapshots = snapshots;
+            this.ids = ids;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package link.hsos.livepoll.service;
+
+import link.hsos.livepoll.service.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Vergibt 6-stellige Short-Codes aus dem Raum A-Z0-9 (36^6 Codes), ohne zufällig zu raten und jeden
+ * Kandidaten in der Datenbank zu prüfen.
+ * <p>
+ * Die Codes entstehen aus einem fortlaufenden Zähler über eine affine Permutation
+ * {@code i -> (MULTIPLIER * i + OFFSET) mod 36^6}. Da der Multiplikator teilerfremd zu 36^6 ist, liefert sie
+ * jeden Code genau einmal pro Durchlauf, aufeinanderfolgende Codes sehen aber nicht fortlaufend aus.
+ * Der Zähler startet nach jedem Neustart an einer zufälligen Stelle; bereits vergebene Codes werden über
+ * den {@link ShortCodeIndex} im Speicher erkannt und übersprungen.
+ * <p>
+ * Codes gelöschter Umfragen werden nach einer Sperrfrist erneut vergeben, damit alte QR-Codes und Links
+ * nicht sofort auf eine fremde Umfrage zeigen.
+ */
+public final class ShortCodeAllocator {
+    private static final Logger logger = LoggerFactory.getLogger(ShortCodeAllocator.class);
+
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final int LENGTH = 6;
+    private static final long SPACE = 2_176_782_336L; // 36^6
+    // Ungerade und nicht durch 3 teilbar, damit teilerfremd zu 36^6 = 2^12 * 3^12
+    private static final long MULTIPLIER = 1_500_450_271L;
+    private static final long OFFSET = 738_416_429L;
+
+    private final Predicate<String> inUse;
+    private final long cooldownNanos;
+    private final Deque<Released> released = new ArrayDeque<>();
+    private final Set<String> cooling = new HashSet<>();
+    private final long start;
+    private long issued;
+
+    private final LongAdder allocations;
+    private final LongAdder skipped;
+    private final LongAdder recycled;
+
+    /**
+     * @param inUse Prüft, ob ein Code bereits vergeben ist
+     * @param cooldownMinutes Sperrfrist, bevor der Code einer gelöschten Umfrage erneut vergeben wird
+     */
+    public ShortCodeAllocator(Predicate<String> inUse, long cooldownMinutes) {
+        this.inUse = inUse;
+        this.cooldownNanos = TimeUnit.MINUTES.toNanos(Math.max(0, cooldownMinutes));
+        this.start = ThreadLocalRandom.current().nextLong(SPACE);
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        this.allocations = metrics.counter("shortcode.allocations");
+        this.skipped = metrics.counter("shortcode.allocations.skipped");
+        this.recycled = metrics.counter("shortcode.allocations.recycled");
+        metrics.gauge("shortcode.released", this::getReleasedCount);
+    }
+
+    /**
+     * Vergibt einen freien Short-Code. Jeder Code wird höchstens einmal herausgegeben,
+     * auch bei gleichzeitigen Aufrufen.
+     *
+     * @return Der Short-Code
+     * @throws IllegalStateException wenn alle Codes vergeben sind
+     */
+    public synchronized String allocate() {
+        allocations.increment();
+
+        Released candidate = released.peekFirst();
+        while (candidate != null && System.nanoTime() - candidate.releasedAt >= cooldownNanos) {
+            released.pollFirst();
+            cooling.remove(candidate.shortCode);
+            if (!inUse.test(candidate.shortCode)) {
+                recycled.increment();
+                return candidate.shortCode;
+            }
+            candidate = released.peekFirst();
+        }
+
+        while (issued < SPACE) {
+            String shortCode = encode(permute((start + issued++) % SPACE));
+            if (!cooling.contains(shortCode) && !inUse.test(shortCode)) {
+                return shortCode;
+            }
+            skipped.increment();
+        }
+        logger.error("Alle {} Short-Codes sind vergeben", SPACE);
+        throw new IllegalStateException("Keine freien Short-Codes mehr verfügbar");
+    }
+
+    /**
+     * Gibt den Code einer gelöschten Umfrage zur erneuten Vergabe nach der Sperrfrist frei.
+     *
+     * @param shortCode Der Short-Code, null wird ignoriert
+     */
+    public synchronized void release(String shortCode) {
+        if (shortCode != null && cooling.add(shortCode)) {
+            released.addLast(new Released(shortCode, System.nanoTime()));
+        }
+    }
+
+    public synchronized int getReleasedCount() {
+        return released.size();
+    }
+
+    private static long permute(long index) {
+        return Math.floorMod(MULTIPLIER * index + OFFSET, SPACE);
+    }
+
+    private static String encode(long value) {
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET.charAt((int) (value % ALPHABET.length()));
+            value /= ALPHABET.length();
+        }
+        return new String(chars);
+    }
+
+    private static final class Released {
+        private final String shortCode;
+        private final long releasedAt;
+
+        private Released(String shortCode, long releasedAt) {
+            this.shortCode = shortCode;
+            this.releasedAt = releasedAt;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package link.hsos.livepoll.service;
+
+import link.hsos.livepoll.service.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Zuordnung von Short-Codes zu Poll-IDs im Speicher.
+ * <p>
+ * Die Zuordnung wird beim ersten Zugriff vollständig aus der Datenbank geladen und danach vom PollService
+ * beim Anlegen, Bearbeiten und Löschen fortgeschrieben. Solange sie vollständig ist, wird jede Anfrage
+ * ohne Datenbankzugriff beantwortet, auch für falsch eingegebene oder durchprobierte Codes.
+ * <p>
+ * Schlägt das Laden fehl, wird je Code in der Datenbank gesucht; nicht vorhandene Codes merkt sich
+ * dann ein begrenzter Negativ-Cache, bis das Laden erneut versucht wird.
+ */
+public final class ShortCodeIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ShortCodeIndex.class);
+    private static final long RELOAD_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final Supplier<Map<String, String>> allLoader;
+    private final Function<String, Optional<String>> singleLoader;
+    private final int maxNegativeEntries;
+
+    private final Map<String, String> pollIdsByCode = new ConcurrentHashMap<>();
+    private final Map<String, String> codesByPollId = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> negativeCache;
+    private volatile boolean complete;
+    // Während eines Ladevorgangs gelöschte Umfragen, sonst null
+    private volatile Set<String> removedWhileLoading;
+    private volatile long nextLoadAttempt;
+
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder databaseLookups;
+
+    /**
+     * @param allLoader Lädt alle Short-Codes mit ihren Poll-IDs; wirft eine Exception, wenn das nicht möglich ist
+     * @param singleLoader Sucht die Poll-ID zu einem einzelnen Short-Code in der Datenbank
+     * @param maxNegativeEntries Maximale Anzahl gemerkter nicht vorhandener Codes
+     */
+    public ShortCodeIndex(Supplier<Map<String, String>> allLoader, Function<String, Optional<String>> singleLoader,
+                          int maxNegativeEntries) {
+        this.allLoader = allLoader;
+        this.singleLoader = singleLoader;
+        this.maxNegativeEntries = Math.max(1, maxNegativeEntries);
+        this.nextLoadAttempt = System.nanoTime();
+        this.negativeCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > ShortCodeIndex.this.maxNegativeEntries;
+            }
+        };
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        this.hits = metrics.counter("shortcode.index.hits");
+        this.misses = metrics.counter("shortcode.index.misses");
+        this.databaseLookups = metrics.counter("shortcode.index.db.lookups");
+        metrics.gauge("shortcode.index.size", pollIdsByCode::size);
+    }
+
+    /**
+     * Lädt die Zuordnung aus der Datenbank, sofern sie noch nicht vollständig vorliegt.
+     */
+    public void load() {
+        ensureLoaded();
+    }
+
+    /**
+     * Sucht die Poll-ID zu einem Short-Code.
+     *
+     * @param shortCode Der Short-Code
+     * @return Die Poll-ID oder empty() falls der Code nicht vergeben ist
+     */
+    public Optional<String> find(String shortCode) {
+        ensureLoaded();
+
+        String pollId = pollIdsByCode.get(shortCode);
+        if (pollId != null) {
+            hits.increment();
+            return Optional.of(pollId);
+        }
+        misses.increment();
+        if (complete || isKnownMissing(shortCode)) {
+            return Optional.empty();
+        }
+
+        databaseLookups.increment();
+        Optional<String> loaded = singleLoader.apply(shortCode);
+        if (loaded.isPresent()) {
+            put(shortCode, loaded.get());
+        } else {
+            synchronized (negativeCache) {
+                negativeCache.put(shortCode, Boolean.TRUE);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Prüft, ob ein Short-Code bereits vergeben ist. Nur wenn die Zuordnung nicht vollständig
+     * geladen werden konnte, wird dafür die Datenbank abgefragt.
+     */
+    public boolean isAssigned(String shortCode) {
+        if (complete) {
+            return pollIdsByCode.containsKey(shortCode);
+        }
+        return find(shortCode).isPresent();
+    }
+
+    /**
+     * Trägt den Short-Code einer angelegten oder bearbeiteten Umfrage ein. Ein bisheriger Code derselben
+     * Umfrage wird entfernt. Muss nach dem Schreiben aufgerufen werden.
+     *
+     * @param shortCode Der Short-Code, null wird ignoriert
+     * @param pollId Die ID der Umfrage
+     */
+    public void put(String shortCode, String pollId) {
+        if (shortCode == null) {
+            return;
+        }
+        synchronized (negativeCache) {
+            negativeCache.remove(shortCode);
+        }
+        String previous = codesByPollId.put(pollId, shortCode);
+        if (previous != null && !previous.equals(shortCode)) {
+            pollIdsByCode.remove(previous, pollId);
+        }
+        pollIdsByCode.put(shortCode, pollId);
+    }
+
+    /**
+     * Entfernt den Short-Code einer gelöschten Umfrage. Muss nach dem Löschen aufgerufen werden.
+     *
+     * @param pollId Die ID der gelöschten Umfrage
+     * @return Der entfernte Short-Code oder null, falls keiner eingetragen war
+     */
+    public String remove(String pollId) {
+        // Vor dem Entfernen vermerken, damit ein laufender Ladevorgang die Umfrage nicht wieder einträgt
+        Set<String> removed = removedWhileLoading;
+        if (removed != null) {
+            removed.add(pollId);
+        }
+        String shortCode = codesByPollId.remove(pollId);
+        if (shortCode != null) {
+            pollIdsByCode.remove(shortCode, pollId);
+        }
+        return shortCode;
+    }
+
+    public int size() {
+        return pollIdsByCode.size();
+    }
+
+    private boolean isKnownMissing(String shortCode) {
+        synchronized (negativeCache) {
+            return negativeCache.containsKey(shortCode);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (complete || System.nanoTime() - nextLoadAttempt < 0) {
+            return;
+        }
+        synchronized (this) {
+            if (complete || System.nanoTime() - nextLoadAttempt < 0) {
+                return;
+            }
+            Set<String> removed = ConcurrentHashMap.newKeySet();
+            removedWhileLoading = removed;
+            try {
+                Map<String, String> all = allLoader.get();
+                // Zwischenzeitlich eingetragene Codes sind neuer als der geladene Stand
+                all.forEach((shortCode, pollId) -> {
+                    if (!removed.contains(pollId) && codesByPollId.putIfAbsent(pollId, shortCode) == null) {
+                        pollIdsByCode.putIfAbsent(shortCode, pollId);
+                    }
+                });
+                synchronized (negativeCache) {
+                    negativeCache.clear();
+                }
+                complete = true;
+                logger.info("Short-Code-Index mit {} Einträgen geladen", pollIdsByCode.size());
+            } catch (RuntimeException e) {
+                nextLoadAttempt = System.nanoTime() + RELOAD_INTERVAL_NANOS;
+                logger.warn("Short-Code-Index konnte nicht geladen werden, Suche erfolgt bis zum nächsten Versuch einzeln: {}",
+                        e.getMessage());
+            } finally {
+                removedWhileLoading = null;
+                // Eine Löschung zwischen Prüfung und Eintragen kann den geladenen Code übersehen haben
+                removed.forEach(pollId -> {
+                    String shortCode = codesByPollId.remove(pollId);
+                    if (shortCode != null) {
+                        pollIdsByCode.remove(shortCode, pollId);
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package link.hsos.livepoll.service;
+
+import link.hsos.livepoll.service.admission.VoteAdmissionControl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Sammelabgabe vieler Stimmen für eine Umfrage, z.B. von Kiosk- oder Proxy-Clients.
+ * Die Einträge werden abschnittsweise übergeben: Signaturen eines Abschnitts werden parallel auf dem
+ * begrenzten Signatur-Executor des PollService geprüft,
+ * Wiederholungen innerhalb der Sammelabgabe verworfen und die gültigen Stimmen in einer
+ * gemeinsamen Transaktion geschrieben. Jeder gültige Eintrag belastet den Bucket seines Benutzers,
+ * der Abschnitt den Bucket der Umfrage; Einträge über einem Limit erhalten
+ * {@link VoteOutcome#RATE_LIMITED}. Erst {@link #close()} veröffentlicht ein einziges
+ * PollUpdatedEvent für die gesamte Sammelabgabe und gibt die Berechtigung der Zugangskontrolle frei.
+ * <p>
+ * Eine Instanz gehört genau einem Request und ist nicht threadsicher.
+ */
+public final class VoteBatch {
+    private static final Logger logger = LoggerFactory.getLogger(VoteBatch.class);
+    /** Einträge je Prüfauftrag auf dem Signatur-Executor */
+    private static final int SIGNATURE_SLICE_SIZE = 64;
+
+    private final PollService pollService;
+    private final String pollId;
+    private final PollDescriptor descriptor;
+    private final VoteOutcome failure;
+    private final VoteAdmissionControl admissionControl;
+    private final Executor signatureExecutor;
+    private final VoteAdmissionControl.Permit permit;
+    private final Set<String> seen = new HashSet<>();
+    private int acceptedCount;
+    private int rejectedCount;
+    private boolean closed;
+
+    VoteBatch(PollService pollService, String pollId, PollDescriptor descriptor,
+              VoteAdmissionControl admissionControl, Executor signatureExecutor, VoteAdmissionControl.Permit permit) {
+        this.pollService = pollService;
+        this.pollId = pollId;
+        this.descriptor = descriptor;
+        this.failure = null;
+        this.admissionControl = admissionControl;
+        this.signatureExecutor = signatureExecutor;
+        this.permit = permit;
+    }
+
+    private VoteBatch(String pollId, VoteOutcome failure) {
+        this.pollService = null;
+        this.pollId = pollId;
+        this.descriptor = null;
+        this.failure = failure;
+        this.admissionControl = null;
+        this.signatureExecutor = null;
+        this.permit = null;
+    }
+
+    static VoteBatch failed(String pollId, VoteOutcome failure) {
+        return new VoteBatch(pollId, failure);
+    }
+
+    /**
+     * @return true wenn die Umfrage existiert und aktiv ist, sodass Stimmen angenommen werden
+     */
+    public boolean isOpen() {
+        return failure == null;
+    }
+
+    /**
+     * @return Der Grund, warum keine Stimmen angenommen werden, oder null
+     */
+    public VoteOutcome getFailure() {
+        return failure;
+    }
+
+    /**
+     * Verarbeitet einen Abschnitt der Sammelabgabe.
+     *
+     * @param entries Die Einträge des Abschnitts
+     * @return Das Ergebnis je Eintrag in derselben Reihenfolge
+     */
+    public List<VoteOutcome> submit(List<Entry> entries) {
+        if (!isOpen() || closed) {
+            throw new IllegalStateException("Sammelabgabe für Poll " + pollId + " ist nicht geöffnet");
+        }
+
+        boolean[] signatureValid = verifySignatures(entries);
+
+        List<VoteOutcome> outcomes = new ArrayList<>(entries.size());
+        List<Entry> toRecord = new ArrayList<>(entries.size());
+        List<Integer> recordIndexes = new ArrayList<>(entries.size());
+
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            VoteOutcome outcome = null;
+            if (!signatureValid[i]) {
+                outcome = VoteOutcome.INVALID_SIGNATURE;
+            } else if (!hasKnownOptions(entry)) {
+                outcome = VoteOutcome.OPTION_NOT_FOUND;
+            } else if (!seen.add(deduplicationKey(entry))) {
+                outcome = VoteOutcome.DUPLICATE;
+            } else if (!admissionControl.admitVoter(entry.userId)) {
+                seen.remove(deduplicationKey(entry));
+                outcome = VoteOutcome.RATE_LIMITED;
+            } else {
+                toRecord.add(entry);
+                recordIndexes.add(i);
+            }
+            outcomes.add(outcome);
+        }
+
+        // Einträge über dem Ratenlimit der Umfrage werden nicht geschrieben
+        int admitted = admissionControl.admitPollVotes(pollId, toRecord.size());
+        for (int i = toRecord.size() - 1; i >= admitted; i--) {
+            Entry entry = toRecord.remove(i);
+            admissionControl.refundVoter(entry.userId);
+            seen.remove(deduplicationKey(entry));
+            outcomes.set(recordIndexes.remove(i), VoteOutcome.RATE_LIMITED);
+        }
+
+        if (!toRecord.isEmpty()) {
+            List<VoteOutcome> recorded = pollService.recordVoteChunk(pollId, toRecord);
+            for (int i = 0; i < recorded.size(); i++) {
+                outcomes.set(recordIndexes.get(i), recorded.get(i));
+            }
+        }
+
+        for (VoteOutcome outcome : outcomes) {
+            if (outcome == VoteOutcome.ACCEPTED) {
+                acceptedCount++;
+            } else {
+                rejectedCount++;
+            }
+        }
+        logger.debug("Abschnitt der Sammelabgabe für Poll {} verarbeitet: {} Einträge", pollId, entries.size());
+        return outcomes;
+    }
+
+    public int getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * @return Die aktuellen Abstimmungsergebnisse der Umfrage
+     */
+    public PollResults getResults() {
+        return isOpen() ? pollService.getPollResults(pollId) : PollResults.empty(pollId);
+    }
+
+    /**
+     * Schließt die Sammelabgabe ab und veröffentlicht einmalig ein Update-Event,
+     * sofern mindestens eine Stimme angenommen wurde. Gibt den Platz in der Zugangskontrolle frei.
+     */
+    public void close() {
+        if (closed || !isOpen()) {
+            return;
+        }
+        closed = true;
+        try {
+            pollService.finishVoteBatch(pollId, acceptedCount, rejectedCount);
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * Prüft die Signaturen in Teilstücken auf dem Signatur-Executor und wartet auf alle Ergebnisse.
+     */
+    private boolean[] verifySignatures(List<Entry> entries) {
+        boolean[] signatureValid = new boolean[entries.size()];
+        List<CompletableFuture<Void>> slices = new ArrayList<>();
+        for (int from = 0; from < entries.size(); from += SIGNATURE_SLICE_SIZE) {
+            int start = from;
+            int end = Math.min(entries.size(), from + SIGNATURE_SLICE_SIZE);
+            slices.add(CompletableFuture.runAsync(() -> {
+                for (int i = start; i < end; i++) {
+                    signatureValid[i] = entries.get(i).hasValidSignature();
+                }
+            }, signatureExecutor));
+        }
+        // join() stellt auch die Sichtbarkeit der geschriebenen Array-Einträge sicher
+        CompletableFuture.allOf(slices.toArray(new CompletableFuture<?>[0])).join();
+        return signatureValid;
+    }
+
+    private boolean hasKnownOptions(Entry entry) {
+        if (entry.optionIds == null || entry.optionIds.isEmpty()) {
+            return false;
+        }
+        for (Long optionId : entry.optionIds) {
+            if (optionId == null || !descriptor.hasOption(optionId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Bei Einzelabstimmung zählt nur die erste Stimme eines Benutzers, bei erlaubter
+     * Mehrfachabstimmung werden nur identische Wiederholungen verworfen.
+     */
+    private String deduplicationKey(Entry entry) {
+        if (!descriptor.isAllowMultipleVotes()) {
+            return entry.userId;
+        }
+        return entry.userId + "|" + new TreeSet<>(entry.optionIds);
+    }
+
+    /**
+     * Ein Eintrag der Sammelabgabe: signierte Benutzer-ID und gewählte Optionen.
+     */
+    public static final class Entry {
+        private final String userId;
+        private final String signature;
+        private final List<Long> optionIds;
+
+        public Entry(String userId, String signature, List<Long> optionIds) {
+            this.userId = userId;
+            this.signature = signature;
+            this.optionIds = optionIds;
+        }
+
+        public String getUserId() { return userId; }
+
+        public List<Long> getOptionIds() { return optionIds; }
+
+        private boolean hasValidSignature() {
+            return userId != null && !userId.isBlank() && signature != null
+                    && VotingTokenService.verify(userId, signature);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package link.hsos.livepoll.service;
+
+import link.hsos.livepoll.config.LivePollConfig;
+import link.hsos.livepoll.config.ThreadFactories;
+import link.hsos.livepoll.repository.VoteCounterEngine;
+import link.hsos.livepoll.repository.VoteDAO;
+import link.hsos.livepoll.service.helper.VoteQueueFullException;
+import link.hsos.livepoll.service.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Verteilt Stimmabgaben und Statuswechsel auf N Shards mit je einem Writer-Thread.
+ * Alle Aufträge einer Umfrage landen anhand des Hashes der Poll-ID immer im selben Shard
+ * und werden dort streng nacheinander ausgeführt; verschiedene Umfragen verteilen sich auf alle Kerne.
+ * <p>
+ * Jeder Shard sammelt Stimmen in einer begrenzten Warteschlange und schreibt sie gebündelt
+ * (Group Commit): bis zu {@code batchSize} Stimmen bzw. alle Stimmen, die innerhalb von
+ * {@code batchWindowMs} nach der ersten eintreffen, in einer gemeinsamen Transaktion.
+ * Jeder Aufrufer erhält über sein Future das eigene Ergebnis, sobald der Block geschrieben ist;
+ * eine Stimme, die nicht geschrieben werden konnte, wird mit REJECTED abgeschlossen.
+ * Die Futures werden über einen eigenen Executor abgeschlossen, damit Folgeschritte der Aufrufer
+ * (Ergebnisse laden, Updates veröffentlichen) nie auf einem Writer-Thread laufen.
+ * <p>
+ * Die Writer-Threads laufen erst nach {@link #start()}.
+ */
+public final class VoteIngestionPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(VoteIngestionPipeline.class);
+
+    private final VoteDAO voteDAO;
+    private final Shard[] shards;
+    private final ExecutorService resultExecutor;
+    private final int batchSize;
+    private final long batchWindowNanos;
+    private final int retryAfterSeconds;
+    private final LongAdder batchCounter;
+    private final LongAdder voteCounter;
+    private final LongAdder rejectedCounter;
+    private volatile boolean running = true;
+
+    public VoteIngestionPipeline(VoteDAO voteDAO) {
+        this(voteDAO,
+                LivePollConfig.getInt("vote.pipeline.shards", Runtime.getRuntime().availableProcessors()),
+                LivePollConfig.getInt("vote.pipeline.queue.capacity", 10000),
+                LivePollConfig.getInt("vote.pipeline.batch.size", 100),
+                LivePollConfig.getLong("vote.pipeline.batch.window.ms", 5),
+                LivePollConfig.getInt("vote.pipeline.retry.after.seconds", 1),
+                LivePollConfig.getInt("vote.pipeline.result.threads", Runtime.getRuntime().availableProcessors()));
+    }
+
+    public VoteIngestionPipeline(VoteDAO voteDAO, int shardCount, int queueCapacity, int batchSize,
+                                 long batchWindowMs, int retryAfterSeconds, int resultThreads) {
+        this.voteDAO = voteDAO;
+        this.resultExecutor = Executors.newFixedThreadPool(Math.max(1, resultThreads), ThreadFactories.named("vote-result"));
+        this.batchSize = Math.max(1, batchSize);
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, batchWindowMs));
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        this.batchCounter = metrics.counter("vote.pipeline.batches");
+        this.voteCounter = metrics.counter("vote.pipeline.votes");
+        this.rejectedCounter = metrics.counter("vote.pipeline.rejected.queue.full");
+
+        this.shards = new Shard[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, Math.max(1, queueCapacity));
+            Shard shard = shards[i];
+            metrics.gauge("vote.pipeline.shard." + i + ".queue.depth", shard.queue::size);
+        }
+        metrics.gauge("vote.pipeline.shards", () -> shards.length);
+        metrics.gauge("vote.pipeline.queue.depth", this::getQueueSize);
+
+        logger.info("Vote-Pipeline erstellt ({} Shards, Kapazität je Shard={}, Blockgröße={}, Fenster={}ms)",
+                shards.length, queueCapacity, this.batchSize, batchWindowMs);
+    }
+
+    /**
+     * Startet die Writer-Threads aller Shards. Wird erst nach dem Konstruktor aufgerufen,
+     * damit die Threads nur eine vollständig initialisierte Pipeline sehen.
+     */
+    public void start() {
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    /**
+     * Reiht eine Stimmabgabe in die Warteschlange des zuständigen Shards ein. Blockiert nicht:
+     * Ist die Warteschlange voll, wird sofort eine {@link VoteQueueFullException} geworfen.
+     *
+     * @param pollId Die ID der Umfrage
+     * @param optionIds Die IDs der gewählten Antwortoptionen
+     * @param userId Die ID des abstimmenden Benutzers
+     * @return Future, das nach dem Schreiben des Blocks mit dem Ergebnis abgeschlossen wird
+     * @throws VoteQueueFullException wenn die Warteschlange voll ist
+     */
+    public CompletableFuture<VoteOutcome> submit(String pollId, List<Long> optionIds, String userId) {
+        if (!running) {
+            logger.warn("Vote-Pipeline ist heruntergefahren, Stimme abgelehnt: Poll={}", pollId);
+            return CompletableFuture.completedFuture(VoteOutcome.REJECTED);
+        }
+
+        Shard shard = shardFor(pollId);
+        VoteCommand command = new VoteCommand(pollId, List.copyOf(optionIds), userId);
+        if (!shard.queue.offer(command)) {
+            rejectedCounter.increment();
+            logger.warn("Vote-Warteschlange von Shard {} voll, Stimme für Poll {} abgewiesen", shard.index, pollId);
+            throw new VoteQueueFullException("Zu viele gleichzeitige Stimmabgaben", retryAfterSeconds);
+        }
+        return command.result;
+    }
+
+    /**
+     * Führt eine Aktion im Shard der Umfrage aus, nachdem alle zuvor eingereihten Stimmen
+     * verarbeitet wurden, und wartet auf ihr Ergebnis. Wird für Statuswechsel verwendet,
+     * damit sie nie mit Stimmabgaben derselben Umfrage überlappen.
+     *
+     * @param pollId Die ID der Umfrage
+     * @param action Die auszuführende Aktion
+     * @return Das Ergebnis der Aktion
+     */
+    public <T> T callOnShard(String pollId, Supplier<T> action) {
+        Shard shard = shardFor(pollId);
+        if (!running || Thread.currentThread() == shard.thread) {
+            return action.get();
+        }
+
+        ControlTask<T> task = new ControlTask<>(action);
+        try {
+            shard.queue.put(task);
+            return task.done.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Unterbrochen beim Warten auf Shard " + shard.index, e);
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public int getQueueSize() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.queue.size();
+        }
+        return size;
+    }
+
+    /**
+     * Nimmt keine neuen Stimmen mehr an, verarbeitet die Warteschlangen und stoppt die Writer-Threads.
+     */
+    public void shutdown() {
+        running = false;
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (shard.thread.isAlive()) {
+                logger.warn("Writer-Thread von Shard {} konnte nicht rechtzeitig beendet werden", shard.index);
+            }
+        }
+        resultExecutor.shutdown();
+        try {
+            if (!resultExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                resultExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            resultExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Vote-Pipeline heruntergefahren");
+    }
+
+    private Shard shardFor(String pollId) {
+        int hash = pollId.hashCode();
+        return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+    }
+
+    /**
+     * Eine Warteschlange mit genau einem Writer-Thread.
+     */
+    private final class Shard {
+        private final int index;
+        private final BlockingQueue<Object> queue;
+        private final Thread thread;
+
+        private Shard(int index, int capacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = ThreadFactories.unstarted("vote-shard-" + index, this::run);
+        }
+
+        private void run() {
+            List<VoteCommand> batch = new ArrayList<>(batchSize);
+            while (running || !queue.isEmpty()) {
+                ControlTask<?> control = null;
+                try {
+                    Object first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    if (first instanceof ControlTask) {
+                        control = (ControlTask<?>) first;
+                    } else {
+                        batch.add((VoteCommand) first);
+                        control = collectBatch(batch);
+                        process(batch);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    logger.error("Unerwarteter Fehler in Shard {} der Vote-Pipeline", index, e);
+                    batch.forEach(command -> complete(command, VoteOutcome.REJECTED));
+                } finally {
+                    batch.clear();
+                }
+
+                if (control != null) {
+                    control.run();
+                }
+            }
+        }
+
+        /**
+         * Füllt den Block bis zur Blockgröße oder bis das Zeitfenster nach der ersten Stimme abgelaufen ist.
+         * Ein Statuswechsel beendet den Block vorzeitig, damit die Reihenfolge erhalten bleibt.
+         *
+         * @return Der Statuswechsel, der nach dem Block auszuführen ist, oder null
+         */
+        private ControlTask<?> collectBatch(List<VoteCommand> batch) throws InterruptedException {
+            long deadline = System.nanoTime() + batchWindowNanos;
+            while (batch.size() < batchSize) {
+                Object next = queue.poll();
+                if (next == null) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        return null;
+                    }
+                }
+                if (next instanceof ControlTask) {
+                    return (ControlTask<?>) next;
+                }
+                batch.add((VoteCommand) next);
+            }
+            return null;
+        }
+    }
+
+    private void process(List<VoteCommand> batch) {
+        List<VoteCommand> recorded = new ArrayList<>(batch.size());
+        Set<String> pollIds = new HashSet<>();
+
+        for (VoteCommand command : batch) {
+            VoteOutcome outcome;
+            try {
+                outcome = record(command);
+            } catch (Exception e) {
+                logger.error("Fehler beim Verbuchen der Stimme: Poll={}, User={}", command.pollId, command.userId, e);
+                outcome = VoteOutcome.REJECTED;
+            }
+
+            if (outcome == VoteOutcome.ACCEPTED) {
+                recorded.add(command);
+                pollIds.add(command.pollId);
+            } else {
+                complete(command, outcome);
+            }
+        }
+
+        if (recorded.isEmpty()) {
+            return;
+        }
+
+        // Ein Commit für die Stimmen des Blocks; geschrieben werden nur Umfragen dieses Shards
+        voteDAO.flushPendingVotes(pollIds);
+        recorded.forEach(command -> command.written.thenAcceptAsync(written ->
+                command.result.complete(written ? VoteOutcome.ACCEPTED : VoteOutcome.REJECTED), resultExecutor));
+        batchCounter.increment();
+        voteCounter.add(recorded.size());
+        logger.debug("Block mit {} Stimmen geschrieben", recorded.size());
+    }
+
+    private void complete(VoteCommand command, VoteOutcome outcome) {
+        resultExecutor.execute(() -> command.result.complete(outcome));
+    }
+
+    private VoteOutcome record(VoteCommand command) {
+        VoteCounterEngine.RecordResult result = voteDAO.recordVote(command.pollId, command.optionIds, command.userId, command.written);
+        switch (result) {
+            case RECORDED:
+                return VoteOutcome.ACCEPTED;
+            case DUPLICATE:
+                return VoteOutcome.DUPLICATE;
+            case UNKNOWN_OPTION:
+                return VoteOutcome.OPTION_NOT_FOUND;
+            default:
+                // Nur aktive Umfragen werden im Speicher gezählt; sie wurde inzwischen geschlossen
+                return VoteOutcome.POLL_INACTIVE;
+        }
+    }
+
+    private static final class VoteCommand {
+        private final String pollId;
+        private final List<Long> optionIds;
+        private final String userId;
+        private final CompletableFuture<VoteOutcome> result = new CompletableFuture<>();
+        private final CompletableFuture<Boolean> written = new CompletableFuture<>();
+
+        private VoteCommand(String pollId, List<Long> optionIds, String userId) {
+            this.pollId = pollId;
+            this.optionIds = optionIds;
+            this.userId = userId;
+        }
+    }
+
+    /**
+     * Ein Statuswechsel, der im Shard zwischen den Stimmabgaben ausgeführt wird.
+     */
+    private static final class ControlTask<T> {
+        private final Supplier<T> action;
+        private final CompletableFuture<T> done = new CompletableFuture<>();
+
+        private ControlTask(Supplier<T> action) {
+            this.action = action;
+        }
+
+        private void run() {
+            try {
+                done.complete(action.get());
+            } catch (Throwable t) {
+                done.completeExceptionally(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package link.hsos.livepoll.service;
+
+/**
+ * Ergebnis einer Stimmabgabe, die über die {@link VoteIngestionPipeline} verarbeitet wurde.
+ */
+public enum VoteOutcome {
+    /** Stimme wurde verbucht und ist persistiert */
+    ACCEPTED,
+    /** Benutzer hat bereits abgestimmt und Mehrfachabstimmung ist nicht erlaubt */
+    DUPLICATE,
+    /** Umfrage existiert nicht */
+    POLL_NOT_FOUND,
+    /** Umfrage ist nicht aktiv */
+    POLL_INACTIVE,
+    /** Mindestens eine gewählte Option gehört nicht zur Umfrage */
+    OPTION_NOT_FOUND,
+    /** Signatur der Benutzer-ID ist ungültig (Sammelabgabe) */
+    INVALID_SIGNATURE,
+    /** Ratenlimit des Benutzers oder der Umfrage überschritten (Sammelabgabe) */
+    RATE_LIMITED,
+    /** Stimme wurde abgelehnt (z.B. Schreibfehler oder Zeitüberschreitung) */
+    REJECTED
+}
@@ -0,0 +1,32 @@
+package link.hsos.livepoll.service;
+
+/**
+ * Ergebnis einer Stimmabgabe über {@link PollService#castVote}: das Ergebnis der Abgabe
+ * und, falls die Stimme angenommen wurde, die aktuellen Abstimmungsergebnisse.
+ */
+public final class VoteResult {
+    private final VoteOutcome outcome;
+    private final PollResults results;
+
+    private VoteResult(VoteOutcome outcome, PollResults results) {
+        this.outcome = outcome;
+        this.results = results;
+    }
+
+    public static VoteResult accepted(PollResults results) {
+        return new VoteResult(VoteOutcome.ACCEPTED, results);
+    }
+
+    public static VoteResult failed(VoteOutcome outcome) {
+        return new VoteResult(outcome, null);
+    }
+
+    public VoteOutcome getOutcome() { return outcome; }
+
+    public boolean isAccepted() { return outcome == VoteOutcome.ACCEPTED; }
+
+    /**
+     * @return Die Ergebnisse nach der Stimmabgabe, null wenn die Stimme nicht angenommen wurde
+     */
+    public PollResults getResults() { return results; }
+}
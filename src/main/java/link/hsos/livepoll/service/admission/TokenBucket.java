@@ -0,0 +1,100 @@
+package link.hsos.livepoll.service.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-freier Token-Bucket mit fester Nachfüllrate und Burst-Größe.
+ * Umgesetzt als GCRA (Generic Cell Rate Algorithm): Statt Tokenstand und Zeitpunkt getrennt
+ * zu führen, wird nur der theoretische Ankunftszeitpunkt der nächsten Anfrage in einem
+ * {@link AtomicLong} gehalten und per CAS fortgeschrieben.
+ */
+public final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param ratePerSecond Nachgefüllte Tokens pro Sekunde
+     * @param burst Maximale Anzahl Tokens, die auf einmal verbraucht werden können
+     */
+    public TokenBucket(double ratePerSecond, int burst) {
+        this.emissionIntervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * (Math.max(1, burst) - 1L);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Entnimmt ein Token, sofern verfügbar.
+     *
+     * @return 0 wenn ein Token entnommen wurde, sonst die Wartezeit in Nanosekunden bis zum nächsten Token
+     */
+    public long tryAcquire() {
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = theoreticalArrival.get();
+            long earliest = arrival - burstToleranceNanos;
+            if (now - earliest < 0) {
+                return earliest - now;
+            }
+            long next = Math.max(arrival - now, 0) + now + emissionIntervalNanos;
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Entnimmt bis zu {@code requested} Tokens auf einmal, z.B. für einen Abschnitt einer Sammelabgabe.
+     *
+     * @param requested Die Anzahl gewünschter Tokens
+     * @return Die Anzahl entnommener Tokens, 0 wenn keines verfügbar ist
+     */
+    public int tryAcquire(int requested) {
+        if (requested <= 0) {
+            return 0;
+        }
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = theoreticalArrival.get();
+            long start = Math.max(arrival - now, 0) + now;
+            // Das k-te Token ist verfügbar, solange start + (k - 1) * Intervall innerhalb der Burst-Toleranz liegt
+            long available = Math.floorDiv(burstToleranceNanos - (start - now), emissionIntervalNanos) + 1;
+            if (available <= 0) {
+                return 0;
+            }
+            int granted = (int) Math.min(requested, available);
+            if (theoreticalArrival.compareAndSet(arrival, start + granted * emissionIntervalNanos)) {
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * Gibt ein zuvor entnommenes Token zurück, z.B. wenn die Anfrage an einer späteren Prüfung scheitert.
+     * Der Bucket wird dabei höchstens bis zur Burst-Größe aufgefüllt, da {@link #tryAcquire()} einen
+     * Ankunftszeitpunkt in der Vergangenheit wie einen vollen Bucket behandelt.
+     */
+    public void refund() {
+        refund(1);
+    }
+
+    /**
+     * Gibt mehrere zuvor entnommene Tokens zurück.
+     *
+     * @param tokens Die Anzahl zurückgegebener Tokens
+     */
+    public void refund(int tokens) {
+        if (tokens > 0) {
+            theoreticalArrival.addAndGet(-tokens * emissionIntervalNanos);
+        }
+    }
+
+    /**
+     * @return true wenn der Bucket vollständig aufgefüllt ist und damit einem neuen Bucket entspricht
+     */
+    public boolean isIdle() {
+        return System.nanoTime() - theoreticalArrival.get() >= 0;
+    }
+}
@@ -0,0 +1,239 @@
+package link.hsos.livepoll.service.admission;
+
+import link.hsos.livepoll.config.LivePollConfig;
+import link.hsos.livepoll.service.helper.VoteRateLimitedException;
+import link.hsos.livepoll.service.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Zugangskontrolle vor der Stimmabgabe. Eine Stimme wird nur angenommen, wenn
+ * <ul>
+ *     <li>der Benutzer sein eigenes Ratenlimit nicht überschreitet,</li>
+ *     <li>der Token-Bucket der Umfrage noch Tokens enthält und</li>
+ *     <li>die Zahl gleichzeitig verarbeiteter Stimmabgaben unter dem globalen Limit liegt.</li>
+ * </ul>
+ * Abgewiesene Anfragen erhalten eine {@link VoteRateLimitedException} mit Retry-After,
+ * statt die Datenbank bei Lastspitzen (QR-Code auf dem Beamer) zu überlasten.
+ * Wird eine Stimmabgabe an einer späteren Prüfung abgewiesen, erhalten die bereits
+ * belasteten Buckets ihr Token zurück.
+ * <p>
+ * Sammelabgaben belegen mit {@link #admitBatch(String)} nur einen Platz im globalen Limit; ihre
+ * Einträge werden einzeln gegen die Buckets der Benutzer und abschnittsweise gegen den Bucket der
+ * Umfrage geprüft ({@link #admitVoter(String)}, {@link #admitPollVotes(String, int)}).
+ */
+public final class VoteAdmissionControl {
+    private static final Logger logger = LoggerFactory.getLogger(VoteAdmissionControl.class);
+
+    private final boolean enabled;
+    private final Semaphore concurrency;
+    private final double pollRate;
+    private final int pollBurst;
+    private final double voterRate;
+    private final int voterBurst;
+    private final int maxTrackedVoters;
+    private final int maxTrackedPolls;
+    private final Map<String, TokenBucket> pollBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> voterBuckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean cleaningVoters = new AtomicBoolean();
+    private final AtomicBoolean cleaningPolls = new AtomicBoolean();
+    private final LongAdder rejectedConcurrency;
+    private final LongAdder rejectedPoll;
+    private final LongAdder rejectedVoter;
+    private final Permit noopPermit = () -> { };
+
+    public VoteAdmissionControl() {
+        this(LivePollConfig.getBoolean("vote.admission.enabled", true),
+                LivePollConfig.getInt("vote.admission.max.concurrent", 256),
+                LivePollConfig.getInt("vote.admission.poll.rate.per.second", 2000),
+                LivePollConfig.getInt("vote.admission.poll.burst", 4000),
+                LivePollConfig.getInt("vote.admission.voter.rate.per.second", 2),
+                LivePollConfig.getInt("vote.admission.voter.burst", 5),
+                LivePollConfig.getInt("vote.admission.voter.max.tracked", 100000),
+                LivePollConfig.getInt("vote.admission.poll.max.tracked", 10000));
+    }
+
+    public VoteAdmissionControl(boolean enabled, int maxConcurrent, double pollRate, int pollBurst,
+                                double voterRate, int voterBurst, int maxTrackedVoters, int maxTrackedPolls) {
+        this.enabled = enabled;
+        this.concurrency = new Semaphore(Math.max(1, maxConcurrent));
+        this.pollRate = pollRate;
+        this.pollBurst = pollBurst;
+        this.voterRate = voterRate;
+        this.voterBurst = voterBurst;
+        this.maxTrackedVoters = Math.max(1, maxTrackedVoters);
+        this.maxTrackedPolls = Math.max(1, maxTrackedPolls);
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        this.rejectedConcurrency = metrics.counter("vote.admission.rejected.concurrency");
+        this.rejectedPoll = metrics.counter("vote.admission.rejected.poll");
+        this.rejectedVoter = metrics.counter("vote.admission.rejected.voter");
+        metrics.gauge("vote.admission.in.flight", () -> Math.max(0, Math.max(1, maxConcurrent) - concurrency.availablePermits()));
+        metrics.gauge("vote.admission.voter.buckets", voterBuckets::size);
+        metrics.gauge("vote.admission.poll.buckets", pollBuckets::size);
+
+        logger.info("Zugangskontrolle für Stimmabgaben {} (gleichzeitig={}, Poll={}/s Burst {}, Benutzer={}/s Burst {})",
+                enabled ? "aktiv" : "deaktiviert", maxConcurrent, pollRate, pollBurst, voterRate, voterBurst);
+    }
+
+    /**
+     * Lässt eine Stimmabgabe zu oder weist sie ab. Die erhaltene Berechtigung muss nach der
+     * Verarbeitung geschlossen werden, damit der Platz im globalen Limit frei wird.
+     *
+     * @param pollId Die ID der Umfrage
+     * @param userId Die ID des abstimmenden Benutzers, darf null sein
+     * @return Die Berechtigung für die Dauer der Stimmabgabe
+     * @throws VoteRateLimitedException wenn ein Limit überschritten ist
+     */
+    public Permit admit(String pollId, String userId) {
+        if (!enabled) {
+            return noopPermit;
+        }
+
+        TokenBucket voterBucket = null;
+        if (userId != null) {
+            voterBucket = bucket(voterBuckets, userId, voterRate, voterBurst, maxTrackedVoters, cleaningVoters);
+            long wait = voterBucket.tryAcquire();
+            if (wait > 0) {
+                rejectedVoter.increment();
+                logger.debug("Ratenlimit für Benutzer {} überschritten", userId);
+                throw new VoteRateLimitedException("Zu viele Stimmabgaben von diesem Benutzer", toRetryAfter(wait));
+            }
+        }
+
+        TokenBucket pollBucket = bucket(pollBuckets, pollId, pollRate, pollBurst, maxTrackedPolls, cleaningPolls);
+        long wait = pollBucket.tryAcquire();
+        if (wait > 0) {
+            refund(voterBucket);
+            rejectedPoll.increment();
+            logger.debug("Ratenlimit für Poll {} überschritten", pollId);
+            throw new VoteRateLimitedException("Zu viele Stimmabgaben für diese Umfrage", toRetryAfter(wait));
+        }
+
+        if (!concurrency.tryAcquire()) {
+            refund(voterBucket);
+            pollBucket.refund();
+            rejectedConcurrency.increment();
+            throw new VoteRateLimitedException("Zu viele gleichzeitige Stimmabgaben", 1);
+        }
+        return concurrency::release;
+    }
+
+    /**
+     * Belegt einen Platz im globalen Limit für eine Sammelabgabe. Die Tokens der Umfrage und der
+     * Benutzer werden erst beim Verarbeiten der Einträge entnommen.
+     *
+     * @param pollId Die ID der Umfrage
+     * @return Die Berechtigung für die Dauer der Sammelabgabe
+     * @throws VoteRateLimitedException wenn das globale Limit erreicht ist
+     */
+    public Permit admitBatch(String pollId) {
+        if (!enabled) {
+            return noopPermit;
+        }
+        if (!concurrency.tryAcquire()) {
+            rejectedConcurrency.increment();
+            logger.debug("Sammelabgabe für Poll {} abgewiesen: zu viele gleichzeitige Stimmabgaben", pollId);
+            throw new VoteRateLimitedException("Zu viele gleichzeitige Stimmabgaben", 1);
+        }
+        return concurrency::release;
+    }
+
+    /**
+     * Entnimmt ein Token aus dem Bucket eines Benutzers für einen Eintrag einer Sammelabgabe.
+     *
+     * @param userId Die ID des Benutzers
+     * @return false wenn das Ratenlimit des Benutzers überschritten ist
+     */
+    public boolean admitVoter(String userId) {
+        if (!enabled) {
+            return true;
+        }
+        if (bucket(voterBuckets, userId, voterRate, voterBurst, maxTrackedVoters, cleaningVoters).tryAcquire() > 0) {
+            rejectedVoter.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gibt ein mit {@link #admitVoter(String)} entnommenes Token zurück.
+     */
+    public void refundVoter(String userId) {
+        TokenBucket bucket = enabled ? voterBuckets.get(userId) : null;
+        refund(bucket);
+    }
+
+    /**
+     * Entnimmt für einen Abschnitt einer Sammelabgabe bis zu {@code votes} Tokens aus dem Bucket der Umfrage.
+     *
+     * @param pollId Die ID der Umfrage
+     * @param votes Die Anzahl der Stimmen des Abschnitts
+     * @return Die Anzahl zugelassener Stimmen; die übrigen überschreiten das Ratenlimit der Umfrage
+     */
+    public int admitPollVotes(String pollId, int votes) {
+        if (!enabled || votes <= 0) {
+            return Math.max(0, votes);
+        }
+        int granted = bucket(pollBuckets, pollId, pollRate, pollBurst, maxTrackedPolls, cleaningPolls).tryAcquire(votes);
+        if (granted < votes) {
+            rejectedPoll.add(votes - granted);
+            logger.debug("Ratenlimit für Poll {} überschritten: {} von {} Stimmen der Sammelabgabe zugelassen", pollId, granted, votes);
+        }
+        return granted;
+    }
+
+    /**
+     * Entfernt den Bucket einer Umfrage, z.B. nach dem Schließen.
+     */
+    public void forgetPoll(String pollId) {
+        pollBuckets.remove(pollId);
+    }
+
+    /**
+     * Liefert den Bucket zu einem Schlüssel. Die Zahl der Buckets ist begrenzt, da Benutzer- und
+     * Poll-IDs aus der Anfrage stammen: Ab der Grenze werden aufgefüllte Buckets verworfen.
+     */
+    private static TokenBucket bucket(Map<String, TokenBucket> buckets, String key, double rate, int burst,
+                                      int maxTracked, AtomicBoolean cleaning) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxTracked && cleaning.compareAndSet(false, true)) {
+            try {
+                // Vollständig aufgefüllte Buckets entsprechen neuen Buckets und können entfallen
+                buckets.values().removeIf(TokenBucket::isIdle);
+            } finally {
+                cleaning.set(false);
+            }
+        }
+        return buckets.computeIfAbsent(key, id -> new TokenBucket(rate, burst));
+    }
+
+    private static void refund(TokenBucket bucket) {
+        if (bucket != null) {
+            bucket.refund();
+        }
+    }
+
+    private static int toRetryAfter(long waitNanos) {
+        return (int) Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Berechtigung für eine laufende Stimmabgabe.
+     */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,101 @@
+package link.hsos.livepoll.service.events;
+
+import link.hsos.livepoll.service.metrics.MetricsRegistry;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry für wartende Long-Polling-Anfragen. Statt in einer Schleife die Datenbank abzufragen,
+ * hinterlegt jede Anfrage ein {@link CompletableFuture}, das der PollService bei einer Änderung abschließt:
+ * Anfragen auf eine einzelne Umfrage bei Änderungen an der Umfrage selbst (Status, Frage, Optionen),
+ * Anfragen auf beliebige Umfragen zusätzlich bei neuen Stimmen.
+ * <p>
+ * Wartende Anfragen belegen weder Thread noch Datenbankverbindung. Damit zwischen zwei Anfragen
+ * keine Änderung verloren geht, muss sich der Aufrufer erst registrieren und danach den aktuellen
+ * Stand mit dem zuletzt bekannten vergleichen.
+ */
+public final class PollChangeNotifier {
+
+    private final Map<String, Set<CompletableFuture<Void>>> pollWaiters = new ConcurrentHashMap<>();
+    private final Set<CompletableFuture<Void>> anyWaiters = ConcurrentHashMap.newKeySet();
+
+    public PollChangeNotifier() {
+        MetricsRegistry.getInstance().gauge("poll.wait.waiting", this::getWaitingCount);
+    }
+
+    /**
+     * Registriert eine Anfrage, die auf die nächste Änderung einer Umfrage wartet.
+     * Wird das Future vorher abgebrochen oder läuft es ab, wird es aus der Registry entfernt.
+     *
+     * @param pollId Die ID der Umfrage
+     * @return Future, das bei der nächsten Änderung abgeschlossen wird
+     */
+    public CompletableFuture<Void> awaitPollChange(String pollId) {
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        pollWaiters.compute(pollId, (id, waiters) -> {
+            Set<CompletableFuture<Void>> set = waiters != null ? waiters : ConcurrentHashMap.newKeySet();
+            set.add(waiter);
+            return set;
+        });
+        waiter.whenComplete((ignored, error) -> pollWaiters.computeIfPresent(pollId, (id, waiters) -> {
+            waiters.remove(waiter);
+            return waiters.isEmpty() ? null : waiters;
+        }));
+        return waiter;
+    }
+
+    /**
+     * Registriert eine Anfrage, die auf die nächste Änderung oder Stimme an einer beliebigen Umfrage wartet,
+     * z.B. für die Liste der aktiven Umfragen.
+     *
+     * @return Future, das bei der nächsten Änderung abgeschlossen wird
+     */
+    public CompletableFuture<Void> awaitAnyChange() {
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        anyWaiters.add(waiter);
+        waiter.whenComplete((ignored, error) -> anyWaiters.remove(waiter));
+        return waiter;
+    }
+
+    /**
+     * Weckt alle Anfragen, die auf diese Umfrage oder auf beliebige Änderungen warten.
+     * Muss nach dem Schreiben der Änderung aufgerufen werden.
+     *
+     * @param pollId Die ID der geänderten Umfrage
+     */
+    public void pollChanged(String pollId) {
+        Set<CompletableFuture<Void>> waiters = pollWaiters.remove(pollId);
+        if (waiters != null) {
+            waiters.forEach(waiter -> waiter.complete(null));
+        }
+        anyWaiters.forEach(waiter -> waiter.complete(null));
+    }
+
+    /**
+     * Weckt die Anfragen, die auf beliebige Änderungen warten, nachdem neue Stimmen gezählt wurden.
+     *
+     * @param pollId Die ID der Umfrage
+     */
+    public void votesChanged(String pollId) {
+        anyWaiters.forEach(waiter -> waiter.complete(null));
+    }
+
+    /**
+     * Weckt alle wartenden Anfragen, z.B. beim Herunterfahren.
+     */
+    public void releaseAll() {
+        pollWaiters.keySet().forEach(this::pollChanged);
+        anyWaiters.forEach(waiter -> waiter.complete(null));
+    }
+
+    public int getWaitingCount() {
+        int count = anyWaiters.size();
+        for (Set<CompletableFuture<Void>> waiters : pollWaiters.values()) {
+            count += waiters.size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,18 @@
+package link.hsos.livepoll.service.helper;
+
+/**
+ * Wird geworfen, wenn die Warteschlange der Stimmabgaben voll ist.
+ * Der Aufrufer soll die Anfrage nach {@link #getRetryAfterSeconds()} Sekunden wiederholen.
+ */
+public class VoteQueueFullException extends RuntimeException {
+    private final int retryAfterSeconds;
+
+    public VoteQueueFullException(String s, int retryAfterSeconds) {
+        super(s);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,19 @@
+package link.hsos.livepoll.service.helper;
+
+/**
+ * Wird geworfen, wenn eine Stimmabgabe von der Zugangskontrolle abgewiesen wird
+ * (Ratenlimit der Umfrage oder des Benutzers bzw. zu viele gleichzeitige Stimmabgaben).
+ * Der Aufrufer soll die Anfrage nach {@link #getRetryAfterSeconds()} Sekunden wiederholen.
+ */
+public class VoteRateLimitedException extends RuntimeException {
+    private final int retryAfterSeconds;
+
+    public VoteRateLimitedException(String s, int retryAfterSeconds) {
+        super(s);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
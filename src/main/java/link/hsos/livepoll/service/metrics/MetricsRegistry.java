@@ -0,0 +1,66 @@
+package link.hsos.livepoll.service.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Einfache Registry für Laufzeitmetriken der Anwendung.
+ * Zähler werden über {@link LongAdder} geführt, Gauges werden erst beim Auslesen berechnet.
+ * Die Werte werden über /api/metrics als JSON bereitgestellt.
+ */
+public final class MetricsRegistry {
+
+    private static MetricsRegistry instance;
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = new MetricsRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Liefert den Zähler mit dem angegebenen Namen und legt ihn bei Bedarf an.
+     *
+     * @param name Name der Metrik, z.B. vote.pipeline.batches
+     * @return Der Zähler
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Registriert eine Gauge. Eine bestehende Gauge gleichen Namens wird ersetzt.
+     *
+     * @param name Name der Metrik
+     * @param supplier Liefert den aktuellen Wert
+     */
+    public void gauge(String name, Supplier<? extends Number> supplier) {
+        gauges.put(name, supplier);
+    }
+
+    public void removeGauge(String name) {
+        gauges.remove(name);
+    }
+
+    /**
+     * Liefert alle Metriken alphabetisch sortiert mit ihren aktuellen Werten.
+     *
+     * @return Map Metrikname auf Wert
+     */
+    public Map<String, Number> snapshot() {
+        Map<String, Number> result = new TreeMap<>();
+        counters.forEach((name, counter) -> result.put(name, counter.sum()));
+        gauges.forEach((name, supplier) -> result.put(name, supplier.get()));
+        return result;
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
 import jakarta.servlet.annotation.WebListener;
 import link.hsos.livepoll.repository.JpaDatabaseManager;
+import link.hsos.livepoll.service.PollService;
 import link.hsos.livepoll.websocket.WebSocketManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -84,6 +85,14 @@ public class DatabaseInitializationListener implements ServletContextListener {
                 logger.warn("Fehler beim Stoppen des WebSocket-Schedulers: {}", e.getMessage());
             }
             
+            // Gepufferte Stimmen schreiben, solange die Datenbank noch offen ist
+            try {
+                PollService.shutdownInstance();
+                logger.info("PollService erfolgreich heruntergefahren");
+            } catch (Exception e) {
+                logger.warn("Fehler beim Herunterfahren des PollService: {}", e.getMessage());
+            }
+
             JpaDatabaseManager dbManager = JpaDatabaseManager.getInstance();
             dbManager.shutdown();
             logger.info("Datenbankverbindungen erfolgreich geschlossen");
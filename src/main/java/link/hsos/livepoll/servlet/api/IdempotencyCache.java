@@ -0,0 +1,145 @@
+package link.hsos.livepoll.servlet.api;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Begrenzter, zeitlich ablaufender Cache für Antworten auf Anfragen mit Idempotency-Key.
+ * Die erste Anfrage zu einem Schlüssel wird verarbeitet; Wiederholungen erhalten die gespeicherte
+ * Antwort bzw. warten auf deren Fertigstellung, falls die erste Anfrage noch läuft.
+ * Zu jedem Schlüssel wird ein Fingerabdruck des Anfrageinhalts gespeichert; eine Wiederholung mit
+ * anderem Inhalt erhält nicht die gespeicherte Antwort, sondern eine {@link KeyReusedException}.
+ * <p>
+ * Da alle Einträge dieselbe Lebensdauer haben, werden sie in Einfügereihenfolge verdrängt:
+ * zuerst abgelaufene Einträge, bei Überschreiten der Maximalgröße die ältesten abgeschlossenen.
+ */
+public final class IdempotencyCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    public IdempotencyCache(int maxEntries, long ttlSeconds) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, ttlSeconds));
+    }
+
+    /**
+     * Beansprucht einen Schlüssel für die aktuelle Anfrage.
+     *
+     * @param key Der Idempotency-Key (inkl. Geltungsbereich)
+     * @param fingerprint Fingerabdruck des Anfrageinhalts
+     * @return null wenn der Aufrufer die Anfrage verarbeiten und anschließend {@link #complete} bzw.
+     *         {@link #abandon} aufrufen muss, sonst das Future der ursprünglichen Antwort
+     * @throws KeyReusedException wenn der Schlüssel für eine Anfrage mit anderem Inhalt vergeben ist
+     */
+    public CompletableFuture<StoredResponse> claim(String key, String fingerprint) {
+        long now = System.nanoTime();
+        Entry candidate = new Entry(key, fingerprint, now);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, candidate);
+            if (existing == null) {
+                insertionOrder.add(candidate);
+                evict(now);
+                return null;
+            }
+            if (!existing.isExpired(now, ttlNanos)) {
+                if (!existing.fingerprint.equals(fingerprint)) {
+                    throw new KeyReusedException(key);
+                }
+                return existing.response;
+            }
+            if (entries.replace(key, existing, candidate)) {
+                insertionOrder.add(candidate);
+                evict(now);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Speichert die Antwort zu einem beanspruchten Schlüssel und gibt wartende Wiederholungen frei.
+     */
+    public void complete(String key, StoredResponse response) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.response.complete(response);
+        }
+    }
+
+    /**
+     * Gibt einen beanspruchten Schlüssel ohne gespeicherte Antwort frei, z.B. bei Überlast,
+     * damit eine spätere Wiederholung erneut verarbeitet wird.
+     */
+    public void abandon(String key, Throwable cause) {
+        Entry entry = entries.get(key);
+        if (entry != null && entries.remove(key, entry)) {
+            entry.response.completeExceptionally(cause);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        Entry oldest;
+        while ((oldest = insertionOrder.peek()) != null
+                && (entries.size() > maxEntries || oldest.isExpired(now, ttlNanos))) {
+            // Laufende Anfragen nicht verdrängen, sonst warten Wiederholungen vergeblich
+            if (!oldest.response.isDone() && !oldest.isExpired(now, ttlNanos)) {
+                return;
+            }
+            if (insertionOrder.remove(oldest)) {
+                entries.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    /**
+     * Gespeicherte HTTP-Antwort: Statuscode und JSON-Body.
+     */
+    public static final class StoredResponse {
+        private final int status;
+        private final String body;
+
+        public StoredResponse(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public int getStatus() { return status; }
+
+        public String getBody() { return body; }
+    }
+
+    /**
+     * Der Idempotency-Key wurde bereits für eine Anfrage mit anderem Inhalt verwendet.
+     */
+    public static final class KeyReusedException extends RuntimeException {
+        public KeyReusedException(String key) {
+            super("Idempotency-Key bereits für eine andere Anfrage verwendet: " + key);
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final String fingerprint;
+        private final long createdAt;
+        private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+
+        private Entry(String key, String fingerprint, long createdAt) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.createdAt = createdAt;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return now - createdAt > ttlNanos;
+        }
+    }
+}
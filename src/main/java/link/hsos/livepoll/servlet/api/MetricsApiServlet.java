@@ -0,0 +1,41 @@
+package link.hsos.livepoll.servlet.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import link.hsos.livepoll.service.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+/**
+ * Servlet zur Bereitstellung der Laufzeitmetriken (z.B. Shards und Warteschlangentiefe der Vote-Pipeline).
+ *
+ * <p>Unterstützt GET-Anfragen und liefert alle Metriken als JSON-Objekt.
+ * Der Zugriff erfordert eine Anmeldung (AuthenticationFilter).
+ */
+@WebServlet({"/api/metrics", "/api/metrics/"})
+public class MetricsApiServlet extends HttpServlet {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsApiServlet.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+
+        try {
+            objectMapper.writeValue(response.getWriter(), MetricsRegistry.getInstance().snapshot());
+        } catch (Exception e) {
+            logger.error("Fehler beim Auslesen der Metriken", e);
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            objectMapper.writeValue(response.getWriter(), Map.of("error", "Interner Server-Fehler"));
+        }
+    }
+}
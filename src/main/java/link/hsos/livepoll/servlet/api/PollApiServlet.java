@@ -1,37 +1,123 @@
 package link.hsos.livepoll.servlet.api;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import link.hsos.livepoll.config.LivePollConfig;
+import link.hsos.livepoll.config.ThreadFactories;
 import link.hsos.livepoll.model.Poll;
 import link.hsos.livepoll.model.PollType;
+import link.hsos.livepoll.repository.PollDAO;
 
+import link.hsos.livepoll.service.PollPage;
 import link.hsos.livepoll.service.PollService;
+import link.hsos.livepoll.service.PollSnapshot;
+import link.hsos.livepoll.service.VoteBatch;
+import link.hsos.livepoll.service.VoteOutcome;
+import link.hsos.livepoll.service.VoteResult;
+import link.hsos.livepoll.service.helper.VoteQueueFullException;
+import link.hsos.livepoll.service.helper.VoteRateLimitedException;
+import link.hsos.livepoll.service.metrics.MetricsRegistry;
 import link.hsos.livepoll.repository.VoteDAO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 /**
  * RESTful Web Service Servlet für die Verwaltung von Live-Poll-Umfragen.
  */
-@WebServlet({"/api/polls", "/api/polls/", "/api/polls/*"})
+@WebServlet(urlPatterns = {"/api/polls", "/api/polls/", "/api/polls/*"}, asyncSupported = true)
 public class PollApiServlet extends HttpServlet {
     
     private static final Logger logger = LoggerFactory.getLogger(PollApiServlet.class);
     private static final ObjectMapper objectMapper = new ObjectMapper();
     private static final XmlMapper xmlMapper = new XmlMapper();
     private static final PollService pollService = PollService.getInstance();
+    private static final IdempotencyCache idempotencyCache = new IdempotencyCache(
+            LivePollConfig.getInt("idempotency.cache.max.entries", 50000),
+            LivePollConfig.getLong("idempotency.cache.ttl.seconds", 600));
+    private static final long IDEMPOTENCY_WAIT_SECONDS = 10;
+    private static final int BATCH_CHUNK_SIZE = Math.max(1, LivePollConfig.getInt("vote.batch.chunk.size", 500));
+    private static final int BATCH_MAX_ENTRIES = LivePollConfig.getInt("vote.batch.max.entries", 20000);
+    private static final long ASYNC_TIMEOUT_MS = LivePollConfig.getLong("api.async.timeout.ms", 30000);
+    private static final int BUSY_RETRY_AFTER_SECONDS = 1;
+    private static final long LONG_POLL_TIMEOUT_MS = LivePollConfig.getLong("api.longpoll.timeout.ms", 30000);
+    private static final ThreadPoolExecutor apiExecutor = createApiExecutor();
+    private static final LongAdder rejectedRequests = MetricsRegistry.getInstance().counter("api.executor.rejected");
+    private static final PollEventStreams eventStreams = new PollEventStreams(pollService);
+    // Cache-Control je Endpunkt: Antworten dürfen gespeichert, aber nur nach Revalidierung per ETag verwendet werden
+    private static final String CACHE_PUBLIC = "public, no-cache";
+    private static final String CACHE_PRIVATE = "private, no-cache";
+    private static final String CACHE_NONE = "private, no-store";
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    /**
+     * Executor für Stimmabgaben und lesende Anfragen. Ist die Warteschlange voll, wird die Aufgabe
+     * abgewiesen und die Anfrage mit 503 beantwortet, damit Container- und Writer-Threads nie selbst
+     * Anfragen abarbeiten.
+     */
+    private static ThreadPoolExecutor createApiExecutor() {
+        int threads = Math.max(1, LivePollConfig.getInt("api.executor.threads", 32));
+        int capacity = Math.max(1, LivePollConfig.getInt("api.executor.queue.capacity", 10000));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacity), ThreadFactories.named("api-worker"),
+                new ThreadPoolExecutor.AbortPolicy());
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.gauge("api.executor.active", executor::getActiveCount);
+        metrics.gauge("api.executor.queue.depth", () -> executor.getQueue().size());
+        return executor;
+    }
+
+    /**
+     * Schließt beim Entladen des Servlets die SSE-Streams und fährt den API-Executor herunter.
+     * Bereits angenommene Anfragen werden noch bis zu 5 Sekunden lang beantwortet.
+     */
+    @Override
+    public void destroy() {
+        eventStreams.shutdown();
+        apiExecutor.shutdown();
+        try {
+            if (!apiExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                apiExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            apiExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        super.destroy();
+    }
     /**
      * Verarbeitet HTTP GET-Requests für das Abrufen von Umfrage-Daten.
      *
@@ -45,124 +131,232 @@ public class PollApiServlet extends HttpServlet {
             throws ServletException, IOException {
         
         String pathInfo = request.getPathInfo();
-        String createdBy = (String) request.getAttribute("createdBy");
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
-        
+
+        // Lesende Anfragen laufen auf dem API-Executor, der Container-Thread wird sofort frei.
+        // Long-Polling registriert sich nur und wartet anschließend ohne Thread auf Änderungen.
+        if (request.isAsyncSupported() && !isLongPollingPath(pathInfo)) {
+            AsyncContext asyncContext = startAsync(request);
+            try {
+                apiExecutor.execute(() -> {
+                    try {
+                        processGetRequest(pathInfo, request, response);
+                    } catch (IOException e) {
+                        logger.warn("Antwort auf GET-Request konnte nicht geschrieben werden: {}", e.getMessage());
+                    } finally {
+                        completeQuietly(asyncContext);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                try {
+                    sendServerBusy(response);
+                } finally {
+                    completeQuietly(asyncContext);
+                }
+            }
+            return;
+        }
+        processGetRequest(pathInfo, request, response);
+    }
+
+    private void processGetRequest(String pathInfo, HttpServletRequest request, HttpServletResponse response) throws IOException {
         try {
-            handleGetRequest(pathInfo, response);
+            handleGetRequest(pathInfo, request, response);
         } catch (Exception e) {
             logger.error("Fehler beim GET-Request", e);
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             objectMapper.writeValue(response.getWriter(), Map.of("error", "Interner Server-Fehler: " + e.getMessage()));
         }
     }
+
+    /**
+     * Long-Polling- und SSE-Anfragen starten bei Bedarf selbst die asynchrone Verarbeitung und belegen
+     * während des Wartens weder Container-Thread noch API-Executor.
+     */
+    private boolean isLongPollingPath(String pathInfo) {
+        return pathInfo != null && pathInfo.matches("/[^/]+/(wait|stream)");
+    }
     /**
      * Zentrale Request-Routing-Methode für GET-Anfragen.
      * Analysiert den Pfad und delegiert an entsprechende Handler-Methoden.
      *
      * @param pathInfo der Pfad-Teil der URL nach dem Servlet-Mapping
+     * @param request HTTP-Request, u.a. für bedingte Anfragen per If-None-Match
      * @param response HTTP-Response-Objekt für die Ausgabe
      * @throws IOException bei Fehlern
      */
-    private void handleGetRequest(String pathInfo, HttpServletResponse response) throws IOException {
+    private void handleGetRequest(String pathInfo, HttpServletRequest request, HttpServletResponse response) throws IOException {
         if (pathInfo == null || pathInfo.equals("/")) {
-            handleGetAllPolls(response);
+            handleGetAllPolls(request, response);
         } else if (pathInfo.equals("/active")) {
-            handleGetActivePolls(response);
+            handleGetActivePolls(request, response);
+        } else if (pathInfo.equals("/active/stream")) {
+            handleEventStream(null, request, response);
         } else if (pathInfo.equals("/active/wait")) {
-            handleGetActivePollsWithLongPolling(response);
+            handleGetActivePollsWithLongPolling(request, response);
         } else if (pathInfo.matches("/[^/]+/results")) {
-            handleGetPollResults(pathInfo, response);
+            handleGetPollResults(pathInfo, request, response);
         } else if (pathInfo.matches("/[^/]+/history")) {
             handleGetPollHistory(pathInfo, response);
         } else if (pathInfo.matches("/[^/]+/export.csv")) {
             handleExportPollToCSV(pathInfo, response);
         } else if (pathInfo.matches("/[^/]+/export.xml")) {
             handleExportPollToXML(pathInfo, response);
+        } else if (pathInfo.matches("/[^/]+/stream")) {
+            handleEventStream(pathInfo.substring(1, pathInfo.lastIndexOf("/")), request, response);
         } else if (pathInfo.matches("/[^/]+/wait")) {
-            handleGetPollWithLongPolling(pathInfo, response);
+            handleGetPollWithLongPolling(pathInfo, request, response);
         } else if (pathInfo.matches("/[^/]+")) {
-            handleGetPollById(pathInfo, response);
+            handleGetPollById(pathInfo, request, response);
         } else if (pathInfo.matches("/shortcode/[^/]+")) {
-            handleGetPollByShortCode(pathInfo, response);
+            handleGetPollByShortCode(pathInfo, request, response);
         } else {
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             objectMapper.writeValue(response.getWriter(), Map.of("error", "Ungültiger Pfad"));
         }
     }
     
-    private void handleGetAllPolls(HttpServletResponse response) throws IOException {
-        List<Poll> polls = pollService.getAllPolls();
-        List<PollResponse> pollResponses = polls.stream()
-                .map(PollResponse::new)
-                .collect(java.util.stream.Collectors.toList());
-        objectMapper.writeValue(response.getWriter(), pollResponses);
+    private void handleGetAllPolls(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (isPageRequest(request)) {
+            handleGetPollPage(request, response);
+            return;
+        }
+        List<PollSnapshot> snapshots = pollService.getAllPollSnapshots();
+        if (!isNotModified(request, response, listEntityTag("all", snapshots), CACHE_PRIVATE)) {
+            writePollArray(response, snapshots);
+        }
     }
     
-    private void handleGetActivePolls(HttpServletResponse response) throws IOException {
-        List<Poll> activePolls = pollService.getActivePolls();
-        List<PollResponse> pollResponses = activePolls.stream()
-                .map(PollResponse::new)
-                .collect(java.util.stream.Collectors.toList());
-        objectMapper.writeValue(response.getWriter(), pollResponses);
+    private static boolean isPageRequest(HttpServletRequest request) {
+        return request.getParameter("createdBy") != null || request.getParameter("after") != null
+                || request.getParameter("limit") != null || request.getParameter("view") != null;
     }
+
     /**
-     * Implementiert Long Polling für aktive Umfragen mit Echtzeit-Updates.
-     * @param response HTTP-Response für Long Polling
-     * @throws IOException bei Verbindungsfehlern oder Timeout
+     * Liefert eine Seite der Umfrageliste per Keyset-Paginierung:
+     * {@code GET /api/polls?createdBy=me&after=<cursor>&limit=50&view=summary}.
+     * Die Antwort enthält die Umfragen und den Cursor für die nächste Seite ({@code nextCursor}, null auf der letzten Seite).
+     * Mit {@code view=summary} werden die Umfragen ohne Antwortoptionen geliefert.
+     *
+     * @param request HTTP-Request mit den Query-Parametern
+     * @param response HTTP-Response für die JSON-Ausgabe
+     * @throws IOException bei Fehlern
      */
-    private void handleGetActivePollsWithLongPolling(HttpServletResponse response) throws IOException {
-        logger.info("Long Polling Request für aktive Polls");
-        
-        response.setHeader("Cache-Control", "no-cache");
-        response.setHeader("Connection", "keep-alive");
-        
-        List<Poll> initialActivePolls = pollService.getActivePolls();
-        int initialCount = initialActivePolls.size();
-        logger.info("Initiale Anzahl aktiver Polls: {}", initialCount);
-        
-        long startTime = System.currentTimeMillis();
-        long timeout = 30000; // 30 Sekunden
-        
-        while (System.currentTimeMillis() - startTime < timeout) {
-            List<Poll> currentActivePolls = pollService.getActivePolls();
-            int currentCount = currentActivePolls.size();
-            
-            // Prüfe ob sich die Anzahl oder der Status geändert hat
-            if (currentCount != initialCount || hasActivePollsChanged(initialActivePolls, currentActivePolls)) {
-                logger.info("Änderung bei aktiven Polls erkannt: {} -> {}", initialCount, currentCount);
-                List<PollResponse> pollResponses = currentActivePolls.stream()
-                        .map(PollResponse::new)
-                        .collect(java.util.stream.Collectors.toList());
-                objectMapper.writeValue(response.getWriter(), pollResponses);
+    private void handleGetPollPage(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String createdBy = request.getParameter("createdBy");
+        if (createdBy != null) {
+            if (!"me".equals(createdBy)) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                objectMapper.writeValue(response.getWriter(), Map.of("error", "createdBy unterstützt nur 'me'"));
                 return;
             }
-            
+            createdBy = (String) request.getAttribute("createdBy");
+            if (createdBy == null) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                objectMapper.writeValue(response.getWriter(), Map.of("error", "Nicht angemeldet"));
+                return;
+            }
+        }
+
+        int limit = DEFAULT_PAGE_SIZE;
+        String limitParam = request.getParameter("limit");
+        if (limitParam != null) {
             try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
+                limit = Integer.parseInt(limitParam);
+            } catch (NumberFormatException e) {
+                limit = 0;
+            }
+            if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                objectMapper.writeValue(response.getWriter(),
+                        Map.of("error", "limit muss zwischen 1 und " + MAX_PAGE_SIZE + " liegen"));
+                return;
             }
         }
 
-        List<Poll> currentActivePolls = pollService.getActivePolls();
-        List<PollResponse> pollResponses = currentActivePolls.stream()
-                .map(PollResponse::new)
-                .collect(java.util.stream.Collectors.toList());
-        objectMapper.writeValue(response.getWriter(), pollResponses);
+        PollPage page;
+        try {
+            page = pollService.getPollPage(createdBy, request.getParameter("after"), limit);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            objectMapper.writeValue(response.getWriter(), Map.of("error", "Ungültiger Cursor"));
+            return;
+        }
+        response.setHeader("Cache-Control", CACHE_PRIVATE);
+
+        if ("summary".equals(request.getParameter("view"))) {
+            List<PollSummaryResponse> polls = new ArrayList<>(page.getPolls().size());
+            for (PollDAO.PollSummary summary : page.getPolls()) {
+                polls.add(new PollSummaryResponse(summary));
+            }
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("polls", polls);
+            body.put("nextCursor", page.getNextCursor());
+            writeJsonBytes(response, toJsonBytes(body));
+            return;
+        }
+
+        List<String> pollIds = new ArrayList<>(page.getPolls().size());
+        for (PollDAO.PollSummary summary : page.getPolls()) {
+            pollIds.add(summary.getId());
+        }
+        byte[] prefix = "{\"polls\":".getBytes(StandardCharsets.UTF_8);
+        byte[] suffix = (",\"nextCursor\":" + new String(toJsonBytes(page.getNextCursor()), StandardCharsets.UTF_8) + "}")
+                .getBytes(StandardCharsets.UTF_8);
+        writePollArray(response, pollService.getPollSnapshots(pollIds), prefix, suffix);
+    }
+
+    private void handleGetActivePolls(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String etag = "\"" + pollService.getActivePollsTag() + "\"";
+        if (!isNotModified(request, response, etag, CACHE_PRIVATE)) {
+            writePollArray(response, pollService.getActivePollSnapshots());
+        }
+    }
+    /**
+     * Long Polling für die Liste der aktiven Umfragen. Die Anfrage wartet ohne Thread und ohne
+     * Datenbankabfrage, bis sich eine Umfrage ändert oder neue Stimmen eingehen, höchstens aber
+     * bis zum Timeout, und liefert dann die aktuelle Liste.
+     * <p>
+     * Der Parameter {@code since} enthält den Header X-Poll-Version der letzten Antwort.
+     * Weicht der aktuelle Stand davon ab, wird sofort geantwortet.
+     *
+     * @param request HTTP-Request mit optionalem Parameter since
+     * @param response HTTP-Response für Long Polling
+     * @throws IOException bei Verbindungsfehlern
+     */
+    private void handleGetActivePollsWithLongPolling(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        logger.debug("Long Polling Request für aktive Polls");
+        response.setHeader("Cache-Control", "no-cache");
+
+        awaitChange(request, new LongPollWait(
+                pollService::awaitAnyPollChange,
+                pollService::getActivePollsTag,
+                () -> {
+                    response.setHeader("X-Poll-Version", pollService.getActivePollsTag());
+                    writePollArray(response, pollService.getActivePollSnapshots());
+                }));
     }
     
-    private void handleGetPollResults(String pathInfo, HttpServletResponse response) throws IOException {
+    private void handleGetPollResults(String pathInfo, HttpServletRequest request, HttpServletResponse response) throws IOException {
         String pollId = pathInfo.substring(1, pathInfo.lastIndexOf("/"));
-        Map<String, Integer> results = pollService.getPollResults(pollId);
-        objectMapper.writeValue(response.getWriter(), results);
+        Optional<PollSnapshot> snapshot = pollService.getPollSnapshot(pollId);
+
+        if (snapshot.isPresent()) {
+            String etag = "\"" + snapshot.get().getEntityTag() + "-results\"";
+            if (!isNotModified(request, response, etag, CACHE_PRIVATE)) {
+                writeJsonBytes(response, snapshot.get().getResultsJson(PollApiServlet::renderResults));
+            }
+        } else {
+            logger.warn("Poll nicht gefunden für Ergebnisse: {}", pollId);
+            objectMapper.writeValue(response.getWriter(), Map.of());
+        }
     }
     
     private void handleGetPollHistory(String pathInfo, HttpServletResponse response) throws IOException {
         String pollId = pathInfo.substring(1, pathInfo.lastIndexOf("/"));
         List<VoteDAO.VoteRecord> history = pollService.getVoteHistory(pollId);
+        response.setHeader("Cache-Control", CACHE_NONE);
         objectMapper.writeValue(response.getWriter(), history);
     }
     
@@ -170,6 +364,7 @@ public class PollApiServlet extends HttpServlet {
         String pollId = pathInfo.substring(1, pathInfo.lastIndexOf("/"));
         String csv = pollService.exportPollHistoryToCSV(pollId);
 
+        response.setHeader("Cache-Control", CACHE_NONE);
         response.setContentType("text/csv");
         response.setCharacterEncoding("UTF-8");
         response.setHeader("Content-Disposition",
@@ -187,6 +382,7 @@ public class PollApiServlet extends HttpServlet {
             TemplatePollXml templatePollXml = new TemplatePollXml(poll.get());
             String xml = xmlMapper.writeValueAsString(templatePollXml);
 
+            response.setHeader("Cache-Control", CACHE_NONE);
             response.setContentType("application/xml");
             response.setCharacterEncoding("UTF-8");
             response.setHeader("Content-Disposition",
@@ -199,77 +395,162 @@ public class PollApiServlet extends HttpServlet {
         }
     }
     
-    private void handleGetPollWithLongPolling(String pathInfo, HttpServletResponse response) throws IOException {
+    /**
+     * Long Polling für Status-Änderungen einer Umfrage. Die Anfrage wartet ohne Thread und ohne
+     * Datenbankabfrage, bis sich Status, Frage oder Optionen ändern, höchstens aber bis zum Timeout,
+     * und liefert dann den aktuellen Stand. Neue Stimmen beenden das Warten nicht.
+     * <p>
+     * Der Parameter {@code since} enthält den Header X-Poll-Version der letzten Antwort.
+     * Weicht der aktuelle Stand davon ab, wird sofort geantwortet.
+     *
+     * @param pathInfo Pfad der Form /{id}/wait
+     * @param request HTTP-Request mit optionalem Parameter since
+     * @param response HTTP-Response für Long Polling
+     * @throws IOException bei Verbindungsfehlern
+     */
+    private void handleGetPollWithLongPolling(String pathInfo, HttpServletRequest request, HttpServletResponse response) throws IOException {
         String pollId = pathInfo.substring(1, pathInfo.lastIndexOf("/"));
-        logger.info("Long Polling Request für Status-Änderungen: {}", pollId);
-        
+        logger.debug("Long Polling Request für Status-Änderungen: {}", pollId);
         response.setHeader("Cache-Control", "no-cache");
-        response.setHeader("Connection", "keep-alive");
-        
-        Optional<Poll> currentPollOpt = pollService.getPoll(pollId);
-        if (currentPollOpt.isEmpty()) {
+
+        if (pollService.getPollSnapshot(pollId).isEmpty()) {
             response.setStatus(HttpServletResponse.SC_NOT_FOUND);
             objectMapper.writeValue(response.getWriter(), Map.of("error", "Poll nicht gefunden"));
             return;
         }
-        
-        Poll currentPoll = currentPollOpt.get();
-        String initialStatus = currentPoll.getStatus().name();
-        logger.info("Initialer Status für Poll {}: {}", pollId, initialStatus);
-        
-        long startTime = System.currentTimeMillis();
-        long timeout = 30000; // 30 Sekunden
-        
-        while (System.currentTimeMillis() - startTime < timeout) {
-            Optional<Poll> pollOpt = pollService.getPoll(pollId);
-            if (pollOpt.isPresent()) {
-                Poll poll = pollOpt.get();
-                if (!poll.getStatus().name().equals(initialStatus)) {
-                    logger.info("Status-Änderung erkannt: {} -> {}", initialStatus, poll.getStatus().name());
-                    PollResponse pollResponse = new PollResponse(poll);
-                    objectMapper.writeValue(response.getWriter(), pollResponse);
-                    return;
-                }
-            }
-            
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            }
+
+        awaitChange(request, new LongPollWait(
+                () -> pollService.awaitPollChange(pollId),
+                () -> pollService.getPollSnapshot(pollId).map(PollSnapshot::getStructureTag).orElse(""),
+                () -> {
+                    Optional<PollSnapshot> snapshot = pollService.getPollSnapshot(pollId);
+                    if (snapshot.isPresent()) {
+                        response.setHeader("X-Poll-Version", snapshot.get().getStructureTag());
+                        writeJsonBytes(response, snapshot.get().getPollJson(PollApiServlet::renderPoll));
+                    } else {
+                        response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                        objectMapper.writeValue(response.getWriter(), Map.of("error", "Poll nicht gefunden"));
+                    }
+                }));
+    }
+
+    /**
+     * Öffnet einen Server-Sent-Events-Stream für eine Umfrage bzw. für die aktiven Umfragen (pollId null).
+     * Nach einem Verbindungsabbruch setzt der Browser den Stream mit dem Header Last-Event-ID fort.
+     *
+     * @param pollId Die ID der Umfrage oder null für die Liste der aktiven Umfragen
+     * @param request HTTP-Request, ggf. mit Header Last-Event-ID
+     * @param response HTTP-Response, die als Stream offen bleibt
+     * @throws IOException bei Fehlern beim Schreiben der Fehlerantwort
+     */
+    private void handleEventStream(String pollId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!request.isAsyncSupported() || !eventStreams.hasCapacity()) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "5");
+            objectMapper.writeValue(response.getWriter(), Map.of("error", "Event-Stream derzeit nicht verfügbar"));
+            return;
         }
-        
-        Optional<Poll> pollOpt = pollService.getPoll(pollId);
-        if (pollOpt.isPresent()) {
-            PollResponse pollResponse = new PollResponse(pollOpt.get());
-            objectMapper.writeValue(response.getWriter(), pollResponse);
-        } else {
+        if (pollId != null && pollService.getPollSnapshot(pollId).isEmpty()) {
             response.setStatus(HttpServletResponse.SC_NOT_FOUND);
             objectMapper.writeValue(response.getWriter(), Map.of("error", "Poll nicht gefunden"));
+            return;
+        }
+
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        // Verhindert das Puffern des Streams in Reverse-Proxies wie nginx
+        response.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(0);
+        String lastEventId = request.getHeader("Last-Event-ID");
+        if (pollId != null) {
+            eventStreams.openPollStream(pollId, asyncContext, lastEventId);
+        } else {
+            eventStreams.openActiveStream(asyncContext, lastEventId);
         }
     }
+
+    /**
+     * Wartet auf eine Änderung gegenüber dem Stand {@code since} bzw. dem Stand bei Eingang der Anfrage.
+     * Die Anfrage wird asynchron gehalten; die Antwort schreibt der API-Executor, sobald eine Änderung
+     * gemeldet wird oder das Timeout abläuft.
+     */
+    private void awaitChange(HttpServletRequest request, LongPollWait wait) throws IOException {
+        // Erst registrieren, dann vergleichen: Änderungen dazwischen wecken das Future sofort
+        CompletableFuture<Void> change = wait.register.get();
+        String current = wait.currentVersion.get();
+        String since = request.getParameter("since");
+
+        if ((since != null && !since.equals(current)) || !request.isAsyncSupported()) {
+            change.cancel(false);
+            wait.reply.write();
+            return;
+        }
+
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(LONG_POLL_TIMEOUT_MS + ASYNC_TIMEOUT_MS);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LONG_POLL_TIMEOUT_MS);
+        continueWaiting(asyncContext, wait, current, change, deadline);
+    }
+
+    /**
+     * Wartet weiter, solange eine gemeldete Änderung den beobachteten Stand nicht betrifft,
+     * z.B. wenn sich eine andere Umfrage geändert hat.
+     */
+    private void continueWaiting(AsyncContext asyncContext, LongPollWait wait, String baseline,
+                                 CompletableFuture<Void> change, long deadline) {
+        change.orTimeout(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+                .whenCompleteAsync((ignored, error) -> {
+                    try {
+                        if (error == null && deadline - System.nanoTime() > 0) {
+                            CompletableFuture<Void> next = wait.register.get();
+                            if (wait.currentVersion.get().equals(baseline)) {
+                                continueWaiting(asyncContext, wait, baseline, next, deadline);
+                                return;
+                            }
+                            next.cancel(false);
+                        }
+                        wait.reply.write();
+                    } catch (IOException | RuntimeException e) {
+                        logger.warn("Long-Polling-Antwort konnte nicht geschrieben werden: {}", e.getMessage());
+                    }
+                    completeQuietly(asyncContext);
+                }, apiExecutor)
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    // Timeouts und Abbrüche von change beantwortet bereits der API-Executor
+                    if (cause instanceof RejectedExecutionException) {
+                        try {
+                            sendServerBusy((HttpServletResponse) asyncContext.getResponse());
+                        } catch (IOException | RuntimeException e) {
+                            logger.warn("Long-Polling-Antwort konnte nicht geschrieben werden: {}", e.getMessage());
+                        }
+                        completeQuietly(asyncContext);
+                    }
+                    return null;
+                });
+    }
     
-    private void handleGetPollById(String pathInfo, HttpServletResponse response) throws IOException {
+    private void handleGetPollById(String pathInfo, HttpServletRequest request, HttpServletResponse response) throws IOException {
         String pollId = pathInfo.substring(1);
-        Optional<Poll> poll = pollService.getPoll(pollId);
+        Optional<PollSnapshot> snapshot = pollService.getPollSnapshot(pollId);
         
-        if (poll.isPresent()) {
-            PollResponse pollResponse = new PollResponse(poll.get());
-            objectMapper.writeValue(response.getWriter(), pollResponse);
+        if (snapshot.isPresent()) {
+            writePollSnapshot(request, response, snapshot.get());
         } else {
             response.setStatus(HttpServletResponse.SC_NOT_FOUND);
             objectMapper.writeValue(response.getWriter(), Map.of("error", "Poll nicht gefunden"));
         }
     }
     
-    private void handleGetPollByShortCode(String pathInfo, HttpServletResponse response) throws IOException {
+    private void handleGetPollByShortCode(String pathInfo, HttpServletRequest request, HttpServletResponse response) throws IOException {
         String shortCode = pathInfo.substring(pathInfo.lastIndexOf("/") + 1);
-        Optional<Poll> pollOpt = pollService.getPollByShortCode(shortCode);
+        Optional<PollSnapshot> snapshot = pollService.getPollSnapshotByShortCode(shortCode);
 
-        if (pollOpt.isPresent()) {
-            PollResponse pollResponse = new PollResponse(pollOpt.get());
-            objectMapper.writeValue(response.getWriter(), pollResponse);
+        if (snapshot.isPresent()) {
+            writePollSnapshot(request, response, snapshot.get());
         } else {
             response.setStatus(HttpServletResponse.SC_NOT_FOUND);
             objectMapper.writeValue(response.getWriter(), Map.of("error", "Poll mit Short-Code nicht gefunden"));
@@ -291,9 +572,45 @@ public class PollApiServlet extends HttpServlet {
         String createdBy = (String) request.getAttribute("createdBy");
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
-        
+
+        if (pathInfo != null && (pathInfo.matches("/[^/]+/vote") || pathInfo.matches("/[^/]+/vote-multiple"))) {
+            handleVoteAsync(pathInfo, request, response);
+            return;
+        }
+
+        // Sammelabgaben lesen und prüfen einen großen Body, das übernimmt der API-Executor
+        if (request.isAsyncSupported() && pathInfo != null && pathInfo.matches("/[^/]+/votes:batch")) {
+            AsyncContext asyncContext = startAsync(request);
+            try {
+                apiExecutor.execute(() -> {
+                    try {
+                        processPostRequest(pathInfo, request, response, createdBy);
+                    } catch (IOException e) {
+                        logger.warn("Antwort auf Sammelabgabe konnte nicht geschrieben werden: {}", e.getMessage());
+                    } finally {
+                        completeQuietly(asyncContext);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                try {
+                    sendServerBusy(response);
+                } finally {
+                    completeQuietly(asyncContext);
+                }
+            }
+            return;
+        }
+        processPostRequest(pathInfo, request, response, createdBy);
+    }
+
+    private void processPostRequest(String pathInfo, HttpServletRequest request, HttpServletResponse response,
+                                    String createdBy) throws IOException {
         try {
             handlePostRequest(pathInfo, request, response, createdBy);
+        } catch (VoteQueueFullException e) {
+            sendVotingOverloaded(response, e);
+        } catch (VoteRateLimitedException e) {
+            sendRateLimited(response, e);
         } catch (Exception e) {
             logger.error("Fehler beim POST-Request", e);
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -313,12 +630,10 @@ public class PollApiServlet extends HttpServlet {
     private void handlePostRequest(String pathInfo, HttpServletRequest request, HttpServletResponse response, String createdBy) throws IOException {
         if (pathInfo == null || pathInfo.equals("/")) {
             handleCreatePoll(request, response, createdBy);
-        } else if (pathInfo.matches("/[^/]+/vote")) {
-            handleVote(pathInfo, request, response);
-        } else if (pathInfo.matches("/[^/]+/vote-multiple")) {
-            handleMultipleVote(pathInfo, request, response);
+        } else if (pathInfo.matches("/[^/]+/votes:batch")) {
+            handleBatchVote(pathInfo, request, response);
         } else if (pathInfo.matches("/shortcode/[^/]+")) {
-            handleGetPollByShortCode(pathInfo, response);
+            handleGetPollByShortCode(pathInfo, request, response);
         } else {
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             objectMapper.writeValue(response.getWriter(), Map.of("error", "Ungültiger Pfad"));
@@ -349,115 +664,566 @@ public class PollApiServlet extends HttpServlet {
         objectMapper.writeValue(response.getWriter(), pollResponse);
     }
     
-    private void handleVote(String pathInfo, HttpServletRequest request, HttpServletResponse response) throws IOException {
+    /**
+     * Verarbeitet eine Stimmabgabe asynchron als CompletableFuture-Kette auf dem API-Executor:
+     * Body parsen, Stimme prüfen und in die Vote-Pipeline einreihen, Antwort schreiben.
+     * Der Container-Thread wird sofort frei, und solange der Block mit der Stimme geschrieben wird,
+     * belegt die Anfrage überhaupt keinen Thread.
+     */
+    private void handleVoteAsync(String pathInfo, HttpServletRequest request, HttpServletResponse response) {
         String pollId = pathInfo.substring(1, pathInfo.lastIndexOf("/"));
-        logger.info("Vote-Request für Poll: {}", pollId);
+        boolean multiple = pathInfo.endsWith("/vote-multiple");
+        String idempotencyKey = request.getHeader("Idempotency-Key");
+        AsyncContext asyncContext = request.isAsyncSupported() ? startAsync(request) : null;
 
-        VoteRequest voteRequest = objectMapper.readValue(request.getReader(), VoteRequest.class);
-        logger.info("Vote-Daten: optionId={}, userId={}", voteRequest.getOptionId(), voteRequest.getUserId());
+        CompletableFuture<Void> done;
+        try {
+            done = CompletableFuture
+                    .supplyAsync(() -> parseVote(pollId, multiple, request), apiExecutor)
+                    .thenCompose(vote -> vote.rejection != null
+                            ? CompletableFuture.completedFuture(vote.rejection)
+                            : executeVote(pathInfo, response, idempotencyKey, pollId, vote.optionIds, vote.userId))
+                    .<Void>handleAsync((stored, error) -> {
+                        writeVoteReply(response, pollId, stored, error);
+                        return null;
+                    }, apiExecutor)
+                    // Nur erreichbar, wenn der API-Executor das Schreiben der Antwort abweist
+                    .exceptionally(error -> {
+                        writeVoteReply(response, pollId, null, error);
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            writeVoteReply(response, pollId, null, e);
+            done = CompletableFuture.completedFuture(null);
+        }
 
-        Optional<Poll> pollOpt = pollService.getPoll(pollId);
-        if (pollOpt.isEmpty()) {
-            logger.warn("Vote-Request für nicht existierenden Poll: {}", pollId);
-            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
-            objectMapper.writeValue(response.getWriter(), Map.of(
-                "error", "Poll nicht gefunden",
-                "pollId", pollId,
-                "errorCode", "POLL_NOT_FOUND"
-            ));
-            return;
+        if (asyncContext == null) {
+            done.join();
+        } else {
+            done.whenComplete((ignored, error) -> completeQuietly(asyncContext));
         }
+    }
 
-        Poll poll = pollOpt.get();
+    /**
+     * Liest den Body einer Stimmabgabe (vote bzw. vote-multiple).
+     */
+    private ParsedVote parseVote(String pollId, boolean multiple, HttpServletRequest request) {
+        try {
+            if (!multiple) {
+                VoteRequest voteRequest = objectMapper.readValue(request.getReader(), VoteRequest.class);
+                logger.info("Vote-Request für Poll {}: optionId={}, userId={}", pollId, voteRequest.getOptionId(), voteRequest.getUserId());
+                List<Long> optionIds = voteRequest.getOptionId() != null ? List.of(voteRequest.getOptionId()) : List.of();
+                return new ParsedVote(optionIds, voteRequest.getUserId(), null);
+            }
 
-        if (!poll.isActive()) {
-            logger.warn("Vote-Request für inaktiven Poll: {} (Status: {})", pollId, poll.getStatus());
-            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-            objectMapper.writeValue(response.getWriter(), Map.of(
-                "error", "Poll ist nicht aktiv",
-                "status", poll.getStatus().toString(),
-                "errorCode", "POLL_INACTIVE"
-            ));
+            VoteMultipleRequest voteRequest = objectMapper.readValue(request.getReader(), VoteMultipleRequest.class);
+            logger.info("Vote-Multiple-Request für Poll {}: optionIds={}, userId={}", pollId, voteRequest.getOptionIds(), voteRequest.getUserId());
+            if (voteRequest.getOptionIds() == null || voteRequest.getOptionIds().isEmpty()) {
+                return new ParsedVote(null, voteRequest.getUserId(), new IdempotencyCache.StoredResponse(
+                        HttpServletResponse.SC_BAD_REQUEST, toJson(Map.of(
+                            "error", "Keine Optionen angegeben",
+                            "pollId", pollId,
+                            "errorCode", "NO_OPTIONS"
+                        ))));
+            }
+            return new ParsedVote(voteRequest.getOptionIds(), voteRequest.getUserId(), null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Schreibt die Antwort auf eine Stimmabgabe bzw. den passenden Fehler.
+     */
+    private void writeVoteReply(HttpServletResponse response, String pollId,
+                                IdempotencyCache.StoredResponse stored, Throwable error) {
+        try {
+            if (error == null) {
+                writeStoredResponse(response, stored);
+                return;
+            }
+
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof VoteQueueFullException) {
+                sendVotingOverloaded(response, (VoteQueueFullException) cause);
+            } else if (cause instanceof RejectedExecutionException) {
+                sendServerBusy(response);
+            } else if (cause instanceof VoteRateLimitedException) {
+                sendRateLimited(response, (VoteRateLimitedException) cause);
+            } else if (cause instanceof UncheckedIOException && cause.getCause() instanceof JsonProcessingException) {
+                logger.warn("Ungültiger Body der Stimmabgabe für Poll {}: {}", pollId, cause.getCause().getMessage());
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                objectMapper.writeValue(response.getWriter(), Map.of(
+                    "error", "Ungültige Stimmabgabe",
+                    "pollId", pollId,
+                    "errorCode", "INVALID_REQUEST"
+                ));
+            } else {
+                logger.error("Fehler bei der Stimmabgabe für Poll {}", pollId, cause);
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                objectMapper.writeValue(response.getWriter(), Map.of("error", "Interner Server-Fehler: " + cause.getMessage()));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Antwort auf Stimmabgabe für Poll {} konnte nicht geschrieben werden: {}", pollId, e.getMessage());
+        }
+    }
+
+    /**
+     * Sammelabgabe für Kiosk- und Proxy-Clients. Der Body ist ein JSON-Array (oder ein Objekt mit
+     * Feld "votes") aus Einträgen {userId, signature, optionIds}. Er wird gestreamt gelesen und
+     * abschnittsweise verarbeitet, sodass auch Tausende Einträge nicht vollständig im Speicher liegen.
+     * Die Antwort enthält das Ergebnis je Eintrag.
+     */
+    private void handleBatchVote(String pathInfo, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String pollId = pathInfo.substring(1, pathInfo.lastIndexOf("/"));
+        logger.info("Sammelabgabe für Poll: {}", pollId);
+
+        VoteBatch batch = pollService.openVoteBatch(pollId);
+        if (!batch.isOpen()) {
+            writeStoredResponse(response, toVoteResponse(pollId, VoteResult.failed(batch.getFailure())));
             return;
         }
 
-        boolean optionExists = poll.getOptions().stream()
-            .anyMatch(option -> option.getId().equals(voteRequest.getOptionId()));
-        if (!optionExists) {
-            logger.warn("Vote-Request für nicht existierende Option: {} in Poll: {}", voteRequest.getOptionId(), pollId);
+        List<Map<String, Object>> entryResults = new ArrayList<>();
+        List<VoteBatch.Entry> chunk = new ArrayList<>(BATCH_CHUNK_SIZE);
+        try (JsonParser parser = objectMapper.getFactory().createParser(request.getInputStream())) {
+            if (!moveToVotesArray(parser)) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                objectMapper.writeValue(response.getWriter(), Map.of(
+                    "error", "Erwartet wird ein JSON-Array mit Stimmen",
+                    "pollId", pollId,
+                    "errorCode", "INVALID_BATCH"
+                ));
+                return;
+            }
+
+            int count = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new JsonParseException(parser, "Eintrag der Sammelabgabe ist kein JSON-Objekt");
+                }
+                if (++count > BATCH_MAX_ENTRIES) {
+                    submitBatchChunk(batch, chunk, entryResults);
+                    response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+                    writeBatchResponse(response, pollId, batch, entryResults, "BATCH_TOO_LARGE");
+                    return;
+                }
+                BatchVoteEntry entry = objectMapper.readValue(parser, BatchVoteEntry.class);
+                chunk.add(new VoteBatch.Entry(entry.getUserId(), entry.getSignature(), entry.getOptionIds()));
+                if (chunk.size() == BATCH_CHUNK_SIZE) {
+                    submitBatchChunk(batch, chunk, entryResults);
+                }
+            }
+            submitBatchChunk(batch, chunk, entryResults);
+            writeBatchResponse(response, pollId, batch, entryResults, null);
+        } catch (JsonProcessingException e) {
+            // Bereits verarbeitete Abschnitte bleiben gültig und werden gemeldet
+            logger.warn("Ungültiger Body der Sammelabgabe für Poll {}: {}", pollId, e.getOriginalMessage());
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-            objectMapper.writeValue(response.getWriter(), Map.of(
-                "error", "Option nicht gefunden",
-                "optionId", voteRequest.getOptionId(),
-                "errorCode", "OPTION_NOT_FOUND"
-            ));
+            writeBatchResponse(response, pollId, batch, entryResults, "MALFORMED_BATCH");
+        } finally {
+            batch.close();
+        }
+    }
+
+    /**
+     * Positioniert den Parser auf dem Beginn des Stimmen-Arrays.
+     *
+     * @return false wenn der Body weder ein Array noch ein Objekt mit Feld "votes" ist
+     */
+    private boolean moveToVotesArray(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            return true;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("votes".equals(field)) {
+                return value == JsonToken.START_ARRAY;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private void submitBatchChunk(VoteBatch batch, List<VoteBatch.Entry> chunk,
+                                  List<Map<String, Object>> entryResults) {
+        if (chunk.isEmpty()) {
             return;
         }
+        List<VoteOutcome> outcomes = batch.submit(chunk);
+        for (int i = 0; i < chunk.size(); i++) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("index", entryResults.size());
+            result.put("userId", chunk.get(i).getUserId());
+            result.put("status", toBatchStatus(outcomes.get(i)));
+            entryResults.add(result);
+        }
+        chunk.clear();
+    }
+
+    private void writeBatchResponse(HttpServletResponse response, String pollId, VoteBatch batch,
+                                    List<Map<String, Object>> entryResults, String errorCode) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("pollId", pollId);
+        if (errorCode != null) {
+            body.put("errorCode", errorCode);
+        }
+        body.put("accepted", batch.getAcceptedCount());
+        body.put("rejected", batch.getRejectedCount());
+        body.put("entries", entryResults);
+        body.put("results", batch.getResults());
+        objectMapper.writeValue(response.getWriter(), body);
+    }
 
-        boolean success = pollService.vote(pollId, voteRequest.getOptionId(), voteRequest.getUserId());
-        
-        if (success) {
-            Map<String, Integer> results = pollService.getPollResults(pollId);
+    /**
+     * Status eines Eintrags der Sammelabgabe, abgestimmt auf die errorCodes der Einzelabgabe.
+     */
+    private String toBatchStatus(VoteOutcome outcome) {
+        switch (outcome) {
+            case DUPLICATE:
+                return "ALREADY_VOTED";
+            case REJECTED:
+                return "VOTE_FAILED";
+            default:
+                return outcome.name();
+        }
+    }
+    /**
+     * Führt eine Stimmabgabe aus. Trägt die Anfrage einen Idempotency-Key, wird die Antwort
+     * zwischengespeichert und Wiederholungen mit demselben Schlüssel erhalten die ursprüngliche
+     * Antwort, ohne dass die Stimme erneut verarbeitet wird. Wird derselbe Schlüssel mit anderen
+     * Optionen verwendet, wird die Anfrage mit 422 abgewiesen.
+     * Gespeichert werden nur endgültige Ergebnisse. Bei REJECTED (z.B. Zeitüberschreitung beim Warten
+     * auf die Vote-Pipeline) kann die Stimme noch geschrieben werden; der Schlüssel wird deshalb
+     * freigegeben, damit eine Wiederholung das tatsächliche Ergebnis erhält.
+     */
+    private CompletableFuture<IdempotencyCache.StoredResponse> executeVote(String pathInfo, HttpServletResponse response,
+                                                                           String idempotencyKey, String pollId,
+                                                                           List<Long> optionIds, String userId) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return pollService.castVoteAsync(pollId, optionIds, userId)
+                    .thenApply(result -> toVoteResponse(pollId, result));
+        }
+
+        String cacheKey = pathInfo + "|" + userId + "|" + idempotencyKey.trim();
+        CompletableFuture<IdempotencyCache.StoredResponse> original;
+        try {
+            original = idempotencyCache.claim(cacheKey, voteFingerprint(optionIds));
+        } catch (IdempotencyCache.KeyReusedException e) {
+            logger.warn("Idempotency-Key für Poll {} mit anderen Optionen wiederverwendet: {}", pollId, optionIds);
+            return CompletableFuture.completedFuture(new IdempotencyCache.StoredResponse(422, toJson(Map.of(
+                "error", "Der Idempotency-Key wurde bereits für eine andere Stimmabgabe verwendet",
+                "pollId", pollId,
+                "errorCode", "IDEMPOTENCY_KEY_REUSED"
+            ))));
+        }
+        if (original != null) {
+            return replayVoteResponse(response, pollId, original);
+        }
+
+        CompletableFuture<VoteResult> vote;
+        try {
+            vote = pollService.castVoteAsync(pollId, optionIds, userId);
+        } catch (RuntimeException e) {
+            idempotencyCache.abandon(cacheKey, e);
+            throw e;
+        }
+        return vote.thenApply(result -> toVoteResponse(pollId, result))
+                .whenComplete((reply, error) -> {
+                    if (error != null) {
+                        idempotencyCache.abandon(cacheKey, error);
+                    } else if (vote.join().getOutcome() == VoteOutcome.REJECTED) {
+                        idempotencyCache.abandon(cacheKey, new IllegalStateException("Stimmabgabe ohne endgültiges Ergebnis"));
+                    } else {
+                        idempotencyCache.complete(cacheKey, reply);
+                    }
+                });
+    }
+
+    /**
+     * Fingerabdruck einer Stimmabgabe: SHA-256 über die sortierten Options-IDs.
+     */
+    private static String voteFingerprint(List<Long> optionIds) {
+        try {
+            String canonical = optionIds.stream().map(String::valueOf).sorted().collect(Collectors.joining(","));
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Beantwortet eine Wiederholung mit der Antwort der ursprünglichen Anfrage.
+     */
+    private CompletableFuture<IdempotencyCache.StoredResponse> replayVoteResponse(
+            HttpServletResponse response, String pollId, CompletableFuture<IdempotencyCache.StoredResponse> original) {
+        // Kopie, damit die Zeitüberschreitung nicht das gespeicherte Future selbst abschließt
+        return original.copy()
+                .orTimeout(IDEMPOTENCY_WAIT_SECONDS, TimeUnit.SECONDS)
+                .handle((stored, error) -> {
+                    if (error == null) {
+                        logger.info("Wiederholte Stimmabgabe für Poll {} mit gespeicherter Antwort beantwortet", pollId);
+                        response.setHeader("Idempotent-Replayed", "true");
+                        return stored;
+                    }
+                    // Ursprüngliche Anfrage ist fehlgeschlagen oder läuft noch
+                    response.setHeader("Retry-After", "1");
+                    return new IdempotencyCache.StoredResponse(HttpServletResponse.SC_CONFLICT, toJson(Map.of(
+                        "error", "Die ursprüngliche Anfrage mit diesem Idempotency-Key wurde nicht abgeschlossen",
+                        "pollId", pollId,
+                        "errorCode", "IDEMPOTENCY_KEY_IN_USE"
+                    )));
+                });
+    }
+
+    private void writeStoredResponse(HttpServletResponse response, IdempotencyCache.StoredResponse stored) throws IOException {
+        response.setStatus(stored.getStatus());
+        response.getWriter().write(stored.getBody());
+    }
+
+    /**
+     * Erzeugt die Antwort auf eine Stimmabgabe: bei Erfolg die aktuellen Ergebnisse,
+     * sonst eine Fehlermeldung mit passendem Statuscode und errorCode.
+     */
+    private IdempotencyCache.StoredResponse toVoteResponse(String pollId, VoteResult result) {
+        if (result.isAccepted()) {
             logger.info("Stimme erfolgreich abgegeben für Poll: {}", pollId);
-            objectMapper.writeValue(response.getWriter(), results);
-        } else {
-            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-            
-            String errorMessage = "Stimme konnte nicht abgegeben werden";
-            String errorCode = "VOTE_FAILED";
-            
-            if (pollService.hasUserAlreadyVoted(pollId, voteRequest.getUserId())) {
+            return new IdempotencyCache.StoredResponse(HttpServletResponse.SC_OK, toJson(result.getResults()));
+        }
+
+        int status = HttpServletResponse.SC_BAD_REQUEST;
+        String errorMessage;
+        String errorCode;
+        switch (result.getOutcome()) {
+            case POLL_NOT_FOUND:
+                status = HttpServletResponse.SC_NOT_FOUND;
+                errorMessage = "Poll nicht gefunden";
+                errorCode = "POLL_NOT_FOUND";
+                break;
+            case POLL_INACTIVE:
+                errorMessage = "Poll ist nicht aktiv";
+                errorCode = "POLL_INACTIVE";
+                break;
+            case OPTION_NOT_FOUND:
+                errorMessage = "Option nicht gefunden";
+                errorCode = "OPTION_NOT_FOUND";
+                break;
+            case DUPLICATE:
                 errorMessage = "Sie haben bereits für diese Umfrage gestimmt";
                 errorCode = "ALREADY_VOTED";
+                break;
+            default:
+                errorMessage = "Stimme konnte nicht abgegeben werden";
+                errorCode = "VOTE_FAILED";
+                break;
+        }
+
+        logger.warn("Stimme konnte nicht abgegeben werden für Poll: {} - {}", pollId, errorMessage);
+        return new IdempotencyCache.StoredResponse(status, toJson(Map.of(
+            "error", errorMessage,
+            "pollId", pollId,
+            "errorCode", errorCode
+        )));
+    }
+
+    /**
+     * Schreibt einen einzelnen Poll-Stand oder beantwortet die Anfrage mit 304, falls der Client ihn bereits kennt.
+     * Öffentliche Umfragen dürfen auch von geteilten Caches gespeichert werden.
+     */
+    private static void writePollSnapshot(HttpServletRequest request, HttpServletResponse response,
+                                          PollSnapshot snapshot) throws IOException {
+        String etag = "\"" + snapshot.getEntityTag() + "\"";
+        String cacheControl = snapshot.isPublic() ? CACHE_PUBLIC : CACHE_PRIVATE;
+        if (!isNotModified(request, response, etag, cacheControl)) {
+            writeJsonBytes(response, snapshot.getPollJson(PollApiServlet::renderPoll));
+        }
+    }
+
+    /**
+     * Setzt ETag und Cache-Control und prüft bei GET If-None-Match (schwacher Vergleich nach RFC 9110).
+     * Stimmt einer der übermittelten ETags überein, wird 304 ohne Inhalt gesetzt.
+     *
+     * @return true wenn die Antwort mit 304 abgeschlossen ist
+     */
+    private static boolean isNotModified(HttpServletRequest request, HttpServletResponse response,
+                                         String etag, String cacheControl) {
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", cacheControl);
+
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch == null || !"GET".equalsIgnoreCase(request.getMethod())) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return true;
             }
-            
-            objectMapper.writeValue(response.getWriter(), Map.of(
-                "error", errorMessage,
-                "pollId", pollId,
-                "errorCode", errorCode
-            ));
-            logger.warn("Stimme konnte nicht abgegeben werden für Poll: {} - {}", pollId, errorMessage);
         }
+        return false;
     }
-    
-    private void handleMultipleVote(String pathInfo, HttpServletRequest request, HttpServletResponse response) throws IOException {
-        String pollId = pathInfo.substring(1, pathInfo.lastIndexOf("/"));
-        logger.info("Vote-Multiple-Request für Poll: {}", pollId);
-        
-        // Neue Route für Batch-Stimmabgabe
-        if (request.getMethod().equals("POST")) {
-            try {
-                VoteMultipleRequest voteRequest = objectMapper.readValue(request.getReader(), VoteMultipleRequest.class);
-                
-                if (voteRequest.getOptionIds() == null || voteRequest.getOptionIds().isEmpty()) {
-                    response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                    objectMapper.writeValue(response.getWriter(), Map.of(
-                        "error", "Keine Optionen angegeben",
-                        "pollId", pollId,
-                        "errorCode", "NO_OPTIONS"
-                    ));
-                    return;
-                }
-                
-                boolean success = pollService.voteMultiple(pollId, voteRequest.getOptionIds(), voteRequest.getUserId());
-                
-                if (success) {
-                    Map<String, Integer> results = pollService.getPollResults(pollId);
-                    logger.info("Mehrfach-Stimmen erfolgreich abgegeben für Poll: {}", pollId);
-                    objectMapper.writeValue(response.getWriter(), results);
-                } else {
-                    response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                    objectMapper.writeValue(response.getWriter(), Map.of(
-                        "error", "Stimmen konnten nicht abgegeben werden",
-                        "pollId", pollId,
-                        "errorCode", "VOTE_FAILED"
-                    ));
-                }
-            } catch (Exception e) {
-                logger.error("Fehler bei der Batch-Stimmabgabe", e);
-                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+
+    /**
+     * Bildet den ETag einer Liste aus den Kennungen ihrer Poll-Stände. Er ändert sich, sobald
+     * eine Umfrage hinzukommt, wegfällt oder sich ändert.
+     */
+    private static String listEntityTag(String listName, List<PollSnapshot> snapshots) {
+        return "\"" + listTag(listName, snapshots) + "\"";
+    }
+
+    private static String listTag(String listName, List<PollSnapshot> snapshots) {
+        long hash = 1125899906842597L;
+        for (PollSnapshot snapshot : snapshots) {
+            hash = 31 * hash + snapshot.getId().hashCode();
+            hash = 31 * hash + snapshot.getEntityTag().hashCode();
+        }
+        return listName + "-" + snapshots.size() + "-" + Long.toHexString(hash);
+    }
+
+    /**
+     * Erzeugt die JSON-Darstellung eines Poll-Stands im Format von {@link PollResponse}.
+     */
+    static byte[] renderPoll(PollSnapshot snapshot) {
+        return toJsonBytes(new PollResponse(snapshot.toPoll()));
+    }
+
+    /**
+     * Erzeugt die JSON-Darstellung der Ergebnisse eines Poll-Stands.
+     */
+    private static byte[] renderResults(PollSnapshot snapshot) {
+        return toJsonBytes(snapshot.getPollResults());
+    }
+
+    /**
+     * Schreibt bereits serialisierte JSON-Bytes unverändert in die Antwort.
+     */
+    private static void writeJsonBytes(HttpServletResponse response, byte[] json) throws IOException {
+        response.setContentLength(json.length);
+        response.getOutputStream().write(json);
+    }
+
+    /**
+     * Schreibt ein JSON-Array aus den zwischengespeicherten Darstellungen der Poll-Stände.
+     * Alle Stände werden vor dem ersten Byte gerendert, damit Fehler noch als 500 beantwortet werden können.
+     */
+    private static void writePollArray(HttpServletResponse response, List<PollSnapshot> snapshots) throws IOException {
+        writePollArray(response, snapshots, new byte[0], new byte[0]);
+    }
+
+    /**
+     * Wie {@link #writePollArray(HttpServletResponse, List)}, eingebettet zwischen Präfix und Suffix,
+     * z.B. in ein umschließendes JSON-Objekt.
+     */
+    private static void writePollArray(HttpServletResponse response, List<PollSnapshot> snapshots,
+                                       byte[] prefix, byte[] suffix) throws IOException {
+        List<byte[]> rendered = new ArrayList<>(snapshots.size());
+        int length = prefix.length + suffix.length + 2 + Math.max(0, snapshots.size() - 1);
+        for (PollSnapshot snapshot : snapshots) {
+            byte[] json = snapshot.getPollJson(PollApiServlet::renderPoll);
+            rendered.add(json);
+            length += json.length;
+        }
+
+        response.setContentLength(length);
+        ServletOutputStream out = response.getOutputStream();
+        out.write(prefix);
+        out.write('[');
+        for (int i = 0; i < rendered.size(); i++) {
+            if (i > 0) {
+                out.write(',');
             }
+            out.write(rendered.get(i));
         }
+        out.write(']');
+        out.write(suffix);
+    }
+
+    private static byte[] toJsonBytes(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Startet die asynchrone Verarbeitung; das Timeout deckt das Warten auf die Vote-Pipeline ab.
+     */
+    private static AsyncContext startAsync(HttpServletRequest request) {
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(ASYNC_TIMEOUT_MS);
+        return asyncContext;
+    }
+
+    /**
+     * Schließt die asynchrone Verarbeitung ab. Ist der Container wegen Zeitüberschreitung
+     * bereits selbst fertig, ist nichts mehr zu tun.
+     */
+    private static void completeQuietly(AsyncContext asyncContext) {
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException e) {
+            logger.debug("AsyncContext bereits abgeschlossen: {}", e.getMessage());
+        }
+    }
+    /**
+     * Antwortet mit 503 und Retry-After, wenn die Vote-Pipeline keine weiteren Stimmen annimmt.
+     */
+    private void sendVotingOverloaded(HttpServletResponse response, VoteQueueFullException e) throws IOException {
+        logger.warn("Stimmabgabe abgewiesen: {}", e.getMessage());
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+        objectMapper.writeValue(response.getWriter(), Map.of(
+            "error", "Zu viele gleichzeitige Stimmabgaben, bitte erneut versuchen",
+            "retryAfter", e.getRetryAfterSeconds(),
+            "errorCode", "VOTING_OVERLOADED"
+        ));
+    }
+    /**
+     * Antwortet mit 503 und Retry-After, wenn die Warteschlange des API-Executors voll ist.
+     */
+    private void sendServerBusy(HttpServletResponse response) throws IOException {
+        rejectedRequests.increment();
+        logger.warn("Anfrage abgewiesen: Warteschlange des API-Executors voll");
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", String.valueOf(BUSY_RETRY_AFTER_SECONDS));
+        objectMapper.writeValue(response.getWriter(), Map.of(
+            "error", "Server ausgelastet, bitte erneut versuchen",
+            "retryAfter", BUSY_RETRY_AFTER_SECONDS,
+            "errorCode", "SERVER_BUSY"
+        ));
+    }
+    /**
+     * Antwortet mit 429 und Retry-After, wenn die Zugangskontrolle die Stimmabgabe abweist.
+     */
+    private void sendRateLimited(HttpServletResponse response, VoteRateLimitedException e) throws IOException {
+        logger.debug("Stimmabgabe durch Zugangskontrolle abgewiesen: {}", e.getMessage());
+        response.setStatus(429);
+        response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+        objectMapper.writeValue(response.getWriter(), Map.of(
+            "error", e.getMessage(),
+            "retryAfter", e.getRetryAfterSeconds(),
+            "errorCode", "RATE_LIMITED"
+        ));
     }
     /**
      * Verarbeitet HTTP PUT-Requests für die Aktualisierung bestehender Ressourcen.
@@ -645,6 +1411,59 @@ public class PollApiServlet extends HttpServlet {
         public String getUserId() { return userId; }
         public void setUserId(String userId) { this.userId = userId; }
     }
+    /**
+     * Beschreibt eine wartende Long-Polling-Anfrage: wie auf Änderungen gewartet wird,
+     * wie der beobachtete Stand aussieht und wie die Antwort geschrieben wird.
+     */
+    private static final class LongPollWait {
+        private final Supplier<CompletableFuture<Void>> register;
+        private final Supplier<String> currentVersion;
+        private final LongPollReply reply;
+
+        private LongPollWait(Supplier<CompletableFuture<Void>> register, Supplier<String> currentVersion, LongPollReply reply) {
+            this.register = register;
+            this.currentVersion = currentVersion;
+            this.reply = reply;
+        }
+    }
+
+    @FunctionalInterface
+    private interface LongPollReply {
+        void write() throws IOException;
+    }
+
+    /**
+     * Ergebnis des Parse-Schritts einer Stimmabgabe; rejection ist gesetzt, wenn die Anfrage
+     * bereits beim Parsen abgewiesen wird.
+     */
+    private static final class ParsedVote {
+        private final List<Long> optionIds;
+        private final String userId;
+        private final IdempotencyCache.StoredResponse rejection;
+
+        private ParsedVote(List<Long> optionIds, String userId, IdempotencyCache.StoredResponse rejection) {
+            this.optionIds = optionIds;
+            this.userId = userId;
+            this.rejection = rejection;
+        }
+    }
+    /**
+     * DTO für einen Eintrag der Sammelabgabe (votes:batch).
+     */
+    public static class BatchVoteEntry {
+        private String userId;
+        private String signature;
+        private List<Long> optionIds;
+
+        public String getUserId() { return userId; }
+        public void setUserId(String userId) { this.userId = userId; }
+
+        public String getSignature() { return signature; }
+        public void setSignature(String signature) { this.signature = signature; }
+
+        public List<Long> getOptionIds() { return optionIds; }
+        public void setOptionIds(List<Long> optionIds) { this.optionIds = optionIds; }
+    }
     /**
      * DTO für HTTP POST-Anfragen zur Abgabe mehrerer Stimmen gleichzeitig.
      */
@@ -716,6 +1535,54 @@ public class PollApiServlet extends HttpServlet {
         public List<OptionResponse> getOptions() { return options; }
         public int getTotalVotes() { return totalVotes; }
     }
+    /**
+     * DTO für die Übersicht einer Umfrage ohne Antwortoptionen in Listenansichten.
+     */
+    public static class PollSummaryResponse {
+        private final String id;
+        private final String question;
+        private final String pollType;
+        private final String status;
+        private final String createdAt;
+        private final String startTime;
+        private final String endTime;
+        private final String createdBy;
+        private final boolean isPublic;
+        private final boolean allowMultipleVotes;
+        private final String shortCode;
+        private final int optionCount;
+        private final int totalVotes;
+
+        public PollSummaryResponse(PollDAO.PollSummary summary) {
+            this.id = summary.getId();
+            this.question = summary.getQuestion();
+            this.pollType = summary.getPollType().name();
+            this.status = summary.getStatus().name();
+            this.createdAt = summary.getCreatedAt().format(formatter);
+            this.startTime = summary.getStartTime() != null ? summary.getStartTime().format(formatter) : null;
+            this.endTime = summary.getEndTime() != null ? summary.getEndTime().format(formatter) : null;
+            this.createdBy = summary.getCreatedBy();
+            this.isPublic = summary.isPublic();
+            this.allowMultipleVotes = summary.isAllowMultipleVotes();
+            this.shortCode = summary.getShortCode();
+            this.optionCount = summary.getOptionCount();
+            this.totalVotes = summary.getTotalVotes();
+        }
+
+        public String getId() { return id; }
+        public String getQuestion() { return question; }
+        public String getPollType() { return pollType; }
+        public String getStatus() { return status; }
+        public String getCreatedAt() { return createdAt; }
+        public String getStartTime() { return startTime; }
+        public String getEndTime() { return endTime; }
+        public String getCreatedBy() { return createdBy; }
+        public boolean isPublic() { return isPublic; }
+        public boolean isAllowMultipleVotes() { return allowMultipleVotes; }
+        public String getShortCode() { return shortCode; }
+        public int getOptionCount() { return optionCount; }
+        public int getTotalVotes() { return totalVotes; }
+    }
     /**
      * DTO für Umfrageoptionen in HTTP-Antworten.
      */
@@ -794,27 +1661,4 @@ public class PollApiServlet extends HttpServlet {
             return text;
         }
     }
-    
-    /**
-     * Prüft ob sich aktive Polls geändert haben
-     */
-    private boolean hasActivePollsChanged(List<Poll> initialPolls, List<Poll> currentPolls) {
-        if (initialPolls.size() != currentPolls.size()) {
-            return true;
-        }
-        
-        // Prüfe ob sich der Status oder die Stimmen geändert haben
-        for (int i = 0; i < initialPolls.size(); i++) {
-            Poll initialPoll = initialPolls.get(i);
-            Poll currentPoll = currentPolls.get(i);
-            
-            if (!initialPoll.getId().equals(currentPoll.getId()) ||
-                !initialPoll.getStatus().equals(currentPoll.getStatus()) ||
-                initialPoll.getTotalVotes() != currentPoll.getTotalVotes()) {
-                return true;
-            }
-        }
-        
-        return false;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,536 @@
+package link.hsos.livepoll.servlet.api;
+
+import link.hsos.livepoll.config.LivePollConfig;
+import link.hsos.livepoll.config.ThreadFactories;
+import link.hsos.livepoll.service.PollService;
+import link.hsos.livepoll.service.PollSnapshot;
+import link.hsos.livepoll.service.events.PollUpdatedEvent;
+import link.hsos.livepoll.service.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-Sent-Events-Streams für einzelne Umfragen ({@code /api/polls/{id}/stream}) und für die
+ * Liste der aktiven Umfragen ({@code /api/polls/active/stream}).
+ * <p>
+ * Die Streams werden aus denselben PollUpdatedEvents gespeist wie der WebSocket-Publisher.
+ * Events einer Umfrage werden für ein kurzes Zeitfenster gesammelt, sodass bei vielen Stimmen
+ * pro Umfrage und Fenster nur ein Event mit dem aktuellen Stand verschickt wird. Die letzten Events
+ * jedes Streams liegen in einem begrenzten Ringpuffer, aus dem nach einem Verbindungsabbruch
+ * ab {@code Last-Event-ID} nachgeliefert wird.
+ * <p>
+ * Sämtlicher Zustand wird ausschließlich im Thread {@code sse-stream} verändert, daher sind
+ * Ringpuffer und Verbindungslisten nicht synchronisiert. Geschrieben wird nicht-blockierend: Ist eine
+ * Verbindung nicht schreibbar, wird von den laufenden Änderungen nur das neueste Event vorgemerkt und
+ * verschickt, sobald der Container {@link WriteListener#onWritePossible()} meldet; nachgelieferte Events
+ * und Steuernachrichten bleiben vollständig und in Reihenfolge erhalten. Bleibt eine Verbindung ein
+ * ganzes Heartbeat-Intervall nicht schreibbar, wird sie geschlossen.
+ */
+public final class PollEventStreams {
+    private static final Logger logger = LoggerFactory.getLogger(PollEventStreams.class);
+    private static final String ACTIVE_STREAM = "active";
+    private static final byte[] HEARTBEAT = ": ping\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final PollService pollService;
+    private final long coalesceMs;
+    private final int replayBufferSize;
+    private final int maxConnections;
+    private final ScheduledExecutorService streamThread =
+            Executors.newSingleThreadScheduledExecutor(ThreadFactories.named("sse-stream"));
+    private final Set<String> dirtyPolls = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    private final Map<String, List<Connection>> connections = new HashMap<>();
+    private final Map<String, ArrayDeque<StreamEvent>> replayBuffers;
+    private long activeSequence;
+    private final LongAdder eventsSent;
+
+    public PollEventStreams(PollService pollService) {
+        this.pollService = pollService;
+        this.coalesceMs = LivePollConfig.getLong("sse.coalesce.ms", 250);
+        this.replayBufferSize = Math.max(1, LivePollConfig.getInt("sse.replay.buffer.size", 32));
+        this.maxConnections = LivePollConfig.getInt("sse.max.connections", 5000);
+        int maxBuffers = Math.max(1, LivePollConfig.getInt("sse.replay.max.streams", 1000));
+        this.replayBuffers = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ArrayDeque<StreamEvent>> eldest) {
+                return size() > maxBuffers;
+            }
+        };
+
+        long heartbeatSeconds = Math.max(1, LivePollConfig.getLong("sse.heartbeat.seconds", 15));
+        streamThread.scheduleAtFixedRate(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        this.eventsSent = metrics.counter("sse.events.sent");
+        metrics.gauge("sse.connections", connectionCount::get);
+
+        pollService.addUpdatePublisher(this::onPollUpdated);
+    }
+
+    /**
+     * @return true wenn eine weitere Verbindung angenommen werden kann
+     */
+    public boolean hasCapacity() {
+        return connectionCount.get() < maxConnections;
+    }
+
+    /**
+     * Öffnet einen Stream für eine Umfrage. Der Client erhält zuerst alle Events nach
+     * {@code lastEventId} aus dem Ringpuffer bzw. den aktuellen Stand, danach jede Änderung.
+     *
+     * @param pollId Die ID der Umfrage
+     * @param asyncContext Der bereits gestartete AsyncContext der Anfrage
+     * @param lastEventId Wert des Headers Last-Event-ID, darf null sein
+     */
+    public void openPollStream(String pollId, AsyncContext asyncContext, String lastEventId) throws IOException {
+        open(pollId, asyncContext, lastEventId);
+    }
+
+    /**
+     * Öffnet einen Stream für die Liste der aktiven Umfragen.
+     *
+     * @param asyncContext Der bereits gestartete AsyncContext der Anfrage
+     * @param lastEventId Wert des Headers Last-Event-ID, darf null sein
+     */
+    public void openActiveStream(AsyncContext asyncContext, String lastEventId) throws IOException {
+        open(ACTIVE_STREAM, asyncContext, lastEventId);
+    }
+
+    private void open(String stream, AsyncContext asyncContext, String lastEventId) throws IOException {
+        Connection connection = new Connection(stream, asyncContext, asyncContext.getResponse().getOutputStream());
+        connection.out.setWriteListener(connection);
+        connectionCount.incrementAndGet();
+        asyncContext.addListener(connection);
+        executeOnStreamThread(() -> {
+            connections.computeIfAbsent(stream, key -> new ArrayList<>()).add(connection);
+            connection.write("retry: 3000\n\n".getBytes(StandardCharsets.UTF_8));
+            replay(connection, lastEventId);
+
+            StreamEvent current = currentEvent(stream);
+            if (current != null) {
+                connection.send(current);
+            }
+            logger.debug("SSE-Stream {} geöffnet ({} Verbindungen)", stream, connectionCount.get());
+        });
+    }
+
+    /**
+     * Nimmt ein PollUpdatedEvent entgegen. Die Verarbeitung erfolgt gebündelt nach dem Sammelfenster.
+     */
+    private void onPollUpdated(PollUpdatedEvent event) {
+        dirtyPolls.add(event.getPollId());
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                streamThread.schedule(this::flush, coalesceMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.debug("SSE-Streams bereits heruntergefahren");
+            }
+        }
+    }
+
+    private void executeOnStreamThread(Runnable task) {
+        try {
+            streamThread.execute(task);
+        } catch (RejectedExecutionException e) {
+            logger.debug("SSE-Streams bereits heruntergefahren");
+        }
+    }
+
+    /**
+     * Schließt alle offenen Streams und beendet den Thread sse-stream.
+     */
+    public void shutdown() {
+        executeOnStreamThread(() -> {
+            for (List<Connection> listeners : new ArrayList<>(connections.values())) {
+                new ArrayList<>(listeners).forEach(Connection::complete);
+            }
+        });
+        streamThread.shutdown();
+        try {
+            if (!streamThread.awaitTermination(5, TimeUnit.SECONDS)) {
+                streamThread.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            streamThread.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        logger.info("SSE-Streams heruntergefahren");
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        List<String> changed = new ArrayList<>();
+        for (Iterator<String> it = dirtyPolls.iterator(); it.hasNext(); ) {
+            changed.add(it.next());
+            it.remove();
+        }
+
+        try {
+            for (String pollId : changed) {
+                List<Connection> listeners = connections.get(pollId);
+                if (listeners == null && !replayBuffers.containsKey(pollId)) {
+                    continue;
+                }
+                Optional<PollSnapshot> snapshot = pollService.getPollSnapshot(pollId);
+                if (snapshot.isEmpty()) {
+                    closeStream(pollId);
+                    continue;
+                }
+                broadcast(pollId, record(pollId, pollEvent(snapshot.get())));
+            }
+
+            if (connections.containsKey(ACTIVE_STREAM) || replayBuffers.containsKey(ACTIVE_STREAM)) {
+                StreamEvent active = currentEvent(ACTIVE_STREAM);
+                if (active != null) {
+                    broadcast(ACTIVE_STREAM, active);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("SSE-Events konnten nicht erzeugt werden: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Liefert das Event mit dem aktuellen Stand des Streams und legt es im Ringpuffer ab,
+     * sofern es dort noch nicht das neueste ist.
+     */
+    private StreamEvent currentEvent(String stream) {
+        if (ACTIVE_STREAM.equals(stream)) {
+            String id = pollService.getActivePollsTag();
+            StreamEvent latest = latest(ACTIVE_STREAM);
+            if (latest != null && latest.id.equals(id)) {
+                return latest;
+            }
+            List<PollSnapshot> snapshots = pollService.getActivePollSnapshots();
+            return record(ACTIVE_STREAM, new StreamEvent(id, ++activeSequence, "active", toJsonArray(snapshots)));
+        }
+        return pollService.getPollSnapshot(stream)
+                .map(snapshot -> record(stream, pollEvent(snapshot)))
+                .orElse(null);
+    }
+
+    private StreamEvent pollEvent(PollSnapshot snapshot) {
+        return new StreamEvent(snapshot.getEntityTag(), snapshot.getVersion(), "poll",
+                snapshot.getPollJson(PollApiServlet::renderPoll));
+    }
+
+    private StreamEvent record(String stream, StreamEvent event) {
+        ArrayDeque<StreamEvent> buffer = replayBuffers.computeIfAbsent(stream, key -> new ArrayDeque<>());
+        StreamEvent latest = buffer.peekLast();
+        if (latest != null && latest.id.equals(event.id)) {
+            return latest;
+        }
+        buffer.addLast(event);
+        while (buffer.size() > replayBufferSize) {
+            buffer.removeFirst();
+        }
+        return event;
+    }
+
+    private StreamEvent latest(String stream) {
+        ArrayDeque<StreamEvent> buffer = replayBuffers.get(stream);
+        return buffer != null ? buffer.peekLast() : null;
+    }
+
+    /**
+     * Liefert die Events nach {@code lastEventId} aus dem Ringpuffer nach. Ist die ID dort nicht
+     * (mehr) vorhanden, erhält der Client nur den aktuellen Stand.
+     */
+    private void replay(Connection connection, String lastEventId) {
+        ArrayDeque<StreamEvent> buffer = replayBuffers.get(connection.stream);
+        if (lastEventId == null || buffer == null) {
+            return;
+        }
+        boolean found = false;
+        for (StreamEvent event : buffer) {
+            if (found) {
+                connection.sendInOrder(event);
+            } else if (event.id.equals(lastEventId)) {
+                found = true;
+                connection.skipUpTo(event.sequence);
+            }
+        }
+    }
+
+    private void broadcast(String stream, StreamEvent event) {
+        List<Connection> listeners = connections.get(stream);
+        if (listeners == null) {
+            return;
+        }
+        for (Connection connection : new ArrayList<>(listeners)) {
+            connection.send(event);
+        }
+    }
+
+    /**
+     * Beendet alle Streams einer gelöschten Umfrage.
+     */
+    private void closeStream(String pollId) {
+        replayBuffers.remove(pollId);
+        List<Connection> listeners = connections.remove(pollId);
+        if (listeners == null) {
+            return;
+        }
+        byte[] deleted = ("event: deleted\ndata: {\"pollId\":\"" + pollId + "\"}\n\n").getBytes(StandardCharsets.UTF_8);
+        for (Connection connection : listeners) {
+            connection.writeAndComplete(deleted);
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (List<Connection> listeners : connections.values()) {
+            for (Connection connection : new ArrayList<>(listeners)) {
+                connection.heartbeat();
+            }
+        }
+    }
+
+    private void remove(Connection connection) {
+        executeOnStreamThread(() -> {
+            List<Connection> listeners = connections.get(connection.stream);
+            if (listeners != null && listeners.remove(connection) && listeners.isEmpty()) {
+                connections.remove(connection.stream);
+            }
+        });
+    }
+
+    private static byte[] toJsonArray(List<PollSnapshot> snapshots) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('[');
+        for (int i = 0; i < snapshots.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.writeBytes(snapshots.get(i).getPollJson(PollApiServlet::renderPoll));
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    /**
+     * Ein fertig kodiertes Event. Die Sequenznummer verhindert, dass eine Verbindung einen
+     * älteren Stand nach einem neueren erhält.
+     */
+    private static final class StreamEvent {
+        private final String id;
+        private final long sequence;
+        private final byte[] frame;
+
+        private StreamEvent(String id, long sequence, String name, byte[] json) {
+            this.id = id;
+            this.sequence = sequence;
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length + id.length() + 32);
+            out.writeBytes(("id: " + id + "\nevent: " + name + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+            out.writeBytes(json);
+            out.writeBytes("\n\n".getBytes(StandardCharsets.UTF_8));
+            this.frame = out.toByteArray();
+        }
+    }
+
+    /**
+     * Eine offene SSE-Verbindung. Geschrieben wird nur aus dem Thread sse-stream und nur, solange
+     * {@link ServletOutputStream#isReady()} dies zulässt. Bis dahin warten Steuernachrichten und
+     * nachgelieferte Events in Reihenfolge, von den laufenden Änderungen nur das neueste.
+     */
+    private final class Connection implements AsyncListener, WriteListener {
+        private final String stream;
+        private final AsyncContext asyncContext;
+        private final ServletOutputStream out;
+        private long lastSequence = -1;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final ByteArrayOutputStream pendingInOrder = new ByteArrayOutputStream();
+        private int pendingInOrderEvents;
+        private StreamEvent pendingLatest;
+        private boolean completeWhenWritten;
+        private boolean stalled;
+
+        private Connection(String stream, AsyncContext asyncContext, ServletOutputStream out) {
+            this.stream = stream;
+            this.asyncContext = asyncContext;
+            this.out = out;
+        }
+
+        private void skipUpTo(long sequence) {
+            lastSequence = Math.max(lastSequence, sequence);
+        }
+
+        /**
+         * Verschickt eine laufende Änderung. Ein noch nicht geschriebenes Event wird ersetzt,
+         * da jedes Event den vollständigen Stand enthält.
+         */
+        private void send(StreamEvent event) {
+            if (closed.get() || event.sequence <= lastSequence) {
+                return;
+            }
+            lastSequence = event.sequence;
+            pendingLatest = event;
+            drain();
+        }
+
+        /**
+         * Verschickt ein nachgeliefertes Event; es wird nie durch ein späteres ersetzt.
+         */
+        private void sendInOrder(StreamEvent event) {
+            if (closed.get() || event.sequence <= lastSequence) {
+                return;
+            }
+            lastSequence = event.sequence;
+            pendingInOrder.writeBytes(event.frame);
+            pendingInOrderEvents++;
+            drain();
+        }
+
+        private void write(byte[] frame) {
+            if (closed.get()) {
+                return;
+            }
+            pendingInOrder.writeBytes(frame);
+            drain();
+        }
+
+        private void writeAndComplete(byte[] frame) {
+            // Ein noch ausstehender Stand ist nach dem Löschen bedeutungslos
+            pendingLatest = null;
+            completeWhenWritten = true;
+            write(frame);
+        }
+
+        /**
+         * Schreibt einen Heartbeat, sofern nichts aussteht. War die Verbindung schon beim
+         * vorherigen Heartbeat nicht schreibbar, wird sie geschlossen.
+         */
+        private void heartbeat() {
+            if (closed.get()) {
+                return;
+            }
+            if (hasPending() || !isReady()) {
+                if (stalled) {
+                    logger.debug("SSE-Verbindung für {} nimmt keine Daten an und wird geschlossen", stream);
+                    complete();
+                } else {
+                    stalled = true;
+                }
+                return;
+            }
+            write(HEARTBEAT);
+        }
+
+        private boolean hasPending() {
+            return pendingInOrder.size() > 0 || pendingLatest != null;
+        }
+
+        private void drain() {
+            if (closed.get() || !isReady()) {
+                return;
+            }
+            stalled = false;
+            try {
+                if (hasPending()) {
+                    int events = pendingInOrderEvents;
+                    if (pendingLatest != null) {
+                        pendingInOrder.writeBytes(pendingLatest.frame);
+                        events++;
+                    }
+                    byte[] frames = pendingInOrder.toByteArray();
+                    pendingInOrder.reset();
+                    pendingInOrderEvents = 0;
+                    pendingLatest = null;
+                    out.write(frames);
+                    eventsSent.add(events);
+                }
+                if (out.isReady()) {
+                    out.flush();
+                }
+                if (completeWhenWritten && out.isReady()) {
+                    complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("SSE-Verbindung für {} getrennt: {}", stream, e.getMessage());
+                complete();
+            }
+        }
+
+        private boolean isReady() {
+            try {
+                return out.isReady();
+            } catch (IllegalStateException e) {
+                complete();
+                return false;
+            }
+        }
+
+        @Override
+        public void onWritePossible() {
+            executeOnStreamThread(this::drain);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            logger.debug("SSE-Verbindung für {} getrennt: {}", stream, t.getMessage());
+            complete();
+        }
+
+        private void complete() {
+            if (closed.compareAndSet(false, true)) {
+                connectionCount.decrementAndGet();
+                remove(this);
+                try {
+                    asyncContext.complete();
+                } catch (IllegalStateException e) {
+                    logger.debug("AsyncContext bereits abgeschlossen: {}", e.getMessage());
+                }
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            if (closed.compareAndSet(false, true)) {
+                connectionCount.decrementAndGet();
+                remove(this);
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            complete();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            complete();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Keine erneuten startAsync-Aufrufe für SSE-Verbindungen
+        }
+    }
+}
@@ -24,7 +24,7 @@ import java.io.IOException;
  *
  * Servlet-Filter für die Authentifizierung und Autorisierung von HTTP-Anfragen.
  */
-@WebFilter(filterName = "AuthenticationFilter", urlPatterns = {"/api/*", "/dashboard", "/dashboard/*"})
+@WebFilter(filterName = "AuthenticationFilter", urlPatterns = {"/api/*", "/dashboard", "/dashboard/*"}, asyncSupported = true)
 public class AuthenticationFilter implements Filter {
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationFilter.class);
 
@@ -98,7 +98,9 @@ public class AuthenticationFilter implements Filter {
         String uuidPattern = "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}";
         return (path.matches("^/api/polls/" + uuidPattern + "$") && "GET".equalsIgnoreCase(method)) ||
                 (path.matches("^/api/polls/" + uuidPattern + "/vote$") && "POST".equalsIgnoreCase(method)) ||
+                (path.matches("^/api/polls/" + uuidPattern + "/votes:batch$") && "POST".equalsIgnoreCase(method)) ||
                 (path.matches("^/api/polls/" + uuidPattern + "/wait$") && "GET".equalsIgnoreCase(method)) ||
+                (path.matches("^/api/polls/" + uuidPattern + "/stream$") && "GET".equalsIgnoreCase(method)) ||
                 (path.matches("^/api/user/userId") && ("GET".equalsIgnoreCase(method))) ||
                 (path.matches("^/api/qrcode") && "GET".equalsIgnoreCase(method)) ||
                 (path.matches("^/api/polls/shortcode/[^/]+") && "GET".equalsIgnoreCase(method));
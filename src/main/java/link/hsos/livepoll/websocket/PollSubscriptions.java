@@ -0,0 +1,133 @@
+package link.hsos.livepoll.websocket;
+
+import jakarta.websocket.Session;
+import link.hsos.livepoll.service.metrics.MetricsRegistry;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Zuordnung der WebSocket-Sessions zu den Umfragen, die sie abonniert haben.
+ * <p>
+ * Ein Update einer Umfrage erreicht über {@link #getSubscribers(String)} nur deren Abonnenten,
+ * ohne alle offenen Sessions des Servers durchlaufen zu müssen. Jede Session abonniert höchstens
+ * eine Umfrage; ein erneutes Abonnieren verschiebt sie. Zu jeder Session gehört eine
+ * {@link SessionOutbox}, über die alle Nachrichten an sie laufen.
+ */
+public final class PollSubscriptions {
+    private final Map<String, Set<SessionOutbox>> sessionsByPoll = new ConcurrentHashMap<>();
+    private final Map<String, String> pollIdsBySession = new ConcurrentHashMap<>();
+    private final Map<String, SessionOutbox> outboxes = new ConcurrentHashMap<>();
+    private final long maxLagMs;
+
+    /**
+     * @param maxLagMs Maximale Dauer, die eine Nachricht an eine Session unterwegs sein darf
+     */
+    public PollSubscriptions(long maxLagMs) {
+        this.maxLagMs = maxLagMs;
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.gauge("ws.sessions", pollIdsBySession::size);
+        metrics.gauge("ws.subscribed.polls", sessionsByPoll::size);
+        metrics.gauge("ws.sessions.max.lag.ms", this::getMaxLagMillis);
+    }
+
+    /**
+     * Ordnet eine Session einer Umfrage zu und entfernt sie aus einer bisher abonnierten Umfrage.
+     *
+     * @param session Die WebSocket-Session
+     * @param pollId Die ID der Umfrage
+     * @return Die Outbox der Session
+     */
+    public SessionOutbox subscribe(Session session, String pollId) {
+        SessionOutbox outbox = outboxes.computeIfAbsent(session.getId(), id -> new SessionOutbox(session, maxLagMs));
+        String previous = pollIdsBySession.put(session.getId(), pollId);
+        if (previous != null && !previous.equals(pollId)) {
+            removeFromPoll(previous, outbox);
+        }
+        sessionsByPoll.compute(pollId, (id, subscribers) -> {
+            Set<SessionOutbox> result = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            result.add(outbox);
+            return result;
+        });
+        return outbox;
+    }
+
+    /**
+     * Entfernt eine geschlossene Session.
+     *
+     * @param session Die WebSocket-Session
+     * @return Die ID der zuletzt abonnierten Umfrage oder null
+     */
+    public String unsubscribe(Session session) {
+        SessionOutbox outbox = outboxes.remove(session.getId());
+        String pollId = pollIdsBySession.remove(session.getId());
+        if (outbox != null) {
+            outbox.close();
+            if (pollId != null) {
+                removeFromPoll(pollId, outbox);
+            }
+        }
+        return pollId;
+    }
+
+    /**
+     * @param session Die WebSocket-Session
+     * @return Die Outbox der Session oder null, wenn sie keine Umfrage abonniert hat
+     */
+    public SessionOutbox getOutbox(Session session) {
+        return outboxes.get(session.getId());
+    }
+
+    /**
+     * @param pollId Die ID der Umfrage
+     * @return Die Outboxen der Sessions, die die Umfrage abonniert haben; leer wenn es keine gibt
+     */
+    public Set<SessionOutbox> getSubscribers(String pollId) {
+        Set<SessionOutbox> subscribers = sessionsByPoll.get(pollId);
+        return subscribers != null ? subscribers : Set.of();
+    }
+
+    /**
+     * @param pollId Die ID der Umfrage
+     * @return true, wenn mindestens eine Session die Umfrage abonniert hat
+     */
+    public boolean hasSubscribers(String pollId) {
+        return sessionsByPoll.containsKey(pollId);
+    }
+
+    /**
+     * Schließt alle Sessions, deren Nachricht länger als erlaubt unterwegs ist, auch wenn für
+     * ihre Umfrage keine weiteren Updates anfallen.
+     *
+     * @return Anzahl der geschlossenen Sessions
+     */
+    public int evictLagging() {
+        int evicted = 0;
+        for (SessionOutbox outbox : outboxes.values()) {
+            if (outbox.evictIfLagging()) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * @return Die größte Verzögerung einer Session in Millisekunden
+     */
+    public long getMaxLagMillis() {
+        long max = 0;
+        for (SessionOutbox outbox : outboxes.values()) {
+            max = Math.max(max, outbox.getLagMillis());
+        }
+        return max;
+    }
+
+    private void removeFromPoll(String pollId, SessionOutbox outbox) {
+        // Leere Mengen werden atomar entfernt, damit ein gleichzeitiges subscribe nicht in einer verwaisten Menge landet
+        sessionsByPoll.computeIfPresent(pollId, (id, subscribers) -> {
+            subscribers.remove(outbox);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+}
@@ -0,0 +1,179 @@
+package link.hsos.livepoll.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import link.hsos.livepoll.service.PollSnapshot;
+
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Erzeugt die Nachrichten des WebSocket-Protokolls für Abstimmungsergebnisse.
+ * <p>
+ * Ein Client erhält beim Abonnieren eine {@code SNAPSHOT}-Nachricht mit dem vollständigen Stand
+ * (Frage, Status, alle Optionen). Danach folgen {@code DELTA}-Nachrichten, die nur die Stimmenzahlen
+ * der seit dem letzten Update geänderten Optionen enthalten, jeweils mit ihrer Options-ID:
+ * <pre>
+ * {"type":"DELTA","pollId":"...","seq":42,"base":41,"totalVotes":317,"votes":{"12":201,"13":116}}
+ * </pre>
+ * Die Stimmenzahlen sind absolut, nicht als Differenz angegeben. Jede Nachricht trägt eine je Umfrage
+ * fortlaufende Sequenznummer; passt {@code base} nicht zur zuletzt empfangenen Nummer, hat der Client
+ * ein Update verpasst und fordert mit {@code SUBSCRIBE} einen neuen SNAPSHOT an. Ändern sich Frage,
+ * Status oder Optionen, wird statt eines DELTA ein SNAPSHOT an alle verschickt.
+ */
+public final class PollUpdateEncoder {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, PollState> states = new ConcurrentHashMap<>();
+
+    /**
+     * Erzeugt die SNAPSHOT-Nachricht für einen neuen Abonnenten. Sie trägt die Sequenznummer des zuletzt
+     * verteilten Updates, sodass das nächste DELTA direkt darauf aufsetzt.
+     *
+     * @param snapshot Der aktuelle Stand der Umfrage
+     * @return Die serialisierte Nachricht
+     */
+    public String snapshotMessage(PollSnapshot snapshot) {
+        PollState state = states.computeIfAbsent(snapshot.getId(), id -> new PollState(snapshot));
+        synchronized (state) {
+            // Der Inhalt darf nicht älter sein als der Stand, auf den sich die Sequenznummer bezieht
+            PollSnapshot newest = snapshot.getVersion() >= state.snapshot.getVersion() ? snapshot : state.snapshot;
+            return snapshotJson(newest, state.seq);
+        }
+    }
+
+    /**
+     * Ermittelt das Update von zuletzt verteilten zum übergebenen Stand und schreibt die Sequenznummer fort.
+     *
+     * @param snapshot Der aktuelle Stand der Umfrage
+     * @return Die Nachrichten für das Update oder null, wenn sich nichts geändert hat
+     */
+    public Update encode(PollSnapshot snapshot) {
+        PollState created = new PollState(snapshot);
+        PollState state = states.putIfAbsent(snapshot.getId(), created);
+        if (state == null) {
+            // Kein Ausgangsstand bekannt, alle Abonnenten erhalten den vollständigen Stand
+            return new Update(null, snapshot, created.seq);
+        }
+
+        synchronized (state) {
+            PollSnapshot previous = state.snapshot;
+            if (snapshot.getVersion() <= previous.getVersion()) {
+                return null;
+            }
+            state.snapshot = snapshot;
+
+            if (snapshot.getStructureVersion() != previous.getStructureVersion()
+                    || snapshot.getStatus() != previous.getStatus()) {
+                return new Update(null, snapshot, ++state.seq);
+            }
+
+            Map<Long, Integer> previousVotes = new HashMap<>();
+            for (PollSnapshot.OptionSnapshot option : previous.getOptions()) {
+                previousVotes.put(option.getId(), option.getVotes());
+            }
+            Map<String, Integer> changed = new LinkedHashMap<>();
+            for (PollSnapshot.OptionSnapshot option : snapshot.getOptions()) {
+                Integer before = previousVotes.get(option.getId());
+                if (before == null || before != option.getVotes()) {
+                    changed.put(String.valueOf(option.getId()), option.getVotes());
+                }
+            }
+            if (changed.isEmpty()) {
+                return null;
+            }
+
+            long base = state.seq++;
+            Map<String, Object> delta = new LinkedHashMap<>();
+            delta.put("type", "DELTA");
+            delta.put("pollId", snapshot.getId());
+            delta.put("seq", state.seq);
+            delta.put("base", base);
+            delta.put("totalVotes", snapshot.getTotalVotes());
+            delta.put("votes", changed);
+            return new Update(toJson(delta), snapshot, state.seq);
+        }
+    }
+
+    /**
+     * Vergisst den Stand einer Umfrage, z.B. wenn sie keine Abonnenten mehr hat.
+     *
+     * @param pollId Die ID der Umfrage
+     */
+    public void forget(String pollId) {
+        states.remove(pollId);
+    }
+
+    private static String snapshotJson(PollSnapshot snapshot, long seq) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", "SNAPSHOT");
+        message.put("pollId", snapshot.getId());
+        message.put("seq", seq);
+        message.put("question", snapshot.getQuestion());
+        message.put("status", snapshot.getStatus().toString());
+        message.put("results", snapshot.getPollResults());
+        return toJson(message);
+    }
+
+    private static String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Die Nachrichten eines Updates: das DELTA für Clients mit dem vorherigen Stand und der SNAPSHOT
+     * für Clients, die ein Update verpasst haben. Der SNAPSHOT wird erst bei Bedarf und höchstens
+     * einmal serialisiert.
+     */
+    public static final class Update {
+        private final String delta;
+        private final PollSnapshot source;
+        private final long seq;
+        private volatile String snapshot;
+
+        private Update(String delta, PollSnapshot source, long seq) {
+            this.delta = delta;
+            this.source = source;
+            this.seq = seq;
+        }
+
+        /**
+         * @param snapshotMessage Eine bereits serialisierte SNAPSHOT-Nachricht
+         * @return Ein Update, das nur aus dem SNAPSHOT besteht
+         */
+        static Update ofSnapshot(String snapshotMessage) {
+            Update update = new Update(null, null, 0);
+            update.snapshot = snapshotMessage;
+            return update;
+        }
+
+        /**
+         * @return Die DELTA-Nachricht oder null, wenn alle den SNAPSHOT erhalten
+         */
+        public String getDelta() { return delta; }
+
+        public String getSnapshot() {
+            String current = snapshot;
+            if (current == null) {
+                current = snapshotJson(source, seq);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private static final class PollState {
+        private PollSnapshot snapshot;
+        private long seq = 1;
+
+        private PollState(PollSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+}
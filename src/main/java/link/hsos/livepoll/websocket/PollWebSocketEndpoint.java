@@ -4,15 +4,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.websocket.*;
 import jakarta.websocket.server.PathParam;
 import jakarta.websocket.server.ServerEndpoint;
-import link.hsos.livepoll.model.Option;
-import link.hsos.livepoll.model.Poll;
+import link.hsos.livepoll.config.LivePollConfig;
+import link.hsos.livepoll.config.ThreadFactories;
 import link.hsos.livepoll.service.PollService;
+import link.hsos.livepoll.service.PollSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -24,9 +24,10 @@ public class PollWebSocketEndpoint {
     
     private static final Logger logger = LoggerFactory.getLogger(PollWebSocketEndpoint.class);
     private static final ObjectMapper objectMapper = new ObjectMapper();
-    private static final Map<String, Session> sessions = new ConcurrentHashMap<>();
-    private static final Map<String, String> sessionPollMap = new ConcurrentHashMap<>();
-    private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private static final PollUpdateEncoder encoder = new PollUpdateEncoder();
+    private static final PollSubscriptions subscriptions =
+            new PollSubscriptions(LivePollConfig.getLong("ws.slow.consumer.max.lag.ms", 10000));
+    private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, ThreadFactories.named("ws-heartbeat"));
     
     private final PollService pollService = PollService.getInstance();
     /**
@@ -40,7 +41,7 @@ public class PollWebSocketEndpoint {
         logger.info("WebSocket-Verbindung geöffnet für Poll: {}", pollId);
         
         // Validiere, ob der Poll existiert
-        var pollOpt = pollService.getPoll(pollId);
+        var pollOpt = pollService.getPollSnapshot(pollId);
         if (pollOpt.isEmpty()) {
             logger.warn("Poll mit ID {} existiert nicht", pollId);
             try {
@@ -53,11 +54,10 @@ public class PollWebSocketEndpoint {
         
         // Speichere Session-Informationen
         String sessionId = session.getId();
-        sessions.put(sessionId, session);
-        sessionPollMap.put(sessionId, pollId);
+        SessionOutbox outbox = subscriptions.subscribe(session, pollId);
         
         // Sende initiale Poll-Daten
-        sendPollUpdate(pollId, pollOpt.get());
+        sendPollUpdate(outbox, pollOpt.get());
         
         logger.info("WebSocket-Session {} erfolgreich für Poll {} registriert", sessionId, pollId);
     }
@@ -99,8 +99,10 @@ public class PollWebSocketEndpoint {
     @OnClose
     public void onClose(Session session) {
         String sessionId = session.getId();
-        String pollId = sessionPollMap.remove(sessionId);
-        sessions.remove(sessionId);
+        String pollId = subscriptions.unsubscribe(session);
+        if (pollId != null && !subscriptions.hasSubscribers(pollId)) {
+            encoder.forget(pollId);
+        }
         
         logger.info("WebSocket-Verbindung geschlossen für Session: {} (Poll: {})", sessionId, pollId);
     }
@@ -117,105 +119,81 @@ public class PollWebSocketEndpoint {
     
     private void handleSubscribe(Session session, String pollId) {
         String sessionId = session.getId();
-        sessionPollMap.put(sessionId, pollId);
+        SessionOutbox outbox = subscriptions.subscribe(session, pollId);
         
-        // Sende aktuelle Poll-Daten
-        var pollOpt = pollService.getPoll(pollId);
+        // Sende aktuelle Poll-Daten, auch als Neusynchronisation nach einem verpassten Update
+        var pollOpt = pollService.getPollSnapshot(pollId);
         if (pollOpt.isPresent()) {
-            sendPollUpdate(pollId, pollOpt.get());
+            sendPollUpdate(outbox, pollOpt.get());
         }
         
         logger.debug("Session {} für Poll {} abonniert", sessionId, pollId);
     }
     
     private void handlePing(Session session) {
-        try {
-            session.getBasicRemote().sendText("{\"type\":\"PONG\"}");
-        } catch (IOException e) {
-            logger.error("Fehler beim Senden der PONG-Antwort", e);
+        SessionOutbox outbox = subscriptions.getOutbox(session);
+        if (outbox != null) {
+            outbox.sendControl("{\"type\":\"PONG\"}");
         }
     }
     
     /**
-     * Sendet ein Update an alle verbundenen Clients für einen bestimmten Poll
+     * Prüft, ob eine WebSocket-Session den Poll abonniert hat
      */
-    public static void broadcastPollUpdate(String pollId, Poll poll) {
-        if (poll == null) {
-            logger.warn("Versuche Update für null-Poll zu senden");
+    public static boolean hasSubscribers(String pollId) {
+        return subscriptions.hasSubscribers(pollId);
+    }
+    
+    /**
+     * Sendet ein Update an alle verbundenen Clients für einen bestimmten Poll.
+     * Die Nachricht wird einmal serialisiert und asynchron an jede Session übergeben,
+     * sodass ein langsamer Client die übrigen nicht aufhält. Verschickt wird ein DELTA mit den
+     * geänderten Stimmenzahlen, siehe {@link PollUpdateEncoder}.
+     */
+    public static void broadcastPollUpdate(PollSnapshot snapshot) {
+        Set<SessionOutbox> subscribers = subscriptions.getSubscribers(snapshot.getId());
+        if (subscribers.isEmpty()) {
             return;
         }
         
         try {
-            String updateMessage = createPollUpdateMessage(poll);
+            PollUpdateEncoder.Update update = encoder.encode(snapshot);
+            if (update == null) {
+                return;
+            }
             
-            sessions.entrySet().stream()
-                .filter(entry -> pollId.equals(sessionPollMap.get(entry.getKey())))
-                .forEach(entry -> {
-                    Session session = entry.getValue();
-                    if (session.isOpen()) {
-                        try {
-                            session.getBasicRemote().sendText(updateMessage);
-                        } catch (IOException e) {
-                            logger.error("Fehler beim Senden der Update-Nachricht an Session: {}", entry.getKey(), e);
-                        }
-                    }
-                });
+            for (SessionOutbox outbox : subscribers) {
+                outbox.send(update);
+            }
                 
-            logger.debug("Poll-Update für Poll {} an {} Sessions gesendet", pollId, 
-                sessions.entrySet().stream()
-                    .filter(entry -> pollId.equals(sessionPollMap.get(entry.getKey())))
-                    .count());
+            logger.debug("Poll-Update für Poll {} an {} Sessions übergeben", snapshot.getId(), subscribers.size());
                     
         } catch (Exception e) {
             logger.error("Fehler beim Erstellen der Poll-Update-Nachricht", e);
         }
     }
     
-    private static String createPollUpdateMessage(Poll poll) throws Exception {
-        Map<String, Integer> results = poll.getOptions().stream()
-            .collect(java.util.stream.Collectors.toMap(
-                Option::getText,
-                Option::getVotes
-            ));
-        
-        var updateData = Map.of(
-            "pollId", poll.getId(),
-            "question", poll.getQuestion(),
-            "status", poll.getStatus().toString(),
-            "results", results
-        );
-        
-        return objectMapper.writeValueAsString(updateData);
-    }
-    
-    private void sendPollUpdate(String pollId, Poll poll) {
+    private void sendPollUpdate(SessionOutbox outbox, PollSnapshot snapshot) {
         try {
-            String updateMessage = createPollUpdateMessage(poll);
-            // Sende an alle Sessions für diesen Poll
-            sessions.entrySet().stream()
-                .filter(entry -> pollId.equals(sessionPollMap.get(entry.getKey())))
-                .forEach(entry -> {
-                    Session session = entry.getValue();
-                    if (session != null && session.isOpen()) {
-                        try {
-                            session.getBasicRemote().sendText(updateMessage);
-                        } catch (IOException e) {
-                            logger.error("Fehler beim Senden der Update-Nachricht", e);
-                        }
-                    }
-                });
+            // Die initialen Daten braucht nur die neue Session, die übrigen Abonnenten sind bereits aktuell
+            outbox.send(PollUpdateEncoder.Update.ofSnapshot(encoder.snapshotMessage(snapshot)));
         } catch (Exception e) {
             logger.error("Fehler beim Senden der initialen Poll-Daten", e);
         }
     }
     
     /**
-     * Startet den Scheduler für regelmäßige Updates
+     * Startet den Scheduler für regelmäßige Updates. Er schließt außerdem Sessions, die mit dem
+     * Empfang zu weit hinterherhängen, auch wenn für ihre Umfrage keine neuen Updates anfallen.
      */
     public static void startUpdateScheduler() {
         scheduler.scheduleAtFixedRate(() -> {
             try {
                 logger.debug("WebSocket-Update-Scheduler läuft");
+                int evicted = subscriptions.evictLagging();
+                if (evicted > 0) {
+                    logger.info("{} langsame WebSocket-Sessions geschlossen", evicted);
+                }
             } catch (Exception e) {
                 logger.error("Fehler im WebSocket-Update-Scheduler", e);
             }
@@ -0,0 +1,229 @@
+package link.hsos.livepoll.websocket;
+
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import link.hsos.livepoll.service.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ausgehende Nachrichten einer WebSocket-Session.
+ * <p>
+ * Nachrichten werden über {@code getAsyncRemote()} verschickt, sodass ein langsamer Client keinen
+ * sendenden Thread blockiert. Je Session ist höchstens eine Nachricht unterwegs. Für Updates gibt es
+ * daneben genau einen wartenden Platz: ein neueres Update ersetzt ein noch nicht verschicktes älteres.
+ * Da dem Client damit ein DELTA fehlt, erhält er für das ersetzende Update den SNAPSHOT statt des DELTA
+ * (siehe {@link PollUpdateEncoder}). Steuernachrichten wie PONG werden nicht ersetzt, sondern in
+ * Reihenfolge vor dem wartenden Update verschickt.
+ * <p>
+ * Ist eine Nachricht länger als die erlaubte Verzögerung unterwegs, gilt der Client als abgehängt und
+ * die Verbindung wird mit {@link CloseReason.CloseCodes#TRY_AGAIN_LATER} geschlossen; der Client
+ * verbindet sich neu und erhält dabei den aktuellen Stand.
+ */
+public final class SessionOutbox {
+    private static final Logger logger = LoggerFactory.getLogger(SessionOutbox.class);
+    private static final int MAX_PENDING_CONTROL = 4;
+
+    private static final LongAdder messagesSent = MetricsRegistry.getInstance().counter("ws.messages.sent");
+    private static final LongAdder sendFailures = MetricsRegistry.getInstance().counter("ws.messages.failed");
+    private static final LongAdder messagesReplaced = MetricsRegistry.getInstance().counter("ws.messages.replaced");
+    private static final LongAdder messagesDropped = MetricsRegistry.getInstance().counter("ws.messages.dropped");
+    private static final LongAdder sessionsEvicted = MetricsRegistry.getInstance().counter("ws.sessions.evicted");
+
+    private final Session session;
+    private final long maxLagNanos;
+    private final Deque<String> pendingControl = new ArrayDeque<>();
+    private PollUpdateEncoder.Update pendingUpdate;
+    private boolean missedUpdate;
+    private boolean inFlight;
+    private long inFlightSince;
+    private boolean closed;
+
+    /**
+     * @param session Die WebSocket-Session
+     * @param maxLagMs Maximale Dauer, die eine Nachricht unterwegs sein darf, bevor die Session geschlossen wird
+     */
+    public SessionOutbox(Session session, long maxLagMs) {
+        this.session = session;
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, maxLagMs));
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * Verschickt ein Update. Ist bereits eine Nachricht unterwegs, ersetzt es ein noch wartendes Update.
+     *
+     * @param update Das Update mit DELTA- und SNAPSHOT-Nachricht
+     */
+    public void send(PollUpdateEncoder.Update update) {
+        String toSend = null;
+        boolean lagging = false;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (inFlight) {
+                if (pendingUpdate != null) {
+                    messagesReplaced.increment();
+                    missedUpdate = true;
+                }
+                pendingUpdate = update;
+                lagging = isLagging();
+            } else {
+                startSending();
+                toSend = select(update);
+            }
+        }
+        if (toSend != null) {
+            transmit(toSend);
+        } else if (lagging) {
+            evict();
+        }
+    }
+
+    /**
+     * Verschickt eine Steuernachricht, die nicht durch spätere Nachrichten ersetzt wird.
+     *
+     * @param message Die serialisierte Nachricht
+     */
+    public void sendControl(String message) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (inFlight) {
+                if (pendingControl.size() < MAX_PENDING_CONTROL) {
+                    pendingControl.addLast(message);
+                } else {
+                    messagesDropped.increment();
+                }
+                return;
+            }
+            startSending();
+        }
+        transmit(message);
+    }
+
+    /**
+     * @return Wie lange die aktuelle Nachricht bereits unterwegs ist, 0 wenn keine unterwegs ist
+     */
+    public synchronized long getLagMillis() {
+        return inFlight ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inFlightSince) : 0;
+    }
+
+    /**
+     * Schließt die Session, wenn ihre Nachricht länger als erlaubt unterwegs ist.
+     *
+     * @return true, wenn die Session geschlossen wurde
+     */
+    public boolean evictIfLagging() {
+        synchronized (this) {
+            if (closed || !inFlight || !isLagging()) {
+                return false;
+            }
+        }
+        evict();
+        return true;
+    }
+
+    /**
+     * Verwirft wartende Nachrichten, z.B. nachdem die Session geschlossen wurde.
+     */
+    public synchronized void close() {
+        closed = true;
+        discardPending();
+    }
+
+    private boolean isLagging() {
+        return System.nanoTime() - inFlightSince > maxLagNanos;
+    }
+
+    /**
+     * Wählt die zu sendende Nachricht eines Updates: das DELTA, sofern der Client kein Update verpasst hat.
+     */
+    private String select(PollUpdateEncoder.Update update) {
+        String message = missedUpdate || update.getDelta() == null ? update.getSnapshot() : update.getDelta();
+        missedUpdate = false;
+        return message;
+    }
+
+    private void startSending() {
+        inFlight = true;
+        inFlightSince = System.nanoTime();
+    }
+
+    private void transmit(String message) {
+        if (!session.isOpen()) {
+            close();
+            return;
+        }
+        try {
+            session.getAsyncRemote().sendText(message, this::onResult);
+        } catch (RuntimeException e) {
+            // Z.B. IllegalStateException, wenn die Session gerade geschlossen wird
+            onResult(new SendResult(e));
+        }
+    }
+
+    private void onResult(SendResult result) {
+        if (result.isOK()) {
+            messagesSent.increment();
+        } else {
+            sendFailures.increment();
+            logger.debug("Nachricht an WebSocket-Session {} konnte nicht gesendet werden: {}",
+                    session.getId(), result.getException() != null ? result.getException().getMessage() : null);
+        }
+
+        String next;
+        synchronized (this) {
+            next = pendingControl.pollFirst();
+            if (next == null && pendingUpdate != null) {
+                next = select(pendingUpdate);
+                pendingUpdate = null;
+            }
+            if (next == null || closed) {
+                inFlight = false;
+                return;
+            }
+            startSending();
+        }
+        transmit(next);
+    }
+
+    private void evict() {
+        long lagMs;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lagMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inFlightSince);
+            discardPending();
+        }
+        sessionsEvicted.increment();
+        logger.warn("WebSocket-Session {} hängt seit {} ms hinterher und wird geschlossen", session.getId(), lagMs);
+        try {
+            session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Verbindung zu langsam"));
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Fehler beim Schließen der WebSocket-Session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private void discardPending() {
+        int dropped = pendingControl.size() + (pendingUpdate != null ? 1 : 0);
+        if (dropped > 0) {
+            messagesDropped.add(dropped);
+        }
+        pendingControl.clear();
+        pendingUpdate = null;
+    }
+}
@@ -1,6 +1,6 @@
 package link.hsos.livepoll.websocket;
 
-import link.hsos.livepoll.model.Poll;
+import link.hsos.livepoll.service.PollSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,18 +18,27 @@ public class WebSocketManager {
     /**
      * Sendet ein Update für einen Poll an alle verbundenen WebSocket-Clients
      * 
-     * @param pollId Die ID des Polls
-     * @param poll Der aktualisierte Poll
+     * @param snapshot Der aktuelle Stand des Polls
      */
-    public static void broadcastPollUpdate(String pollId, Poll poll) {
+    public static void broadcastPollUpdate(PollSnapshot snapshot) {
         try {
-            PollWebSocketEndpoint.broadcastPollUpdate(pollId, poll);
-            logger.debug("Poll-Update für Poll {} erfolgreich gesendet", pollId);
+            PollWebSocketEndpoint.broadcastPollUpdate(snapshot);
+            logger.debug("Poll-Update für Poll {} erfolgreich gesendet", snapshot.getId());
         } catch (Exception e) {
-            logger.error("Fehler beim Senden des Poll-Updates für Poll: {}", pollId, e);
+            logger.error("Fehler beim Senden des Poll-Updates für Poll: {}", snapshot.getId(), e);
         }
     }
     
+    /**
+     * Prüft, ob Updates für einen Poll Empfänger haben
+     * 
+     * @param pollId Die ID des Polls
+     * @return true, wenn mindestens ein WebSocket-Client den Poll abonniert hat
+     */
+    public static boolean hasSubscribers(String pollId) {
+        return PollWebSocketEndpoint.hasSubscribers(pollId);
+    }
+    
     /**
      * Startet den WebSocket-Update-Scheduler
      */
@@ -1,26 +1,91 @@
 package link.hsos.livepoll.websocket;
 
+import link.hsos.livepoll.config.LivePollConfig;
+import link.hsos.livepoll.config.ThreadFactories;
+import link.hsos.livepoll.service.PollSnapshot;
 import link.hsos.livepoll.service.events.PollUpdatedEvent;
 import link.hsos.livepoll.service.events.PollUpdatePublisher;
+import link.hsos.livepoll.service.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.Executor;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
-public class WebSocketPublisher implements PollUpdatePublisher {
+/**
+ * Leitet PollUpdatedEvents gebündelt an die WebSocket-Clients weiter.
+ * <p>
+ * Ein Event markiert die Umfrage nur als geändert. Nach Ablauf des Intervalls
+ * {@code ws.broadcast.interval.ms} wird je geänderter Umfrage ein einziges Update mit dem dann
+ * aktuellen Stand verschickt, sodass die Zahl der Nachrichten pro Umfrage unabhängig von der
+ * Anzahl der Stimmen begrenzt ist.
+ */
+public final class WebSocketPublisher implements PollUpdatePublisher {
     private static final Logger logger = LoggerFactory.getLogger(WebSocketPublisher.class);
-    private final Executor executor = Executors.newSingleThreadExecutor();
-    
+
+    private final Function<String, Optional<PollSnapshot>> snapshotLoader;
+    private final long intervalMs = Math.max(1, LivePollConfig.getLong("ws.broadcast.interval.ms", 100));
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(ThreadFactories.named("ws-publisher"));
+    private final Set<String> dirtyPolls = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final LongAdder eventsReceived;
+    private final LongAdder updatesSent;
+
+    /**
+     * @param snapshotLoader Liefert den aktuellen Stand einer Umfrage, leer wenn sie nicht mehr existiert
+     */
+    public WebSocketPublisher(Function<String, Optional<PollSnapshot>> snapshotLoader) {
+        this.snapshotLoader = snapshotLoader;
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        this.eventsReceived = metrics.counter("ws.publish.events");
+        this.updatesSent = metrics.counter("ws.publish.updates");
+        metrics.gauge("ws.publish.dirty", dirtyPolls::size);
+    }
+
     @Override
     public void publish(PollUpdatedEvent event) {
-        executor.execute(() -> {
+        eventsReceived.increment();
+        dirtyPolls.add(event.getPollId());
+        if (flushScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::flush, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        List<String> changed = new ArrayList<>();
+        for (Iterator<String> it = dirtyPolls.iterator(); it.hasNext(); ) {
+            changed.add(it.next());
+            it.remove();
+        }
+
+        for (String pollId : changed) {
+            if (!WebSocketManager.hasSubscribers(pollId)) {
+                continue;
+            }
             try {
-                WebSocketManager.broadcastPollUpdate(event.getPollId(), null);
-                logger.debug("WebSocket-Update für Poll {} gesendet", event.getPollId());
+                Optional<PollSnapshot> snapshot = snapshotLoader.apply(pollId);
+                if (snapshot.isEmpty()) {
+                    continue;
+                }
+                WebSocketManager.broadcastPollUpdate(snapshot.get());
+                updatesSent.increment();
+                logger.debug("WebSocket-Update für Poll {} gesendet", pollId);
             } catch (Exception e) {
-                logger.warn("Fehler beim Senden des WebSocket-Updates für Poll: {}", event.getPollId(), e);
+                logger.warn("Fehler beim Senden des WebSocket-Updates für Poll: {}", pollId, e);
             }
-        });
+        }
     }
 }
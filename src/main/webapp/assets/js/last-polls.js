@@ -19,8 +19,8 @@ async function loadRecentPolls() {
         loading.style.display = 'flex';
         error.style.display = 'none';
         
-        const polls = await getPolls();
-        recentPollsData = polls.slice(0, 6);
+        const page = await getPollsPage({ limit: 6, view: 'summary' });
+        recentPollsData = page.polls;
         
         updateRecentPollsList(recentPollsData);
         
@@ -125,7 +125,7 @@ function createRecentPollTableRow(poll) {
             <i class="fas fa-users"></i> ${poll.totalVotes || 0}
         </td>
         <td class="poll-meta-cell">
-            <i class="fas fa-list"></i> ${poll.options ? poll.options.length : 0}
+            <i class="fas fa-list"></i> ${poll.optionCount || 0}
         </td>
         <td class="poll-progress-cell">
             ${progressHtml}
@@ -48,6 +48,10 @@ async function apiRequest(endpoint, options = {}) {
                 throw new Error('Diese Umfrage ist nicht mehr aktiv');
             } else if (errorData.errorCode === 'OPTION_NOT_FOUND') {
                 throw new Error('Die ausgewählte Option wurde nicht gefunden');
+            } else if (errorData.errorCode === 'RATE_LIMITED' || errorData.errorCode === 'VOTING_OVERLOADED') {
+                const overloaded = new Error('Gerade stimmen sehr viele gleichzeitig ab, bitte kurz warten');
+                overloaded.retryAfter = errorData.retryAfter || Number(response.headers.get('Retry-After')) || 1;
+                throw overloaded;
             }
             
             throw new Error(errorData.error || `HTTP ${response.status}`);
@@ -73,6 +77,11 @@ async function getPolls() {
     return apiRequest('polls');
 }
 
+async function getPollsPage(params = {}) {
+    const query = new URLSearchParams(params).toString();
+    return apiRequest(query ? `polls?${query}` : 'polls');
+}
+
 async function getActivePolls() {
     return apiRequest('polls/active');
 }
@@ -94,7 +103,7 @@ async function getPollResults(id) {
     const results = {};
 
     poll.options.forEach(option => {
-        results[option.text] = option.votes;
+        results[option.id] = option.votes;
     });
 
     return results;
@@ -102,28 +111,49 @@ async function getPollResults(id) {
 
 async function vote(pollId, optionId, userIddd = 'anonymous') {
     const { userId, signature } = await getUserIdAndsignature();
-    return apiRequest(`polls/${pollId}/vote`, {
-        method: 'POST',
-        headers: {
-            'Content-Type': 'application/json',
-            'X-Voter-ID': userId,
-            'X-Signature': signature
-        },
-        body: JSON.stringify({optionId, userId})
-    });
+    return submitVoteRequest(`polls/${pollId}/vote`, userId, signature, JSON.stringify({optionId, userId}));
 }
 
 async function voteMultiple(pollId, optionIds, userIddd = 'anonymous') {
     const { userId, signature } = await getUserIdAndsignature();
-    return apiRequest(`polls/${pollId}/vote-multiple`, {
-        method: 'POST',
-        headers: {
-            'Content-Type': 'application/json',
-            'X-Voter-ID': userId,
-            'X-Signature': signature
-        },
-        body: JSON.stringify({optionIds, userId})
-    });
+    return submitVoteRequest(`polls/${pollId}/vote-multiple`, userId, signature, JSON.stringify({optionIds, userId}));
+}
+
+// Stimmabgabe mit Idempotency-Key: Bei Netzwerkfehlern wird mit demselben Schlüssel
+// wiederholt, der Server liefert dann die Antwort der ursprünglichen Anfrage.
+async function submitVoteRequest(endpoint, userId, signature, body, maxRetries = 2) {
+    const idempotencyKey = createIdempotencyKey();
+    for (let attempt = 0; ; attempt++) {
+        try {
+            return await apiRequest(endpoint, {
+                method: 'POST',
+                headers: {
+                    'Content-Type': 'application/json',
+                    'X-Voter-ID': userId,
+                    'X-Signature': signature,
+                    'Idempotency-Key': idempotencyKey
+                },
+                body
+            });
+        } catch (error) {
+            const retryable = error instanceof TypeError || error.retryAfter;
+            if (!retryable || attempt >= maxRetries) {
+                throw error;
+            }
+            // Bei Überlast Retry-After abwarten, mit Zufallsanteil gegen gleichzeitige Wiederholungen
+            const delay = error.retryAfter
+                ? error.retryAfter * 1000 + Math.random() * 1000
+                : 500 * (attempt + 1);
+            await new Promise(resolve => setTimeout(resolve, delay));
+        }
+    }
+}
+
+function createIdempotencyKey() {
+    if (window.crypto && typeof window.crypto.randomUUID === 'function') {
+        return window.crypto.randomUUID();
+    }
+    return `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}`;
 }
 
 async function getUserIdAndsignature() {
@@ -5,6 +5,7 @@ let pollDetailIsVoting = false;
 let pollDetailSelectedOptions = [];
 let pollDetailVotingToken = null;
 let pollDetailPollId = null;
+let pollDetailLiveResults = null;
 let pollDetailReconnectAttempts = 0;
 let pollDetailMaxReconnectAttempts = 5; 
 let pollDetailReconnectDelay = 1000;
@@ -160,6 +161,8 @@ async function setupWebSocket() {
     try {
         pollDetailWebSocket = new WebSocket(wsUrl);
         
+        pollDetailLiveResults = createLiveResults();
+        
         pollDetailWebSocket.onopen = function(event) {
             pollDetailReconnectAttempts = 0;
             
@@ -172,7 +175,13 @@ async function setupWebSocket() {
         pollDetailWebSocket.onmessage = function(event) {
             try {
                 const data = JSON.parse(event.data);
-                handleWebSocketMessage(data);
+                const message = pollDetailLiveResults.apply(data);
+                if (message) {
+                    handleWebSocketMessage(message);
+                } else {
+                    // Update verpasst, vollständigen Stand neu anfordern
+                    pollDetailWebSocket.send(JSON.stringify({ type: 'SUBSCRIBE', pollId: pollId }));
+                }
             } catch (error) {
                 console.error('Fehler beim Parsen der WebSocket-Nachricht:', error);
             }
@@ -211,9 +220,10 @@ function handleWebSocketMessage(data) {
     
     if (data.pollId && data.results) {
         if (pollDetailCurrentPoll && pollDetailCurrentPoll.options) {
+            const votesById = new Map(data.results.options.map(result => [result.id, result.votes]));
             pollDetailCurrentPoll.options.forEach(option => {
-                if (data.results.hasOwnProperty(option.text)) {
-                    option.votes = data.results[option.text];
+                if (votesById.has(option.id)) {
+                    option.votes = votesById.get(option.id);
                 }
             });
             
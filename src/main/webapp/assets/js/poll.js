@@ -177,7 +177,7 @@ async function loadPollResults() {
         const results = await getPollResults(currentPoll.id);
         
         currentPoll.options.forEach(option => {
-            option.votes = results[option.text] || 0;
+            option.votes = results[option.id] || 0;
         });
         
         currentPoll.totalVotes = currentPoll.options.reduce((sum, option) => sum + option.votes, 0);
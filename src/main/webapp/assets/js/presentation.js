@@ -1,9 +1,12 @@
 let pollId = null;
 let currentPoll = null;
 let webSocket = null;
+let eventSource = null;
 let isFullscreen = false;
 let isPageVisible = true;
 let longPollingInterval = null;
+let pollVersion = null;
+let liveResults = null;
 let reconnectAttempts = 0;
 let maxReconnectAttempts = 5; // Sollte mit Backend-Konfiguration synchronisiert werden
 let reconnectDelay = 1000; // Sollte mit Backend-Konfiguration synchronisiert werden
@@ -44,7 +47,10 @@ function startLongPolling() {
 
 async function performLongPolling() {
     try {
-        const response = await fetch(`/api/polls/${pollId}/wait`, {
+        const url = pollVersion
+            ? `/api/polls/${pollId}/wait?since=${encodeURIComponent(pollVersion)}`
+            : `/api/polls/${pollId}/wait`;
+        const response = await fetch(url, {
             method: 'GET',
             headers: {
                 'Cache-Control': 'no-cache',
@@ -56,6 +62,7 @@ async function performLongPolling() {
             throw new Error(`HTTP ${response.status}: ${response.statusText}`);
         }
         
+        pollVersion = response.headers.get('X-Poll-Version') || pollVersion;
         const poll = await response.json();
         currentPoll = poll;
         
@@ -171,11 +178,12 @@ async function loadPollResults() {
         }
         
         const results = await response.json();
+        const votesById = new Map((results.options || []).map(option => [option.id, option.votes]));
         
         if (currentPoll && currentPoll.options) {
             currentPoll.options.forEach(option => {
-                if (results[option.text] !== undefined) {
-                    option.voteCount = results[option.text];
+                if (votesById.has(option.id)) {
+                    option.voteCount = votesById.get(option.id);
                 }
             });
             
@@ -551,6 +559,8 @@ function setupWebSocket() {
     try {
         webSocket = new WebSocket(wsUrl);
         
+        liveResults = createLiveResults();
+        
         webSocket.onopen = function(event) {
             reconnectAttempts = 0;
             
@@ -564,7 +574,13 @@ function setupWebSocket() {
         webSocket.onmessage = function(event) {
             try {
                 const data = JSON.parse(event.data);
-                handleWebSocketMessage(data);
+                const message = liveResults.apply(data);
+                if (message) {
+                    handleWebSocketMessage(message);
+                } else {
+                    // Update verpasst, vollständigen Stand neu anfordern
+                    webSocket.send(JSON.stringify({ type: 'SUBSCRIBE', pollId: pollId }));
+                }
             } catch (error) {
                 console.error('Fehler beim Parsen der WebSocket-Nachricht:', error);
             }
@@ -580,6 +596,8 @@ function setupWebSocket() {
                         setupWebSocket();
                     }
                 }, reconnectDelay * reconnectAttempts);
+            } else if (event.code !== 1000) {
+                setupEventStream();
             }
         };
         
@@ -595,9 +613,39 @@ function setupWebSocket() {
         
     } catch (error) {
         console.error('Fehler beim Erstellen der WebSocket-Verbindung:', error);
+        setupEventStream();
     }
 }
 
+// Fallback auf Server-Sent Events, wenn WebSockets (z.B. hinter einem Proxy) nicht nutzbar sind.
+// Der Browser verbindet sich selbstständig neu und setzt per Last-Event-ID fort.
+function setupEventStream() {
+    if (eventSource || typeof EventSource === 'undefined') {
+        return;
+    }
+
+    eventSource = new EventSource(`/api/polls/${pollId}/stream`);
+
+    eventSource.addEventListener('poll', function(event) {
+        try {
+            const poll = JSON.parse(event.data);
+            handleWebSocketMessage({
+                pollId: poll.id,
+                question: poll.question,
+                status: poll.status,
+                results: { totalVotes: poll.totalVotes, options: poll.options }
+            });
+        } catch (error) {
+            console.error('Fehler beim Parsen des Server-Sent Events:', error);
+        }
+    });
+
+    eventSource.addEventListener('deleted', function() {
+        eventSource.close();
+        eventSource = null;
+    });
+}
+
 function closeWebSocketConnection() {
     if (webSocket) {
         if (webSocket.readyState === WebSocket.OPEN) {
@@ -615,9 +663,10 @@ function handleWebSocketMessage(data) {
             id: data.pollId,
             question: data.question,
             status: data.status,
-            options: Object.entries(data.results).map(([text, voteCount]) => ({
-                text: text,
-                voteCount: voteCount
+            options: data.results.options.map(option => ({
+                id: option.id,
+                text: option.text,
+                voteCount: option.votes
             }))
         };
         
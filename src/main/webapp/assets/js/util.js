@@ -223,6 +223,41 @@ function sharePoll(pollQuestion = 'LivePoll Umfrage') {
     }
 }
 
+// Live-Ergebnisse per WebSocket: SNAPSHOT enthält den vollständigen Stand, DELTA nur die geänderten
+// Stimmenzahlen je Options-ID. apply() liefert die vollständige Nachricht oder null, wenn ein DELTA nicht
+// an den bekannten Stand anschließt und per SUBSCRIBE neu synchronisiert werden muss.
+function createLiveResults() {
+    let seq = null;
+    let message = null;
+
+    return {
+        apply(data) {
+            if (data.type === 'SNAPSHOT') {
+                seq = data.seq;
+                message = data;
+                return data;
+            }
+            if (data.type !== 'DELTA') {
+                return data;
+            }
+            if (message === null || data.base !== seq) {
+                return null;
+            }
+
+            const totalVotes = data.totalVotes;
+            const options = message.results.options.map(option => {
+                const votes = option.id in data.votes ? data.votes[option.id] : option.votes;
+                const percentage = totalVotes > 0 ? Math.round(votes * 1000 / totalVotes) / 10 : 0;
+                return { ...option, votes, percentage };
+            });
+
+            seq = data.seq;
+            message = { ...message, seq, results: { ...message.results, totalVotes, options } };
+            return message;
+        }
+    };
+}
+
 function startAutoRefresh(callback, interval = 3000) {
     let refreshInterval = setInterval(callback, interval);
     
@@ -3,6 +3,7 @@ const pollId = urlPrams.get('code');
 let hasVoted = false;
 let votingPoll = null;
 let longPollingActive = false;
+let pollVersion = null;
 
 if (pollId) {
     loadPollForVoting(pollId);
@@ -213,6 +214,12 @@ function showNoPoll() {
     document.getElementById('no-poll').style.display = 'block';
 }
 
+// Mit der zuletzt gesehenen Version antwortet der Server sofort, falls sich die Umfrage inzwischen geändert hat
+function longPollingUrl(pollId) {
+    const url = `/api/polls/${pollId}/wait`;
+    return pollVersion ? `${url}?since=${encodeURIComponent(pollVersion)}` : url;
+}
+
 async function startLongPollingForActivation(pollId) {
     if (longPollingActive) {
         return;
@@ -221,7 +228,7 @@ async function startLongPollingForActivation(pollId) {
     longPollingActive = true;
     
     try {
-        const response = await fetch(`/api/polls/${pollId}/wait`, {
+        const response = await fetch(longPollingUrl(pollId), {
             method: 'GET',
             headers: {
                 'Content-Type': 'application/json',
@@ -229,6 +236,7 @@ async function startLongPollingForActivation(pollId) {
         });
         
         if (response.ok) {
+            pollVersion = response.headers.get('X-Poll-Version') || pollVersion;
             const updatedPoll = await response.json();
             
             votingPoll = updatedPoll;
@@ -264,7 +272,7 @@ async function startLongPollingForStatusChanges(pollId) {
     longPollingActive = true;
     
     try {
-        const response = await fetch(`/api/polls/${pollId}/wait`, {
+        const response = await fetch(longPollingUrl(pollId), {
             method: 'GET',
             headers: {
                 'Content-Type': 'application/json',
@@ -272,6 +280,7 @@ async function startLongPollingForStatusChanges(pollId) {
         });
         
         if (response.ok) {
+            pollVersion = response.headers.get('X-Poll-Version') || pollVersion;
             const updatedPoll = await response.json();
             
             votingPoll = updatedPoll;
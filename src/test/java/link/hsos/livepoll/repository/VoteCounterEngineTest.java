@@ -0,0 +1,151 @@
+package link.hsos.livepoll.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prüft den Fehlerpfad beim Schreiben gepufferter Stimmen: Schlägt die gemeinsame Transaktion fehl,
+ * werden die Stimmabgaben einzeln geschrieben und nur die auch einzeln fehlgeschlagenen aus den
+ * Zählern und dem Index der Abstimmenden zurückgenommen.
+ */
+class VoteCounterEngineTest {
+
+    private static final String POLL_ID = "poll-1";
+    private static final List<Long> OPTION_IDS = List.of(1L, 2L);
+
+    private Session session;
+    private VoteCounterEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        session = mock(Session.class);
+        // Der Flush-Scheduler wird nicht gestartet, geschrieben wird nur über flush()
+        engine = new VoteCounterEngine(mockDatabase(session), 60_000, 1_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void failedBatchWritesBallotsSinglyAndRevertsOnlyFailedOnes() {
+        engine.track(POLL_ID, false, OPTION_IDS);
+        CompletableFuture<Boolean> first = new CompletableFuture<>();
+        CompletableFuture<Boolean> second = new CompletableFuture<>();
+        assertEquals(VoteCounterEngine.RecordResult.RECORDED, engine.record(POLL_ID, List.of(1L), "user-a", first));
+        assertEquals(VoteCounterEngine.RecordResult.RECORDED, engine.record(POLL_ID, List.of(2L), "user-b", second));
+        assertEquals(Map.of(1L, 1L, 2L, 1L), engine.getCounts(POLL_ID));
+
+        // Gemeinsame Transaktion scheitert, einzeln gelingt die erste Stimmabgabe, die zweite nicht
+        doThrow(writeFailure()).doNothing().doThrow(writeFailure()).when(session).doWork(any(Work.class));
+
+        assertEquals(1, engine.flush(List.of(POLL_ID)));
+        assertTrue(first.join());
+        assertFalse(second.join());
+        assertEquals(Map.of(1L, 1L, 2L, 0L), engine.getCounts(POLL_ID));
+        assertTrue(engine.hasVoted(POLL_ID, "user-a"));
+        assertFalse(engine.hasVoted(POLL_ID, "user-b"));
+        assertEquals(0, engine.getPendingCount());
+
+        // Nach der Rücknahme darf der Benutzer erneut abstimmen
+        doNothing().when(session).doWork(any(Work.class));
+        CompletableFuture<Boolean> retry = new CompletableFuture<>();
+        assertEquals(VoteCounterEngine.RecordResult.RECORDED, engine.record(POLL_ID, List.of(2L), "user-b", retry));
+        assertEquals(0, engine.flush(List.of(POLL_ID)));
+        assertTrue(retry.join());
+        assertEquals(Map.of(1L, 1L, 2L, 1L), engine.getCounts(POLL_ID));
+    }
+
+    @Test
+    void failedBallotIsRevertedForAllOfItsOptions() {
+        engine.track(POLL_ID, true, OPTION_IDS);
+        CompletableFuture<Boolean> written = new CompletableFuture<>();
+        engine.record(POLL_ID, OPTION_IDS, "user-a", written);
+
+        doThrow(writeFailure()).when(session).doWork(any(Work.class));
+
+        assertEquals(1, engine.flush(List.of(POLL_ID)));
+        assertFalse(written.join());
+        assertEquals(Map.of(1L, 0L, 2L, 0L), engine.getCounts(POLL_ID));
+        assertFalse(engine.hasVoted(POLL_ID, "user-a"));
+    }
+
+    @Test
+    void revertKeepsVoterRegisteredByEarlierBallot() {
+        engine.track(POLL_ID, true, OPTION_IDS);
+        CompletableFuture<Boolean> first = new CompletableFuture<>();
+        engine.record(POLL_ID, List.of(1L), "user-a", first);
+        engine.flush(List.of(POLL_ID));
+        assertTrue(first.join());
+
+        doThrow(writeFailure()).when(session).doWork(any(Work.class));
+        CompletableFuture<Boolean> second = new CompletableFuture<>();
+        engine.record(POLL_ID, List.of(2L), "user-a", second);
+
+        assertEquals(1, engine.flush(List.of(POLL_ID)));
+        assertFalse(second.join());
+        assertEquals(Map.of(1L, 1L, 2L, 0L), engine.getCounts(POLL_ID));
+        assertTrue(engine.hasVoted(POLL_ID, "user-a"));
+    }
+
+    @Test
+    void flushWritesOnlyRequestedPolls() {
+        engine.track(POLL_ID, false, OPTION_IDS);
+        engine.track("poll-2", false, List.of(3L));
+        CompletableFuture<Boolean> requested = new CompletableFuture<>();
+        CompletableFuture<Boolean> other = new CompletableFuture<>();
+        engine.record(POLL_ID, List.of(1L), "user-a", requested);
+        engine.record("poll-2", List.of(3L), "user-a", other);
+
+        engine.flush(List.of(POLL_ID));
+
+        assertTrue(requested.join());
+        assertFalse(other.isDone());
+        assertEquals(1, engine.getPendingCount());
+    }
+
+    static PersistenceException writeFailure() {
+        return new PersistenceException("Schreiben fehlgeschlagen");
+    }
+
+    /**
+     * Datenbank ohne Stimmen: Die Rekonstruktion beim Aufnehmen findet nichts, geschrieben wird
+     * über {@link Session#doWork(Work)} der übergebenen Session.
+     */
+    @SuppressWarnings("unchecked")
+    static JpaDatabaseManager mockDatabase(Session session) {
+        EntityManager em = mock(EntityManager.class);
+        when(em.getTransaction()).thenReturn(mock(EntityTransaction.class));
+        when(em.createQuery(anyString(), any(Class.class))).thenReturn(mock(TypedQuery.class, RETURNS_SELF));
+        when(em.createNativeQuery(anyString())).thenReturn(mock(Query.class, RETURNS_SELF));
+        when(em.unwrap(Session.class)).thenReturn(session);
+
+        JpaDatabaseManager dbManager = mock(JpaDatabaseManager.class);
+        when(dbManager.createEntityManager()).thenReturn(em);
+        return dbManager;
+    }
+}
@@ -0,0 +1,215 @@
+package link.hsos.livepoll.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VoterIndexTest {
+
+    private static final int THREADS = 8;
+    // Kleinste Tabelle: 64 Slots, davon werden höchstens 32 belegt
+    private static final int FIRST_GENERATION_KEYS = 32;
+
+    @Test
+    void addReportsDuplicates() {
+        VoterIndex index = new VoterIndex(10);
+        String uuid = UUID.randomUUID().toString();
+
+        assertTrue(index.add(uuid));
+        assertFalse(index.add(uuid));
+        assertTrue(index.add("kein-uuid-format"));
+        assertFalse(index.add("kein-uuid-format"));
+        assertTrue(index.contains(uuid));
+        assertFalse(index.contains(UUID.randomUUID().toString()));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void concurrentInsertOfSameUuidSucceedsExactlyOnce() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            VoterIndex index = new VoterIndex(0);
+            String uuid = UUID.randomUUID().toString();
+
+            List<Boolean> results = runConcurrently(THREADS, thread -> index.add(uuid));
+
+            assertEquals(1, results.stream().filter(Boolean::booleanValue).count());
+            assertEquals(1, index.size());
+            assertTrue(index.contains(uuid));
+        }
+    }
+
+    @Test
+    void concurrentInsertOfDifferentUuidsKeepsAllAcrossResizes() throws Exception {
+        int perThread = 5_000;
+        List<List<String>> keys = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            keys.add(randomUuids(perThread));
+        }
+        // Startet mit der kleinsten Tabelle, sodass während des Einfügens mehrfach vergrößert wird
+        VoterIndex index = new VoterIndex(0);
+
+        List<Boolean> results = runConcurrently(THREADS, thread -> {
+            boolean allInserted = true;
+            for (String key : keys.get(thread)) {
+                allInserted &= index.add(key);
+            }
+            return allInserted;
+        });
+
+        assertFalse(results.contains(false));
+        assertEquals(THREADS * perThread, index.size());
+        for (List<String> threadKeys : keys) {
+            for (String key : threadKeys) {
+                assertTrue(index.contains(key));
+                assertFalse(index.add(key));
+            }
+        }
+        assertEquals(THREADS * perThread, index.size());
+    }
+
+    @Test
+    void duplicatesAreDetectedWhileTheIndexGrows() throws Exception {
+        VoterIndex index = new VoterIndex(0);
+        List<String> existing = randomUuids(FIRST_GENERATION_KEYS);
+        existing.forEach(index::add);
+        List<String> added = randomUuids(20_000);
+
+        // Die Hälfte der Threads trägt neue Benutzer ein und erzwingt neue Tabellen,
+        // die andere Hälfte wiederholt die bereits enthaltenen Benutzer
+        List<Boolean> results = runConcurrently(THREADS, thread -> {
+            if (thread % 2 == 0) {
+                boolean allInserted = true;
+                for (int i = thread / 2; i < added.size(); i += THREADS / 2) {
+                    allInserted &= index.add(added.get(i));
+                }
+                return allInserted;
+            }
+            boolean anyInserted = false;
+            for (int repeat = 0; repeat < 50; repeat++) {
+                for (String key : existing) {
+                    anyInserted |= index.add(key);
+                }
+            }
+            return !anyInserted;
+        });
+
+        assertFalse(results.contains(false));
+        assertEquals(FIRST_GENERATION_KEYS + added.size(), index.size());
+        for (String key : added) {
+            assertFalse(index.add(key));
+        }
+    }
+
+    @Test
+    void keyBehindSealedSlotIsFoundInNextGeneration() throws Exception {
+        VoterIndex index = new VoterIndex(0);
+        List<String> first = randomUuids(FIRST_GENERATION_KEYS);
+        first.forEach(key -> assertTrue(index.add(key)));
+
+        // Die erste Tabelle ist voll: Der erste freie Slot wird versiegelt und der Schlüssel
+        // landet in der Folgetabelle
+        String sealed = UUID.randomUUID().toString();
+        assertTrue(index.add(sealed));
+        assertFalse(index.add(sealed));
+        assertTrue(index.contains(sealed));
+
+        // Gleichzeitiges Einfügen desselben Schlüssels über versiegelte Slots hinweg
+        String contended = UUID.randomUUID().toString();
+        List<Boolean> results = runConcurrently(THREADS, thread -> index.add(contended));
+        assertEquals(1, results.stream().filter(Boolean::booleanValue).count());
+
+        for (String key : first) {
+            assertFalse(index.add(key));
+        }
+        assertEquals(FIRST_GENERATION_KEYS + 2, index.size());
+    }
+
+    @Test
+    void removedUserCanBeAddedAgain() {
+        VoterIndex index = new VoterIndex(0);
+        List<String> keys = randomUuids(200);
+        keys.forEach(index::add);
+        String removed = keys.get(0);
+        String removedLater = keys.get(keys.size() - 1);
+
+        assertTrue(index.remove(removed));
+        assertTrue(index.remove(removedLater));
+        assertFalse(index.remove(removed));
+        assertFalse(index.contains(removed));
+        assertFalse(index.contains(removedLater));
+        assertEquals(keys.size() - 2, index.size());
+
+        assertTrue(index.add(removed));
+        assertFalse(index.add(removed));
+        assertTrue(index.contains(removed));
+        assertEquals(keys.size() - 1, index.size());
+        assertFalse(index.remove(UUID.randomUUID().toString()));
+    }
+
+    @Test
+    void concurrentReAddOfRemovedUserSucceedsExactlyOnce() throws Exception {
+        VoterIndex index = new VoterIndex(0);
+        String uuid = UUID.randomUUID().toString();
+        for (int round = 0; round < 200; round++) {
+            index.add(uuid);
+            assertTrue(index.remove(uuid));
+
+            List<Boolean> results = runConcurrently(THREADS, thread -> index.add(uuid));
+
+            assertEquals(1, results.stream().filter(Boolean::booleanValue).count());
+            assertEquals(1, index.size());
+        }
+    }
+
+    private static List<String> randomUuids(int count) {
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(UUID.randomUUID().toString());
+        }
+        return keys;
+    }
+
+    /**
+     * Startet alle Aufgaben gleichzeitig und liefert ihre Ergebnisse in Thread-Reihenfolge.
+     */
+    private static <T> List<T> runConcurrently(int threads, ThreadTask<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int number = thread;
+                Callable<T> call = () -> {
+                    start.await();
+                    return task.run(number);
+                };
+                futures.add(executor.submit(call));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask<T> {
+        T run(int thread);
+    }
+}
@@ -0,0 +1,48 @@
+package link.hsos.livepoll.service;
+
+import link.hsos.livepoll.model.Option;
+import link.hsos.livepoll.model.Poll;
+import link.hsos.livepoll.model.PollStatus;
+import link.hsos.livepoll.model.PollType;
+
+import java.util.Map;
+
+/**
+ * Erzeugt Stände von Umfragen für Tests außerhalb von {@code link.hsos.livepoll.service}.
+ */
+public final class PollSnapshotFixtures {
+
+    private PollSnapshotFixtures() {
+    }
+
+    /**
+     * Eine aktive Umfrage mit den angegebenen Options-IDs, alle ohne Stimmen.
+     */
+    public static PollSnapshot activePoll(String pollId, long structureVersion, long version, Long... optionIds) {
+        Poll poll = new Poll("Frage?", PollType.SINGLE_CHOICE);
+        poll.setId(pollId);
+        poll.setStatus(PollStatus.ACTIVE);
+        for (Long optionId : optionIds) {
+            Option option = new Option("Option " + optionId);
+            option.setId(optionId);
+            poll.getOptions().add(option);
+        }
+        return PollSnapshot.of(poll, "test", structureVersion, version);
+    }
+
+    /**
+     * Derselbe Stand mit neuen Stimmenzahlen und neuer Version.
+     */
+    public static PollSnapshot withCounts(PollSnapshot snapshot, Map<Long, Long> counts, long version) {
+        return snapshot.withCounts(counts, version);
+    }
+
+    /**
+     * Derselbe Stand mit anderem Status, z.B. nach dem Schließen der Umfrage.
+     */
+    public static PollSnapshot withStatus(PollSnapshot snapshot, PollStatus status, long version) {
+        Poll poll = snapshot.toPoll();
+        poll.setStatus(status);
+        return PollSnapshot.of(poll, "test", snapshot.getStructureVersion(), version);
+    }
+}
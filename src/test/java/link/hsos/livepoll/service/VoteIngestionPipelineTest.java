@@ -0,0 +1,95 @@
+package link.hsos.livepoll.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import link.hsos.livepoll.repository.JpaDatabaseManager;
+import link.hsos.livepoll.repository.VoteCounterEngine;
+import link.hsos.livepoll.repository.VoteDAO;
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prüft, dass eine Stimme, die der Writer-Thread nicht schreiben kann, mit REJECTED beantwortet
+ * und vollständig aus den Zählern zurückgenommen wird.
+ */
+class VoteIngestionPipelineTest {
+
+    private static final String POLL_ID = "poll-1";
+
+    private Session session;
+    private VoteCounterEngine engine;
+    private VoteIngestionPipeline pipeline;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        session = mock(Session.class);
+        EntityManager em = mock(EntityManager.class);
+        when(em.getTransaction()).thenReturn(mock(EntityTransaction.class));
+        when(em.createQuery(anyString(), any(Class.class))).thenReturn(mock(TypedQuery.class, RETURNS_SELF));
+        when(em.createNativeQuery(anyString())).thenReturn(mock(Query.class, RETURNS_SELF));
+        when(em.unwrap(Session.class)).thenReturn(session);
+        JpaDatabaseManager dbManager = mock(JpaDatabaseManager.class);
+        when(dbManager.createEntityManager()).thenReturn(em);
+
+        engine = new VoteCounterEngine(dbManager, 60_000, 1_000);
+        engine.track(POLL_ID, false, List.of(1L, 2L));
+
+        VoteDAO voteDAO = mock(VoteDAO.class);
+        when(voteDAO.recordVote(anyString(), anyList(), any(), any())).thenAnswer(invocation -> engine.record(
+                invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3)));
+        doAnswer(invocation -> engine.flush((Collection<String>) invocation.getArgument(0)))
+                .when(voteDAO).flushPendingVotes(anyCollection());
+
+        pipeline = new VoteIngestionPipeline(voteDAO, 1, 100, 10, 0, 1, 1);
+        pipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+        engine.shutdown();
+    }
+
+    @Test
+    void unwritableVoteIsRejectedAndReverted() throws Exception {
+        doThrow(new PersistenceException("Schreiben fehlgeschlagen")).when(session).doWork(any(Work.class));
+
+        VoteOutcome outcome = pipeline.submit(POLL_ID, List.of(1L), "user-a").get(5, TimeUnit.SECONDS);
+
+        assertEquals(VoteOutcome.REJECTED, outcome);
+        assertEquals(Map.of(1L, 0L, 2L, 0L), engine.getCounts(POLL_ID));
+        assertFalse(engine.hasVoted(POLL_ID, "user-a"));
+
+        // Die zurückgenommene Stimme blockiert keine erneute Abgabe
+        doNothing().when(session).doWork(any(Work.class));
+        assertEquals(VoteOutcome.ACCEPTED, pipeline.submit(POLL_ID, List.of(1L), "user-a").get(5, TimeUnit.SECONDS));
+        assertEquals(Map.of(1L, 1L, 2L, 0L), engine.getCounts(POLL_ID));
+        assertTrue(engine.hasVoted(POLL_ID, "user-a"));
+    }
+}
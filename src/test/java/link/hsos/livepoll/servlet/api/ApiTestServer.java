@@ -0,0 +1,98 @@
+package link.hsos.livepoll.servlet.api;
+
+import jakarta.servlet.http.HttpServlet;
+import link.hsos.livepoll.model.Poll;
+import link.hsos.livepoll.model.PollType;
+import link.hsos.livepoll.service.PollService;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Eingebetteter Tomcat mit {@link PollApiServlet} unter {@code /api/polls/*} für Tests gegen die HTTP-API.
+ * Der Server lauscht auf einem freien Port.
+ */
+final class ApiTestServer implements AutoCloseable {
+    private final Tomcat tomcat;
+    private final Context context;
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private ApiTestServer(Tomcat tomcat, Context context) {
+        this.tomcat = tomcat;
+        this.context = context;
+    }
+
+    /**
+     * @param maxThreads Größe des Worker-Pools des Connectors, wenn kein eigener Executor angegeben ist
+     * @param connectorExecutor Executor für die Requests des Connectors oder null für den Worker-Pool
+     */
+    static ApiTestServer start(int maxThreads, Executor connectorExecutor) throws LifecycleException {
+        Tomcat tomcat = new Tomcat();
+        tomcat.setPort(0);
+        tomcat.setBaseDir("target/tomcat");
+        Connector connector = tomcat.getConnector();
+        connector.setProperty("maxThreads", String.valueOf(maxThreads));
+        if (connectorExecutor != null) {
+            connector.getProtocolHandler().setExecutor(connectorExecutor);
+        }
+
+        Context context = tomcat.addContext("", null);
+        ApiTestServer server = new ApiTestServer(tomcat, context);
+        server.addServlet("/api/polls/*", new PollApiServlet());
+        tomcat.start();
+        return server;
+    }
+
+    /**
+     * Registriert ein weiteres Servlet, z.B. als Vergleich zu {@link PollApiServlet}.
+     */
+    void addServlet(String pattern, HttpServlet servlet) {
+        String name = servlet.getClass().getSimpleName();
+        Wrapper wrapper = Tomcat.addServlet(context, name, servlet);
+        wrapper.setAsyncSupported(true);
+        context.addServletMappingDecoded(pattern, name);
+    }
+
+    URI uri(String path) {
+        return URI.create("http://localhost:" + tomcat.getConnector().getLocalPort() + path);
+    }
+
+    CompletableFuture<HttpResponse<String>> get(String path) {
+        return http.sendAsync(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    CompletableFuture<HttpResponse<String>> vote(String path, String pollId, Long optionId, String userId) {
+        String body = "{\"optionId\":" + optionId + ",\"userId\":\"" + userId + "\"}";
+        HttpRequest request = HttpRequest.newBuilder(uri(path + "/" + pollId + "/vote"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Legt eine gestartete Umfrage mit zwei Optionen an.
+     */
+    static Poll createActivePoll(String question) throws Exception {
+        PollService pollService = PollService.getInstance();
+        Poll poll = pollService.createPoll(question, PollType.SINGLE_CHOICE, List.of("Ja", "Nein"), null, null, "test", false);
+        pollService.startPoll(poll.getId(), "test");
+        return pollService.getPoll(poll.getId()).orElseThrow();
+    }
+
+    @Override
+    public void close() throws LifecycleException {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+}
@@ -0,0 +1,120 @@
+package link.hsos.livepoll.servlet.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import link.hsos.livepoll.model.Poll;
+import link.hsos.livepoll.service.PollService;
+import link.hsos.livepoll.service.VoteOutcome;
+import link.hsos.livepoll.service.VoteResult;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Misst den Durchsatz der Stimmabgabe von {@link PollApiServlet}, das Stimmen asynchron verarbeitet,
+ * und einer synchronen Verarbeitung im Container-Thread bei gleicher Anzahl Connector-Threads.
+ * Die Messwerte werden nur protokolliert, da sie von der Auslastung der Maschine abhängen;
+ * geprüft wird, dass jede Stimme angenommen wird.
+ */
+@Tag("load")
+class AsyncVoteThroughputTest {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncVoteThroughputTest.class);
+    private static final int CONNECTOR_THREADS = 8;
+    private static final int CONCURRENCY = 128;
+    private static final int WARMUP_VOTES = 500;
+    private static final int VOTES = Integer.getInteger("load.votes", 4000);
+    private static final int ROUNDS = 3;
+
+    @Test
+    void measuresSynchronousAndAsynchronousVoteThroughput() throws Exception {
+        try (ApiTestServer server = ApiTestServer.start(CONNECTOR_THREADS, null)) {
+            server.addServlet("/sync/polls/*", new SynchronousVoteServlet());
+
+            for (int round = 1; round <= ROUNDS; round++) {
+                double sync = measure(server, "/sync/polls");
+                double async = measure(server, "/api/polls");
+                logger.info("Runde {}: {} Stimmen, {} parallel, {} Connector-Threads: synchron {} Stimmen/s, asynchron {} Stimmen/s",
+                        round, VOTES, CONCURRENCY, CONNECTOR_THREADS, format(sync), format(async));
+            }
+        }
+    }
+
+    /**
+     * Gibt nach einer Aufwärmphase die Stimmen auf eine neue Umfrage ab.
+     *
+     * @return Angenommene Stimmen pro Sekunde
+     */
+    private static double measure(ApiTestServer server, String path) throws Exception {
+        Poll poll = ApiTestServer.createActivePoll("Durchsatz " + path);
+        Long optionId = poll.getOptions().get(0).getId();
+        vote(server, path, poll.getId(), optionId, WARMUP_VOTES);
+
+        long start = System.nanoTime();
+        int accepted = vote(server, path, poll.getId(), optionId, VOTES);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        assertEquals(VOTES, accepted);
+        return accepted / seconds;
+    }
+
+    private static int vote(ApiTestServer server, String path, String pollId, Long optionId, int votes) throws Exception {
+        AtomicInteger accepted = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        List<CompletableFuture<?>> responses = new ArrayList<>();
+        for (int i = 0; i < votes; i++) {
+            inFlight.acquire();
+            responses.add(server.vote(path, pollId, optionId, UUID.randomUUID().toString())
+                    .whenComplete((response, error) -> {
+                        if (response != null && response.statusCode() == 200) {
+                            accepted.incrementAndGet();
+                        }
+                        inFlight.release();
+                    }));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+        return accepted.get();
+    }
+
+    private static String format(double votesPerSecond) {
+        return String.format(Locale.ROOT, "%.0f", votesPerSecond);
+    }
+
+    /**
+     * Stimmabgabe ohne asynchrone Verarbeitung: Der Container-Thread liest den Request, wartet auf das
+     * Schreiben der Stimme und schreibt die Ergebnisse.
+     */
+    private static final class SynchronousVoteServlet extends HttpServlet {
+        private static final ObjectMapper objectMapper = new ObjectMapper();
+        private final PollService pollService = PollService.getInstance();
+
+        @Override
+        protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            String pathInfo = request.getPathInfo();
+            String pollId = pathInfo.substring(1, pathInfo.lastIndexOf("/"));
+            PollApiServlet.VoteRequest vote = objectMapper.readValue(request.getReader(), PollApiServlet.VoteRequest.class);
+
+            VoteResult result = pollService.castVote(pollId, List.of(vote.getOptionId()), vote.getUserId());
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            if (result.getOutcome() != VoteOutcome.ACCEPTED) {
+                response.setStatus(HttpServletResponse.SC_CONFLICT);
+                objectMapper.writeValue(response.getWriter(), result.getOutcome());
+                return;
+            }
+            objectMapper.writeValue(response.getWriter(), result.getResults());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package link.hsos.livepoll.servlet.api;
+
+import link.hsos.livepoll.config.ThreadFactories;
+import link.hsos.livepoll.model.Poll;
+import link.hsos.livepoll.service.PollService;
+import link.hsos.livepoll.service.metrics.MetricsRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Lasttest für den Thread-Modus ({@code threads.virtual}): Hält viele Long-Polling-Clients offen und
+ * misst währenddessen die Dauer paralleler Stimmabgaben.
+ * <p>
+ * Der Connector verwendet wie in {@code docker/server.xml} virtuelle Threads bzw. einen Worker-Pool
+ * mit 200 Threads. Das Profil {@code load-tests} führt den Test in beiden Modi aus.
+ */
+@Tag("load")
+class ThreadModeLoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(ThreadModeLoadTest.class);
+    private static final int CONNECTOR_THREADS = 200;
+    private static final int LONG_POLL_CLIENTS = Integer.getInteger("load.longpoll.clients", 2000);
+    private static final int VOTES = Integer.getInteger("load.votes", 2000);
+    private static final int VOTE_CONCURRENCY = 64;
+
+    @Test
+    void longPollClientsAndVoteLatency() throws Exception {
+        boolean virtual = ThreadFactories.isVirtualThreadsEnabled();
+        try (ApiTestServer server = ApiTestServer.start(CONNECTOR_THREADS,
+                virtual ? Executors.newVirtualThreadPerTaskExecutor() : null)) {
+            Poll waitPoll = ApiTestServer.createActivePoll("Long Polling");
+            Poll votePoll = ApiTestServer.createActivePoll("Stimmabgabe");
+            Long optionId = votePoll.getOptions().get(0).getId();
+
+            List<CompletableFuture<HttpResponse<String>>> waiting = new ArrayList<>();
+            for (int i = 0; i < LONG_POLL_CLIENTS; i++) {
+                waiting.add(server.get("/api/polls/" + waitPoll.getId() + "/wait"));
+            }
+            int maxWaiting = awaitWaitingClients(LONG_POLL_CLIENTS, TimeUnit.SECONDS.toNanos(30));
+
+            long[] latencies = new long[VOTES];
+            AtomicInteger accepted = new AtomicInteger();
+            Semaphore inFlight = new Semaphore(VOTE_CONCURRENCY);
+            List<CompletableFuture<?>> votes = new ArrayList<>();
+            long started = System.nanoTime();
+            for (int i = 0; i < VOTES; i++) {
+                int vote = i;
+                inFlight.acquire();
+                long start = System.nanoTime();
+                votes.add(server.vote("/api/polls", votePoll.getId(), optionId, UUID.randomUUID().toString())
+                        .whenComplete((response, error) -> {
+                            latencies[vote] = System.nanoTime() - start;
+                            if (response != null && response.statusCode() == 200) {
+                                accepted.incrementAndGet();
+                            }
+                            inFlight.release();
+                        }));
+            }
+            CompletableFuture.allOf(votes.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+            long elapsed = System.nanoTime() - started;
+            int waitingAfterVotes = waitingClients();
+
+            // Eine Statusänderung beendet alle Long-Polling-Anfragen
+            PollService.getInstance().closePoll(waitPoll.getId(), "test");
+            long answered = waiting.stream()
+                    .map(future -> future.orTimeout(30, TimeUnit.SECONDS).exceptionally(e -> null).join())
+                    .filter(response -> response != null && response.statusCode() == 200)
+                    .count();
+
+            Arrays.sort(latencies);
+            logger.info("Modus {}: {} von {} Long-Polling-Clients gleichzeitig wartend, {} beantwortet; "
+                            + "{} Stimmen ({} parallel, {} angenommen) in {} ms, p50 {} ms, p99 {} ms",
+                    virtual ? "virtuelle Threads" : "Plattform-Threads (" + CONNECTOR_THREADS + ")",
+                    maxWaiting, LONG_POLL_CLIENTS, answered, VOTES, VOTE_CONCURRENCY, accepted.get(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    millis(latencies[VOTES / 2]), millis(latencies[VOTES * 99 / 100]));
+
+            assertEquals(LONG_POLL_CLIENTS, waitingAfterVotes);
+            assertEquals(LONG_POLL_CLIENTS, answered);
+            assertEquals(VOTES, accepted.get());
+        }
+    }
+
+    /**
+     * Wartet, bis die erwartete Anzahl Long-Polling-Anfragen registriert ist oder sich die Anzahl
+     * fünf Sekunden lang nicht mehr ändert.
+     *
+     * @return Die größte beobachtete Anzahl wartender Anfragen
+     */
+    private static int awaitWaitingClients(int expected, long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        int max = 0;
+        long lastChange = System.nanoTime();
+        while (max < expected && System.nanoTime() < deadline
+                && System.nanoTime() - lastChange < TimeUnit.SECONDS.toNanos(5)) {
+            int current = waitingClients();
+            if (current > max) {
+                max = current;
+                lastChange = System.nanoTime();
+            }
+            Thread.sleep(20);
+        }
+        return max;
+    }
+
+    private static int waitingClients() {
+        Number waiting = MetricsRegistry.getInstance().snapshot().get("poll.wait.waiting");
+        return waiting != null ? waiting.intValue() : 0;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,105 @@
+package link.hsos.livepoll.servlet.api;
+
+import jakarta.persistence.EntityManager;
+import link.hsos.livepoll.model.Poll;
+import link.hsos.livepoll.repository.JpaDatabaseManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Misst, welche SQL-Anweisungen eine Stimmabgabe über {@code POST /api/polls/{id}/vote} in der
+ * Datenbank ausführt, und die Dauer der Anfrage. Gezählt wird über die Abfragestatistik von H2.
+ */
+class VoteRoundTripTest {
+    private static final Logger logger = LoggerFactory.getLogger(VoteRoundTripTest.class);
+    private static final int VOTES = 200;
+
+    private static ApiTestServer server;
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        server = ApiTestServer.start(16, null);
+    }
+
+    @AfterAll
+    static void stopServer() throws Exception {
+        server.close();
+    }
+
+    @Test
+    void voteOnActivePollRunsNoSelect() throws Exception {
+        Poll poll = ApiTestServer.createActivePoll("Round-Trips je Stimme?");
+        Long optionId = poll.getOptions().get(0).getId();
+        // Erste Stimme lädt den Poll-Deskriptor
+        assertEquals(200, server.vote("/api/polls", poll.getId(), optionId, UUID.randomUUID().toString()).join().statusCode());
+
+        resetStatistics();
+        long[] latencies = new long[VOTES];
+        for (int i = 0; i < VOTES; i++) {
+            long start = System.nanoTime();
+            HttpResponse<String> response = server.vote("/api/polls", poll.getId(), optionId, UUID.randomUUID().toString()).join();
+            latencies[i] = System.nanoTime() - start;
+            assertEquals(200, response.statusCode(), response.body());
+        }
+        List<Object[]> statements = readStatistics();
+
+        // Ausführungen je Art der Anweisung (SELECT, INSERT, UPDATE, COMMIT, ...)
+        Map<String, Long> executions = new TreeMap<>();
+        for (Object[] statement : statements) {
+            String kind = String.valueOf(statement[0]).trim().split("\\s+")[0].toUpperCase(Locale.ROOT);
+            executions.merge(kind, ((Number) statement[1]).longValue(), Long::sum);
+        }
+        Arrays.sort(latencies);
+        logger.info("{} Stimmen nacheinander, Anweisungen je Stimme: {}, Dauer p50 {} ms, p99 {} ms", VOTES,
+                perVote(executions), millis(latencies[VOTES / 2]), millis(latencies[VOTES * 99 / 100]));
+
+        long selects = executions.getOrDefault("SELECT", 0L);
+        assertEquals(0, selects);
+    }
+
+    private static Map<String, String> perVote(Map<String, Long> executions) {
+        Map<String, String> result = new TreeMap<>();
+        executions.forEach((kind, count) -> result.put(kind, String.format(Locale.ROOT, "%.2f", count / (double) VOTES)));
+        return result;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+
+    private static void resetStatistics() {
+        execute("SET QUERY_STATISTICS FALSE");
+        execute("SET QUERY_STATISTICS TRUE");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object[]> readStatistics() {
+        try (EntityManager em = JpaDatabaseManager.getInstance().createEntityManager()) {
+            List<Object[]> rows = em.createNativeQuery(
+                    "SELECT SQL_STATEMENT, EXECUTION_COUNT FROM INFORMATION_SCHEMA.QUERY_STATISTICS").getResultList();
+            // Die Abfrage der Statistik selbst zählt nicht mit
+            return rows.stream().filter(row -> !String.valueOf(row[0]).contains("QUERY_STATISTICS")).toList();
+        }
+    }
+
+    private static void execute(String sql) {
+        try (EntityManager em = JpaDatabaseManager.getInstance().createEntityManager()) {
+            em.getTransaction().begin();
+            em.createNativeQuery(sql).executeUpdate();
+            em.getTransaction().commit();
+        }
+    }
+}
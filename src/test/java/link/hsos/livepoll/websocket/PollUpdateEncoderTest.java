@@ -0,0 +1,152 @@
+package link.hsos.livepoll.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import link.hsos.livepoll.model.PollStatus;
+import link.hsos.livepoll.service.PollSnapshot;
+import link.hsos.livepoll.service.PollSnapshotFixtures;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PollUpdateEncoderTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String POLL_ID = "poll-1";
+
+    private final PollUpdateEncoder encoder = new PollUpdateEncoder();
+
+    @Test
+    void firstEncodeSendsSnapshotWithFirstSequenceNumber() throws Exception {
+        PollUpdateEncoder.Update update = encoder.encode(PollSnapshotFixtures.activePoll(POLL_ID, 1, 1, 10L, 11L));
+
+        assertNull(update.getDelta());
+        JsonNode snapshot = json(update.getSnapshot());
+        assertEquals("SNAPSHOT", snapshot.get("type").asText());
+        assertEquals(1, snapshot.get("seq").asLong());
+    }
+
+    @Test
+    void countChangeSendsDeltaOfChangedOptionsOnPreviousSequence() throws Exception {
+        PollSnapshot first = PollSnapshotFixtures.activePoll(POLL_ID, 1, 1, 10L, 11L);
+        encoder.encode(first);
+
+        PollUpdateEncoder.Update update = encoder.encode(PollSnapshotFixtures.withCounts(first, Map.of(10L, 3L), 2));
+
+        JsonNode delta = json(update.getDelta());
+        assertEquals("DELTA", delta.get("type").asText());
+        assertEquals(2, delta.get("seq").asLong());
+        assertEquals(1, delta.get("base").asLong());
+        assertEquals(3, delta.get("totalVotes").asInt());
+        assertEquals(1, delta.get("votes").size());
+        assertEquals(3, delta.get("votes").get("10").asInt());
+        // Wer ein Update verpasst hat, erhält den vollständigen Stand mit derselben Sequenznummer
+        assertEquals(2, json(update.getSnapshot()).get("seq").asLong());
+    }
+
+    @Test
+    void unchangedOrOlderStateProducesNoUpdate() {
+        PollSnapshot first = PollSnapshotFixtures.activePoll(POLL_ID, 1, 1, 10L);
+        PollSnapshot second = PollSnapshotFixtures.withCounts(first, Map.of(10L, 1L), 2);
+        encoder.encode(first);
+        encoder.encode(second);
+
+        assertNull(encoder.encode(first));
+        assertNull(encoder.encode(second));
+        assertNull(encoder.encode(PollSnapshotFixtures.withCounts(second, Map.of(10L, 1L), 3)));
+    }
+
+    @Test
+    void structureOrStatusChangeForcesSnapshot() throws Exception {
+        PollSnapshot first = PollSnapshotFixtures.activePoll(POLL_ID, 1, 1, 10L);
+        encoder.encode(first);
+
+        PollUpdateEncoder.Update restructured = encoder.encode(PollSnapshotFixtures.activePoll(POLL_ID, 2, 2, 10L, 12L));
+        assertNull(restructured.getDelta());
+        assertEquals(2, json(restructured.getSnapshot()).get("seq").asLong());
+
+        PollUpdateEncoder.Update closed = encoder.encode(
+                PollSnapshotFixtures.withStatus(PollSnapshotFixtures.activePoll(POLL_ID, 2, 2, 10L, 12L), PollStatus.CLOSED, 3));
+        assertNull(closed.getDelta());
+        JsonNode snapshot = json(closed.getSnapshot());
+        assertEquals(3, snapshot.get("seq").asLong());
+        assertEquals("CLOSED", snapshot.get("status").asText());
+    }
+
+    @Test
+    void subscriberWithStaleStateReceivesContentOfCurrentSequence() throws Exception {
+        PollSnapshot first = PollSnapshotFixtures.activePoll(POLL_ID, 1, 1, 10L);
+        encoder.encode(first);
+        encoder.encode(PollSnapshotFixtures.withCounts(first, Map.of(10L, 5L), 2));
+
+        // Der Abonnent hat den Stand vor dem letzten Update geladen
+        JsonNode snapshot = json(encoder.snapshotMessage(first));
+
+        assertEquals(2, snapshot.get("seq").asLong());
+        assertEquals(5, snapshot.get("results").get("totalVotes").asInt());
+    }
+
+    @Test
+    void subscribeRacingBroadcastNeverPairsSequenceWithOlderContent() throws Exception {
+        int versions = 2_000;
+        PollSnapshot first = PollSnapshotFixtures.activePoll(POLL_ID, 1, 1, 10L);
+        AtomicReference<PollSnapshot> current = new AtomicReference<>(first);
+        // Stimmenzahl je Sequenznummer, wie sie mit den DELTAs verteilt wurde
+        Map<Long, Integer> votesBySeq = new ConcurrentHashMap<>();
+        votesBySeq.put(1L, 0);
+        encoder.encode(first);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?> broadcaster = executor.submit(() -> {
+                start.await();
+                for (int version = 2; version <= versions; version++) {
+                    PollSnapshot next = PollSnapshotFixtures.withCounts(first, Map.of(10L, (long) version), version);
+                    current.set(next);
+                    JsonNode delta = json(encoder.encode(next).getDelta());
+                    votesBySeq.put(delta.get("seq").asLong(), delta.get("totalVotes").asInt());
+                }
+                return null;
+            });
+            Map<Long, Integer> subscribed = new ConcurrentHashMap<>();
+            Future<?> subscriber = executor.submit(() -> {
+                start.await();
+                do {
+                    JsonNode snapshot = json(encoder.snapshotMessage(current.get()));
+                    subscribed.merge(snapshot.get("seq").asLong(), snapshot.get("results").get("totalVotes").asInt(), Math::min);
+                } while (!broadcaster.isDone());
+                return null;
+            });
+            start.countDown();
+            broadcaster.get(30, TimeUnit.SECONDS);
+            subscriber.get(30, TimeUnit.SECONDS);
+
+            assertFalse(subscribed.isEmpty());
+            subscribed.forEach((seq, votes) -> {
+                Integer distributed = votesBySeq.get(seq);
+                assertNotNull(distributed, "Unbekannte Sequenznummer " + seq);
+                assertTrue(votes >= distributed, "seq " + seq + " mit " + votes + " statt mindestens " + distributed + " Stimmen");
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static JsonNode json(String message) throws Exception {
+        return objectMapper.readTree(message);
+    }
+}
@@ -0,0 +1,176 @@
+package link.hsos.livepoll.websocket;
+
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import link.hsos.livepoll.service.PollSnapshot;
+import link.hsos.livepoll.service.PollSnapshotFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prüft die Zustände der Outbox: höchstens eine Nachricht unterwegs, ein ersetzbarer Platz für Updates
+ * und der Wechsel auf den SNAPSHOT, sobald ein Client ein DELTA verpasst hat.
+ */
+class SessionOutboxTest {
+
+    private final PollUpdateEncoder encoder = new PollUpdateEncoder();
+    private PollSnapshot first;
+    private Session session;
+    private RemoteEndpoint.Async remote;
+
+    @BeforeEach
+    void setUp() {
+        session = mock(Session.class);
+        remote = mock(RemoteEndpoint.Async.class);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getId()).thenReturn("session-1");
+        when(session.getAsyncRemote()).thenReturn(remote);
+
+        first = PollSnapshotFixtures.activePoll("poll-1", 1, 1, 10L);
+        encoder.encode(first);
+    }
+
+    @Test
+    void idleOutboxSendsDeltaImmediately() {
+        SessionOutbox outbox = new SessionOutbox(session, 60_000);
+        PollUpdateEncoder.Update update = update(2);
+
+        outbox.send(update);
+
+        assertEquals(update.getDelta(), sentMessage());
+    }
+
+    @Test
+    void singlePendingUpdateKeepsDelta() {
+        SessionOutbox outbox = new SessionOutbox(session, 60_000);
+        outbox.send(update(2));
+        SendHandler inFlight = sentHandler();
+
+        PollUpdateEncoder.Update pending = update(3);
+        clearInvocations(remote);
+        outbox.send(pending);
+        verify(remote, never()).sendText(anyString(), any(SendHandler.class));
+        complete(inFlight);
+
+        assertEquals(pending.getDelta(), sentMessage());
+    }
+
+    @Test
+    void replacedPendingUpdateSwitchesToSnapshotOnce() {
+        SessionOutbox outbox = new SessionOutbox(session, 60_000);
+        outbox.send(update(2));
+        SendHandler inFlight = sentHandler();
+
+        outbox.send(update(3));
+        PollUpdateEncoder.Update replacing = update(4);
+        outbox.send(replacing);
+        complete(inFlight);
+
+        // Das DELTA von Update 3 fehlt dem Client, deshalb der vollständige Stand
+        assertEquals(replacing.getSnapshot(), sentMessage());
+        complete(sentHandler());
+
+        PollUpdateEncoder.Update next = update(5);
+        outbox.send(next);
+        assertEquals(next.getDelta(), sentMessage());
+    }
+
+    @Test
+    void controlMessagesAreSentInOrderBeforePendingUpdate() {
+        SessionOutbox outbox = new SessionOutbox(session, 60_000);
+        outbox.send(update(2));
+        SendHandler inFlight = sentHandler();
+
+        outbox.sendControl("PONG-1");
+        PollUpdateEncoder.Update pending = update(3);
+        outbox.send(pending);
+        outbox.sendControl("PONG-2");
+
+        complete(inFlight);
+        assertEquals("PONG-1", sentMessage());
+        complete(sentHandler());
+        assertEquals("PONG-2", sentMessage());
+        complete(sentHandler());
+        assertEquals(pending.getDelta(), sentMessage());
+    }
+
+    @Test
+    void failedSendContinuesWithPendingMessage() {
+        SessionOutbox outbox = new SessionOutbox(session, 60_000);
+        outbox.send(update(2));
+        SendHandler inFlight = sentHandler();
+        PollUpdateEncoder.Update pending = update(3);
+        outbox.send(pending);
+
+        clearInvocations(remote);
+        inFlight.onResult(new SendResult(new IllegalStateException("Verbindung unterbrochen")));
+
+        assertEquals(pending.getDelta(), sentMessage());
+    }
+
+    @Test
+    void laggingSessionIsClosedAndDropsFurtherMessages() throws Exception {
+        SessionOutbox outbox = new SessionOutbox(session, 1);
+        outbox.send(update(2));
+        Thread.sleep(20);
+
+        assertTrue(outbox.evictIfLagging());
+        ArgumentCaptor<CloseReason> reason = ArgumentCaptor.forClass(CloseReason.class);
+        verify(session).close(reason.capture());
+        assertEquals(CloseReason.CloseCodes.TRY_AGAIN_LATER, reason.getValue().getCloseCode());
+
+        clearInvocations(remote);
+        outbox.send(update(3));
+        outbox.sendControl("PONG");
+        verify(remote, never()).sendText(anyString(), any(SendHandler.class));
+        assertFalse(outbox.evictIfLagging());
+    }
+
+    private PollUpdateEncoder.Update update(long version) {
+        PollUpdateEncoder.Update update = encoder.encode(PollSnapshotFixtures.withCounts(first, Map.of(10L, version), version));
+        assertNotNull(update.getDelta());
+        return update;
+    }
+
+    /**
+     * @return Die zuletzt an den Client übergebene Nachricht
+     */
+    private String sentMessage() {
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(remote, atLeastOnce()).sendText(message.capture(), any(SendHandler.class));
+        List<String> messages = message.getAllValues();
+        return messages.get(messages.size() - 1);
+    }
+
+    private SendHandler sentHandler() {
+        ArgumentCaptor<SendHandler> handler = ArgumentCaptor.forClass(SendHandler.class);
+        verify(remote, atLeastOnce()).sendText(anyString(), handler.capture());
+        List<SendHandler> handlers = handler.getAllValues();
+        return handlers.get(handlers.size() - 1);
+    }
+
+    private void complete(SendHandler handler) {
+        clearInvocations(remote);
+        handler.onResult(new SendResult());
+    }
+}